@@ -13,12 +13,14 @@ package org.eclipse.orion.internal.server.core;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Collection;
+import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.orion.internal.server.core.tasks.TaskService;
 import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.ServerConstants;
 import org.eclipse.orion.server.core.tasks.ITaskService;
+import org.eclipse.orion.server.core.users.OrionPreferencesLocal;
 import org.eclipse.osgi.framework.log.FrameworkLog;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.osgi.framework.*;
@@ -32,14 +34,38 @@ public class Activator implements BundleActivator {
 	public static volatile BundleContext bundleContext;
 
 	static Activator singleton;
+	ServiceTracker<IFileChangeListener, IFileChangeListener> fileChangeTracker;
 	ServiceTracker<FrameworkLog, FrameworkLog> logTracker;
 	ServiceTracker<IPreferencesService, IPreferencesService> prefTracker;
 	private ServiceRegistration<ITaskService> taskServiceRegistration;
+	private TaskService taskService;
 
 	public static Activator getDefault() {
 		return singleton;
 	}
 
+	/**
+	 * Notifies all registered file change listeners that the given file or directory
+	 * has been created, modified, or deleted.
+	 */
+	public static void fireFileChanged(IFileStore store) {
+		//protect against concurrent shutdown
+		Activator a = singleton;
+		if (a == null || store == null)
+			return;
+		ServiceTracker<IFileChangeListener, IFileChangeListener> tracker = a.getFileChangeTracker();
+		if (tracker == null)
+			return;
+		for (IFileChangeListener listener : tracker.getTracked().values()) {
+			try {
+				listener.fileChanged(store);
+			} catch (RuntimeException e) {
+				//a misbehaving listener must not fail the operation that changed the file
+				LogHelper.log(e);
+			}
+		}
+	}
+
 	/**
 	 * Returns the framework log, or null if not available
 	 */
@@ -72,6 +98,17 @@ public class Activator implements BundleActivator {
 		return bundleContext;
 	}
 
+	private synchronized ServiceTracker<IFileChangeListener, IFileChangeListener> getFileChangeTracker() {
+		if (fileChangeTracker != null)
+			return fileChangeTracker;
+		//lazy init if the bundle has been started
+		if (bundleContext == null)
+			return null;
+		fileChangeTracker = new ServiceTracker<IFileChangeListener, IFileChangeListener>(bundleContext, IFileChangeListener.class, null);
+		fileChangeTracker.open();
+		return fileChangeTracker;
+	}
+
 	private ServiceTracker<FrameworkLog, FrameworkLog> getLogTracker() {
 		if (logTracker != null)
 			return logTracker;
@@ -134,8 +171,8 @@ public class Activator implements BundleActivator {
 	private void startTaskService() {
 		try {
 			IPath taskLocation = getTaskLocation();
-			ITaskService service = new TaskService(taskLocation);
-			taskServiceRegistration = bundleContext.registerService(ITaskService.class, service, null);
+			taskService = new TaskService(taskLocation);
+			taskServiceRegistration = bundleContext.registerService(ITaskService.class, taskService, null);
 		} catch (IOException e) {
 			LogHelper.log(new Status(IStatus.ERROR, ServerConstants.PI_SERVER_CORE, "Failed to initialize task service", e)); //$NON-NLS-1$
 		}
@@ -147,6 +184,11 @@ public class Activator implements BundleActivator {
 	public void stop(BundleContext context) throws Exception {
 		bundleContext = null;
 		stopTaskService();
+		OrionPreferencesLocal.flushAll();
+		if (fileChangeTracker != null) {
+			fileChangeTracker.close();
+			fileChangeTracker = null;
+		}
 		if (prefTracker != null) {
 			prefTracker.close();
 			prefTracker = null;
@@ -162,5 +204,10 @@ public class Activator implements BundleActivator {
 		taskServiceRegistration = null;
 		if (reg != null)
 			reg.unregister();
+		if (taskService != null) {
+			//write progress of running tasks that has not been written yet
+			taskService.flush();
+			taskService = null;
+		}
 	}
 }
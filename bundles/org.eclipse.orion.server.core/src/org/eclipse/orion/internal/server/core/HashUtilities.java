@@ -75,6 +75,16 @@ public class HashUtilities {
 		return bytesToHex(mdbytes);
 	}
 
+	/**
+	 * Returns the hash of the data passed to the given message digest so far,
+	 * and resets the digest.
+	 * @param md message digest
+	 * @return text representation of the hash
+	 */
+	public static String getHash(MessageDigest md) {
+		return bytesToHex(md.digest());
+	}
+
 	//convert the byte to hex format
 	private static String bytesToHex(byte[] bytes) {
 	    StringBuffer sb = new StringBuffer("");
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.core;
+
+import org.eclipse.core.filesystem.IFileStore;
+
+/**
+ * A file change listener is notified whenever the server modifies user content
+ * on behalf of a client. This allows services that maintain derived data, such as
+ * a search index, to react to changes without crawling the file system.
+ * Listeners are registered as OSGi services.
+ */
+public interface IFileChangeListener {
+	/**
+	 * Indicates that the given file or directory has been created, modified, or deleted.
+	 * When the store is a directory, any file below it may have changed. This method
+	 * is called on the thread performing the change, so implementations must return quickly.
+	 * @param store The file or directory that has changed
+	 */
+	public void fileChanged(IFileStore store);
+}
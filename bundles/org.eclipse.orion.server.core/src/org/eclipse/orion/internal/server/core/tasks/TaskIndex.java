@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.core.tasks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.orion.server.core.tasks.TaskInfo;
+
+/**
+ * An in-memory index of the tasks of each user, sorted by modification time. Changes
+ * are written through to the {@link TaskStore}, which remains the durable copy. The
+ * tasks of a user are read from the store the first time they are needed, and dropped
+ * from the index again when they have not been used for a while.
+ * <p>
+ * Updates to a running task are written to the store at most once per persist
+ * interval. Updates in between only change the index, and the latest of them is
+ * written by a background job when the interval has passed. Creating a task and
+ * finishing it are always written immediately.
+ * </p>
+ * <p>
+ * Each user's tasks are guarded by their own lock, so users don't block each other.
+ * All store access for a user happens under that user's lock.
+ * </p>
+ */
+class TaskIndex {
+
+	/**
+	 * A task in the index. Only the fields needed to answer queries are parsed; the
+	 * representation is parsed again for each task returned, so callers never share
+	 * a task instance.
+	 */
+	private static class Entry {
+		final String taskId;
+		final long modified;
+		final boolean running;
+		final String representation;
+
+		Entry(String taskId, long modified, boolean running, String representation) {
+			this.taskId = taskId;
+			this.modified = modified;
+			this.running = running;
+			this.representation = representation;
+		}
+	}
+
+	private static final Comparator<Entry> BY_MODIFIED = new Comparator<Entry>() {
+		public int compare(Entry e1, Entry e2) {
+			if (e1.modified != e2.modified)
+				return e1.modified < e2.modified ? -1 : 1;
+			return e1.taskId.compareTo(e2.taskId);
+		}
+	};
+
+	private static class UserTasks {
+		final String userId;
+		final Map<String, Entry> byId = new HashMap<String, Entry>();
+		final SortedSet<Entry> byModified = new TreeSet<Entry>(BY_MODIFIED);
+		/**
+		 * The time each task was last written to the store.
+		 */
+		final Map<String, Long> persisted = new HashMap<String, Long>();
+		/**
+		 * The tasks whose latest state has not been written to the store yet.
+		 */
+		final Set<String> unsaved = new HashSet<String>();
+		boolean loaded = false;
+		/**
+		 * Whether the tasks have been dropped from the index. A dropped instance must not be
+		 * used, the tasks are read from the store again instead.
+		 */
+		boolean unloaded = false;
+		long lastAccess;
+
+		UserTasks(String userId) {
+			this.userId = userId;
+		}
+
+		void put(Entry entry) {
+			remove(entry.taskId);
+			byId.put(entry.taskId, entry);
+			byModified.add(entry);
+		}
+
+		Entry remove(String taskId) {
+			Entry old = byId.remove(taskId);
+			if (old != null)
+				byModified.remove(old);
+			return old;
+		}
+
+		boolean hasRunningTasks() {
+			for (Entry entry : byId.values())
+				if (entry.running)
+					return true;
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the latest state of tasks whose updates were not written immediately.
+	 */
+	private class PersistJob extends Job {
+		PersistJob() {
+			super("Saving task updates");
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			persistScheduled.set(false);
+			persistUnsaved();
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * The time after which the tasks of a user that have not been used are dropped from the index.
+	 */
+	private static final long UNLOAD_DELAY = 30 * 60 * 1000;//thirty minutes
+
+	private final TaskStore store;
+	private final long persistInterval;
+	private final ConcurrentHashMap<String, UserTasks> users = new ConcurrentHashMap<String, UserTasks>();
+	/**
+	 * The users that have tasks with unsaved updates.
+	 */
+	private final ConcurrentHashMap<String, UserTasks> unsavedUsers = new ConcurrentHashMap<String, UserTasks>();
+	private final AtomicBoolean persistScheduled = new AtomicBoolean();
+	private final Job persistJob = new PersistJob();
+	/**
+	 * The earliest time at which the index looks for users whose tasks can be dropped.
+	 */
+	private final AtomicLong nextUnload = new AtomicLong(System.currentTimeMillis() + UNLOAD_DELAY);
+
+	/**
+	 * @param store the durable store of the tasks
+	 * @param persistInterval the minimum time in milliseconds between writes of the same running task
+	 */
+	TaskIndex(TaskStore store, long persistInterval) {
+		this.store = store;
+		this.persistInterval = persistInterval;
+	}
+
+	/**
+	 * Returns the tasks of the given user, reading them from the store if this is the
+	 * first time they are needed. The caller must synchronize on the result before using it.
+	 */
+	private UserTasks getUserTasks(String userId) {
+		unloadIdleUsers();
+		while (true) {
+			UserTasks tasks = users.get(userId);
+			if (tasks == null) {
+				UserTasks existing = users.putIfAbsent(userId, tasks = new UserTasks(userId));
+				if (existing != null)
+					tasks = existing;
+			}
+			synchronized (tasks) {
+				//dropped while we were waiting for the lock, so look up the user again
+				if (tasks.unloaded)
+					continue;
+				tasks.lastAccess = System.currentTimeMillis();
+				if (!tasks.loaded)
+					load(tasks);
+				return tasks;
+			}
+		}
+	}
+
+	/**
+	 * Reads the tasks of a user from the store. The caller must hold the lock of the given tasks.
+	 * If the store can't be read, the tasks are read again the next time they are needed.
+	 */
+	private void load(UserTasks tasks) {
+		List<String> representations = store.readAllTasks(tasks.userId);
+		if (representations == null)
+			return;
+		for (String representation : representations) {
+			TaskInfo task = TaskInfo.fromJSON(representation);
+			//tasks written since a failed read are newer than the store
+			if (task == null || tasks.byId.containsKey(task.getTaskId()))
+				continue;
+			if (task.isRunning()) {
+				//all tasks of this server instance are written through the index, so this one was interrupted by a restart
+				task.done(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Task could not be completed due to server restart", null));
+				representation = task.toJSON().toString();
+				store.writeTask(new TaskDescription(tasks.userId, task.getTaskId()), representation);
+			}
+			tasks.put(new Entry(task.getTaskId(), task.getModified().getTime(), task.isRunning(), representation));
+		}
+		tasks.loaded = true;
+	}
+
+	/**
+	 * Drops the tasks of users that have not been used within the unload delay. Tasks that
+	 * are running or have unsaved updates are kept, since reading a running task back from
+	 * the store would mark it as interrupted. Does nothing if it was done less than the unload
+	 * delay ago.
+	 */
+	private void unloadIdleUsers() {
+		long now = System.currentTimeMillis();
+		long next = nextUnload.get();
+		if (now < next || !nextUnload.compareAndSet(next, now + UNLOAD_DELAY))
+			return;
+		for (UserTasks tasks : users.values()) {
+			synchronized (tasks) {
+				if (now - tasks.lastAccess < UNLOAD_DELAY || !tasks.unsaved.isEmpty() || tasks.hasRunningTasks())
+					continue;
+				tasks.unloaded = true;
+				users.remove(tasks.userId, tasks);
+			}
+		}
+	}
+
+	/**
+	 * Returns the representation of the task with the given id, or <code>null</code>
+	 * if no such task exists.
+	 */
+	String readTask(String userId, String taskId) {
+		UserTasks tasks = getUserTasks(userId);
+		synchronized (tasks) {
+			Entry entry = tasks.byId.get(taskId);
+			return entry == null ? null : entry.representation;
+		}
+	}
+
+	/**
+	 * Returns the representations of the tasks of the given user, optionally only those
+	 * modified at or after the given time and those that are running, in order of modification.
+	 */
+	List<String> readTasks(String userId, Date modifiedSince, boolean runningOnly) {
+		List<String> result = new ArrayList<String>();
+		UserTasks tasks = getUserTasks(userId);
+		synchronized (tasks) {
+			SortedSet<Entry> matching = tasks.byModified;
+			if (modifiedSince != null)
+				matching = matching.tailSet(new Entry("", modifiedSince.getTime(), false, null)); //$NON-NLS-1$
+			for (Entry entry : matching) {
+				if (runningOnly && !entry.running)
+					continue;
+				result.add(entry.representation);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the given task to the index, and to the store unless it was written less
+	 * than the persist interval ago.
+	 * @param task the task to write
+	 * @param persist whether the task must be written to the store immediately
+	 */
+	void writeTask(TaskInfo task, boolean persist) {
+		String representation = task.toJSON().toString();
+		String taskId = task.getTaskId();
+		UserTasks tasks = getUserTasks(task.getUserId());
+		synchronized (tasks) {
+			tasks.put(new Entry(taskId, task.getModified().getTime(), task.isRunning(), representation));
+			long now = System.currentTimeMillis();
+			Long persisted = tasks.persisted.get(taskId);
+			if (persist || persisted == null || now - persisted.longValue() >= persistInterval) {
+				store.writeTask(new TaskDescription(task.getUserId(), taskId), representation);
+				tasks.persisted.put(taskId, now);
+				tasks.unsaved.remove(taskId);
+				return;
+			}
+			tasks.unsaved.add(taskId);
+		}
+		unsavedUsers.put(tasks.userId, tasks);
+		if (persistScheduled.compareAndSet(false, true))
+			persistJob.schedule(persistInterval);
+	}
+
+	/**
+	 * Writes the latest state of all tasks with unsaved updates to the store.
+	 */
+	void persistUnsaved() {
+		for (String userId : unsavedUsers.keySet()) {
+			UserTasks tasks = unsavedUsers.remove(userId);
+			if (tasks == null)
+				continue;
+			synchronized (tasks) {
+				long now = System.currentTimeMillis();
+				for (String taskId : tasks.unsaved) {
+					Entry entry = tasks.byId.get(taskId);
+					if (entry == null)
+						continue;
+					store.writeTask(new TaskDescription(userId, taskId), entry.representation);
+					tasks.persisted.put(taskId, now);
+				}
+				tasks.unsaved.clear();
+			}
+		}
+	}
+
+	/**
+	 * Removes the given task from the store and the index.
+	 * @return <code>true</code> if task was removed, <code>false</code> otherwise. 
+	 */
+	boolean removeTask(String userId, String taskId) {
+		UserTasks tasks = getUserTasks(userId);
+		synchronized (tasks) {
+			if (!store.removeTask(new TaskDescription(userId, taskId)))
+				return false;
+			tasks.remove(taskId);
+			tasks.persisted.remove(taskId);
+			tasks.unsaved.remove(taskId);
+			return true;
+		}
+	}
+}
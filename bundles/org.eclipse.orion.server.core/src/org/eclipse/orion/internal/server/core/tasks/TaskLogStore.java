@@ -0,0 +1,438 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.core.tasks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.orion.internal.server.core.IOUtilities;
+import org.eclipse.orion.server.core.LogHelper;
+
+/**
+ * A task store that keeps the tasks of each user in an append-only log rather than
+ * a file per task. Task representations are appended to numbered segment files,
+ * and an index file records where the latest representation of each task is. Only
+ * the index is read to find a user's tasks, and it is only read the first time the
+ * user's tasks are needed.
+ * <p>
+ * Old tasks are removed by deleting whole segments once everything written to them
+ * is older than the retention date. Space used by replaced and removed tasks is
+ * reclaimed by compacting the log when most of it is no longer used.
+ * </p>
+ * <p>
+ * As for {@link TaskStore}, callers must not access the tasks of the same user from
+ * several threads at once.
+ * </p>
+ */
+public class TaskLogStore extends TaskStore {
+	private static final String INDEX_FILE = "index"; //$NON-NLS-1$
+	private static final String SEGMENT_PREFIX = "segment-"; //$NON-NLS-1$
+	private static final byte OP_WRITE = 1;
+	private static final byte OP_REMOVE = 2;
+	/**
+	 * The size in bytes above which a new segment is started.
+	 */
+	private static final long SEGMENT_SIZE = 1024 * 1024;
+	/**
+	 * The number of unused bytes below which a log is never compacted.
+	 */
+	private static final long MIN_COMPACT_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * The location of the latest representation of a task.
+	 */
+	private static class Location {
+		final int segment;
+		final long offset;
+		final int length;
+		final long time;
+
+		Location(int segment, long offset, int length, long time) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * The in-memory copy of the index of one user's log.
+	 */
+	private static class UserLog {
+		final File directory;
+		final Map<String, Location> tasks = new HashMap<String, Location>();
+		/**
+		 * The time of the newest write to each segment, by segment number.
+		 */
+		final TreeMap<Integer, Long> segments = new TreeMap<Integer, Long>();
+		int currentSegment = 0;
+		long currentSize = 0;
+		long liveBytes = 0;
+		long totalBytes = 0;
+		int indexRecords = 0;
+
+		UserLog(File directory) {
+			this.directory = directory;
+		}
+
+		File getSegmentFile(int segment) {
+			return new File(directory, SEGMENT_PREFIX + segment);
+		}
+
+		File getIndexFile() {
+			return new File(directory, INDEX_FILE);
+		}
+
+		void put(String taskId, Location location) {
+			remove(taskId);
+			tasks.put(taskId, location);
+			liveBytes += location.length;
+			Long newest = segments.get(location.segment);
+			if (newest == null || newest.longValue() < location.time)
+				segments.put(location.segment, location.time);
+		}
+
+		void remove(String taskId) {
+			Location old = tasks.remove(taskId);
+			if (old != null)
+				liveBytes -= old.length;
+		}
+	}
+
+	private final Map<String, UserLog> logs = new ConcurrentHashMap<String, UserLog>();
+
+	public TaskLogStore(File root) {
+		super(root);
+	}
+
+	/**
+	 * Returns the log of the given user, reading its index if needed. Returns <code>null</code>
+	 * if the user has no log and <code>create</code> is <code>false</code>.
+	 */
+	private UserLog getLog(String userId, boolean create) {
+		UserLog log = logs.get(userId);
+		if (log != null)
+			return log;
+		File directory = new File(root, getUserDirectory(userId));
+		if (!directory.exists()) {
+			if (!create)
+				return null;
+			directory.mkdir();
+		}
+		log = new UserLog(directory);
+		readIndex(log);
+		logs.put(userId, log);
+		return log;
+	}
+
+	private void readIndex(UserLog log) {
+		File indexFile = log.getIndexFile();
+		if (!indexFile.exists())
+			return;
+		DataInputStream in = null;
+		boolean incomplete = false;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			int op;
+			while ((op = in.read()) != -1) {
+				//a record that ends before all its fields were read was not completely written
+				incomplete = true;
+				String taskId = in.readUTF();
+				if (op == OP_WRITE) {
+					Location location = new Location(in.readInt(), in.readLong(), in.readInt(), in.readLong());
+					log.put(taskId, location);
+					log.totalBytes += location.length;
+				} else {
+					log.remove(taskId);
+				}
+				log.indexRecords++;
+				incomplete = false;
+			}
+		} catch (EOFException e) {
+			//the incomplete record is dropped below
+		} catch (IOException e) {
+			LogHelper.log(e);
+		} finally {
+			IOUtilities.safeClose(in);
+		}
+		//segments without live tasks are still known, so they can be dropped
+		String[] files = log.directory.list();
+		if (files != null) {
+			for (String file : files) {
+				if (!file.startsWith(SEGMENT_PREFIX))
+					continue;
+				try {
+					int segment = Integer.parseInt(file.substring(SEGMENT_PREFIX.length()));
+					if (!log.segments.containsKey(segment))
+						log.segments.put(segment, log.getSegmentFile(segment).lastModified());
+				} catch (NumberFormatException e) {
+					//not a segment
+				}
+			}
+		}
+		if (!log.segments.isEmpty()) {
+			log.currentSegment = log.segments.lastKey();
+			log.currentSize = log.getSegmentFile(log.currentSegment).length();
+		}
+		if (incomplete) {
+			//records appended after the broken bytes would be misread, so rewrite the index without them
+			try {
+				writeIndex(log);
+			} catch (IOException e) {
+				LogHelper.log(e);
+			}
+		}
+	}
+
+	private void appendIndex(UserLog log, byte op, String taskId, Location location) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(log.getIndexFile(), true)));
+		try {
+			writeIndexRecord(out, op, taskId, location);
+		} finally {
+			out.close();
+		}
+		log.indexRecords++;
+	}
+
+	private static void writeIndexRecord(DataOutputStream out, byte op, String taskId, Location location) throws IOException {
+		out.writeByte(op);
+		out.writeUTF(taskId);
+		if (op == OP_WRITE) {
+			out.writeInt(location.segment);
+			out.writeLong(location.offset);
+			out.writeInt(location.length);
+			out.writeLong(location.time);
+		}
+	}
+
+	private byte[] readSegment(UserLog log, Location location) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(log.getSegmentFile(location.segment), "r"); //$NON-NLS-1$
+		try {
+			byte[] bytes = new byte[location.length];
+			file.seek(location.offset);
+			file.readFully(bytes);
+			return bytes;
+		} finally {
+			file.close();
+		}
+	}
+
+	private Location appendSegment(UserLog log, byte[] bytes, long time) throws IOException {
+		if (log.currentSize >= SEGMENT_SIZE) {
+			log.currentSegment++;
+			log.currentSize = 0;
+		}
+		FileOutputStream out = new FileOutputStream(log.getSegmentFile(log.currentSegment), true);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+		Location location = new Location(log.currentSegment, log.currentSize, bytes.length, time);
+		log.currentSize += bytes.length;
+		log.totalBytes += bytes.length;
+		return location;
+	}
+
+	@Override
+	public String readTask(TaskDescription td) {
+		UserLog log = getLog(td.getUserId(), false);
+		if (log == null)
+			return null;
+		Location location = log.tasks.get(td.getTaskId());
+		if (location == null)
+			return null;
+		try {
+			return new String(readSegment(log, location), "UTF-8"); //$NON-NLS-1$
+		} catch (IOException e) {
+			LogHelper.log(e);
+			return null;
+		}
+	}
+
+	@Override
+	public void writeTask(TaskDescription td, String representation) {
+		UserLog log = getLog(td.getUserId(), true);
+		try {
+			Location location = appendSegment(log, representation.getBytes("UTF-8"), System.currentTimeMillis()); //$NON-NLS-1$
+			appendIndex(log, OP_WRITE, td.getTaskId(), location);
+			log.put(td.getTaskId(), location);
+			if (log.totalBytes - log.liveBytes > Math.max(MIN_COMPACT_SIZE, log.liveBytes))
+				compact(log);
+		} catch (IOException e) {
+			LogHelper.log(e);
+		}
+	}
+
+	@Override
+	public boolean removeTask(TaskDescription td) {
+		UserLog log = getLog(td.getUserId(), false);
+		if (log == null || !log.tasks.containsKey(td.getTaskId()))
+			return false;
+		try {
+			appendIndex(log, OP_REMOVE, td.getTaskId(), null);
+		} catch (IOException e) {
+			LogHelper.log(e);
+			return false;
+		}
+		log.remove(td.getTaskId());
+		return true;
+	}
+
+	@Override
+	public List<String> readAllTasks(String userId) {
+		List<String> result = new ArrayList<String>();
+		UserLog log = getLog(userId, false);
+		if (log == null)
+			return result;
+		for (Location location : log.tasks.values()) {
+			try {
+				result.add(new String(readSegment(log, location), "UTF-8")); //$NON-NLS-1$
+			} catch (IOException e) {
+				//skip the unreadable task rather than failing to read all tasks of the user
+				LogHelper.log(e);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<TaskDescription> readAllTasks() {
+		List<TaskDescription> result = new ArrayList<TaskDescription>();
+		for (File userDirectory : root.listFiles()) {
+			String userId = getUserName(userDirectory.getName());
+			if (userId == null || !userDirectory.isDirectory())
+				continue;
+			UserLog log = getLog(userId, false);
+			if (log == null)
+				continue;
+			for (String taskId : log.tasks.keySet())
+				result.add(new TaskDescription(userId, taskId));
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the tasks last written before the given date, by deleting every segment
+	 * that was last written to before that date. Only the index of each user is read.
+	 */
+	@Override
+	public void removeTasksBefore(Date date) {
+		long cutoff = date.getTime();
+		for (File userDirectory : root.listFiles()) {
+			String userId = getUserName(userDirectory.getName());
+			if (userId == null || !userDirectory.isDirectory())
+				continue;
+			UserLog log = getLog(userId, false);
+			if (log == null)
+				continue;
+			List<Integer> expired = new ArrayList<Integer>();
+			for (Map.Entry<Integer, Long> segment : log.segments.entrySet()) {
+				//the current segment is still being written to
+				if (segment.getValue().longValue() < cutoff && segment.getKey().intValue() != log.currentSegment)
+					expired.add(segment.getKey());
+			}
+			if (expired.isEmpty())
+				continue;
+			for (Iterator<Map.Entry<String, Location>> it = log.tasks.entrySet().iterator(); it.hasNext();) {
+				Location location = it.next().getValue();
+				if (expired.contains(location.segment)) {
+					log.liveBytes -= location.length;
+					it.remove();
+				}
+			}
+			try {
+				//the index must not refer to the segments once they are gone
+				writeIndex(log);
+			} catch (IOException e) {
+				LogHelper.log(e);
+				continue;
+			}
+			for (Integer segment : expired) {
+				File file = log.getSegmentFile(segment);
+				log.totalBytes -= file.length();
+				file.delete();
+				log.segments.remove(segment);
+			}
+		}
+	}
+
+	/**
+	 * Rewrites the index of the given log so that it only holds the live tasks.
+	 */
+	private void writeIndex(UserLog log) throws IOException {
+		File indexFile = log.getIndexFile();
+		File temp = new File(log.directory, INDEX_FILE + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			for (Map.Entry<String, Location> task : log.tasks.entrySet())
+				writeIndexRecord(out, OP_WRITE, task.getKey(), task.getValue());
+		} finally {
+			out.close();
+		}
+		//rename can't replace an existing file on all platforms
+		if (!temp.renameTo(indexFile) && !(indexFile.delete() && temp.renameTo(indexFile)))
+			throw new IOException("Unable to replace task index: " + indexFile); //$NON-NLS-1$
+		log.indexRecords = log.tasks.size();
+	}
+
+	/**
+	 * Copies the live tasks of the given log to new segments, and deletes the old ones.
+	 * The given log is only changed once the new index has been written, so it is left
+	 * as it was if compacting fails.
+	 */
+	private void compact(UserLog log) throws IOException {
+		UserLog compacted = new UserLog(log.directory);
+		//start a new segment so that no old segment is written to
+		compacted.currentSegment = log.currentSegment + 1;
+		try {
+			for (Map.Entry<String, Location> task : log.tasks.entrySet()) {
+				Location old = task.getValue();
+				Location location = appendSegment(compacted, readSegment(log, old), old.time);
+				compacted.put(task.getKey(), location);
+			}
+			writeIndex(compacted);
+		} catch (IOException e) {
+			//later writes would append to the partly written segments at the wrong offsets
+			for (int segment = log.currentSegment + 1; segment <= compacted.currentSegment; segment++)
+				compacted.getSegmentFile(segment).delete();
+			throw e;
+		}
+		List<Integer> oldSegments = new ArrayList<Integer>(log.segments.keySet());
+		log.tasks.clear();
+		log.tasks.putAll(compacted.tasks);
+		log.segments.clear();
+		log.segments.putAll(compacted.segments);
+		log.currentSegment = compacted.currentSegment;
+		log.currentSize = compacted.currentSize;
+		log.liveBytes = compacted.liveBytes;
+		log.totalBytes = compacted.totalBytes;
+		log.indexRecords = compacted.indexRecords;
+		for (Integer segment : oldSegments)
+			log.getSegmentFile(segment).delete();
+	}
+}
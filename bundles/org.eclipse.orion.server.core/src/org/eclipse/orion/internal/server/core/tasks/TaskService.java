@@ -19,8 +19,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
-import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -28,7 +27,8 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.orion.server.core.LogHelper;
-import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.orion.server.core.PreferenceHelper;
+import org.eclipse.orion.server.core.ServerConstants;
 import org.eclipse.orion.server.core.resources.UniversalUniqueIdentifier;
 import org.eclipse.orion.server.core.tasks.ITaskCanceler;
 import org.eclipse.orion.server.core.tasks.ITaskService;
@@ -43,9 +43,20 @@ import org.eclipse.orion.server.core.tasks.TaskOperationException;
 public class TaskService implements ITaskService {
 
 	TaskStore store;
-	private Map<String, ITaskCanceler> taskCancelers = new HashMap<String, ITaskCanceler>();
+	private TaskIndex index;
+	private Map<String, ITaskCanceler> taskCancelers = new ConcurrentHashMap<String, ITaskCanceler>();
 	private Set<TaskModificationListener> taskListeners = new HashSet<TaskModificationListener>();
 	private Map<String, List<TaskDeletion>> taskDeletions = new HashMap<String, List<TaskDeletion>>();
+	private TasksNotificationJob notificationJob = new TasksNotificationJob();
+
+	/**
+	 * The default minimum time in milliseconds between writes of the same running task.
+	 */
+	private static final long DEFAULT_PERSIST_INTERVAL = 1000;
+	/**
+	 * The value of {@link ServerConstants#CONFIG_TASK_STORE} selecting the {@link TaskLogStore}.
+	 */
+	private static final String TASK_STORE_LOG = "log"; //$NON-NLS-1$
 
 	private class TaskDeletion {
 		public final Date deletionDate;
@@ -58,45 +69,50 @@ public class TaskService implements ITaskService {
 		}
 	}
 
+	/**
+	 * Notifies task listeners of the changes made since it last ran. Each user whose
+	 * tasks changed is notified once, with the time of the latest change, however
+	 * many changes there were.
+	 */
 	private class TasksNotificationJob extends Job {
 
-		private String userId;
-		private Date modificationDate;
+		private Map<String, Date> modifications = new HashMap<String, Date>();
+		private Map<String, Date> deletions = new HashMap<String, Date>();
 
-		public TasksNotificationJob(String userId, Date modificationDate) {
+		public TasksNotificationJob() {
 			super("Notyfing task listeners");
-			this.userId = userId;
-			this.modificationDate = modificationDate;
 		}
 
-		@Override
-		protected IStatus run(IProgressMonitor monitor) {
-			synchronized (taskListeners) {
-				for (TaskModificationListener listener : taskListeners) {
-					listener.tasksModified(userId, modificationDate);
-				}
-			}
-			return Status.OK_STATUS;
+		synchronized void tasksModified(String userId, Date modificationDate) {
+			addChange(modifications, userId, modificationDate);
 		}
 
-	}
-
-	private class DeletedTasksNotificationJob extends Job {
-
-		private String userId;
-		private Date deletionDate;
+		synchronized void tasksDeleted(String userId, Date deletionDate) {
+			addChange(deletions, userId, deletionDate);
+		}
 
-		public DeletedTasksNotificationJob(String userId, Date deletionDate) {
-			super("Notyfing task listeners");
-			this.userId = userId;
-			this.deletionDate = deletionDate;
+		private void addChange(Map<String, Date> changes, String userId, Date date) {
+			Date previous = changes.get(userId);
+			if (previous == null || previous.before(date))
+				changes.put(userId, date);
 		}
 
 		@Override
 		protected IStatus run(IProgressMonitor monitor) {
+			Map<String, Date> modified;
+			Map<String, Date> deleted;
+			synchronized (this) {
+				modified = modifications;
+				deleted = deletions;
+				modifications = new HashMap<String, Date>();
+				deletions = new HashMap<String, Date>();
+			}
 			synchronized (taskListeners) {
 				for (TaskModificationListener listener : taskListeners) {
-					listener.tasksDeleted(userId, deletionDate);
+					for (Map.Entry<String, Date> change : modified.entrySet())
+						listener.tasksModified(change.getKey(), change.getValue());
+					for (Map.Entry<String, Date> change : deleted.entrySet())
+						listener.tasksDeleted(change.getKey(), change.getValue());
 				}
 			}
 			return Status.OK_STATUS;
@@ -104,31 +120,38 @@ public class TaskService implements ITaskService {
 	}
 
 	public TaskService(IPath baseLocation) {
-		store = new TaskStore(baseLocation.toFile());
+		store = createStore(baseLocation);
+		index = new TaskIndex(store, getConfiguredPersistInterval());
 		cleanUpTasks();
 	}
 
+	private static long getConfiguredPersistInterval() {
+		return Math.max(0, PreferenceHelper.getLong(ServerConstants.CONFIG_TASK_PERSIST_INTERVAL, DEFAULT_PERSIST_INTERVAL));
+	}
+
+	/**
+	 * Writes the latest state of all tasks to disk.
+	 */
+	public void flush() {
+		index.persistUnsaved();
+	}
+
+	private static TaskStore createStore(IPath baseLocation) {
+		String type = PreferenceHelper.getString(ServerConstants.CONFIG_TASK_STORE, null);
+		if (TASK_STORE_LOG.equals(type))
+			return new TaskLogStore(baseLocation.append(TASK_STORE_LOG).toFile());
+		return new TaskStore(baseLocation.toFile());
+	}
+
+	/**
+	 * Removes tasks older than a month. Tasks that were still running when the server
+	 * stopped are marked as failed by the task index when they are first read, so this
+	 * does not need to read any tasks.
+	 */
 	private void cleanUpTasks() {
-		List<TaskDescription> allTasks = store.readAllTasks();
 		Calendar monthAgo = Calendar.getInstance();
 		monthAgo.add(Calendar.MONTH, -1);
-		for (TaskDescription taskDescription : allTasks) {
-			TaskInfo task = TaskInfo.fromJSON(store.readTask(taskDescription));
-			if (task == null) {
-				continue;
-			}
-			if (task.isRunning()) {//mark all running tasks as failed due to server restart
-				task.done(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Task could not be completed due to server restart", null));
-				updateTask(task);
-			}
-			if (task.getModified().before(monthAgo.getTime())) { //remove tasks older than a month
-				try {
-					removeTask(task.getUserId(), task.getTaskId());
-				} catch (TaskOperationException e) {
-					LogHelper.log(e); //should never happen. All running tasks where already stopped. 
-				}
-			}
-		}
+		store.removeTasksBefore(monthAgo.getTime());
 	}
 
 	public TaskInfo createTask(String taskName, String userId, boolean isIdempotent) {
@@ -141,9 +164,14 @@ public class TaskService implements ITaskService {
 			throw new TaskDoesNotExistException(id);
 		if (task.isRunning())
 			throw new TaskOperationException("Cannot remove a task that is running. Try to cancel first");
-		if (!store.removeTask(new TaskDescription(userId, id)))
+		if (!index.removeTask(userId, id))
 			throw new TaskOperationException("Task could not be removed");
 		taskCancelers.remove(id);
+		recordDeletion(userId, id, dateRemoved);
+		return task;
+	}
+
+	private synchronized void recordDeletion(String userId, String id, Date dateRemoved) {
 		if (!taskDeletions.containsKey(userId)) {
 			taskDeletions.put(userId, new ArrayList<TaskService.TaskDeletion>());
 		}
@@ -152,7 +180,6 @@ public class TaskService implements ITaskService {
 			i--;
 		}
 		taskDeletions.get(userId).add(i, new TaskDeletion(dateRemoved, id));
-		return task;
 	}
 
 	public void removeTask(String userId, String id) throws TaskOperationException {
@@ -182,21 +209,24 @@ public class TaskService implements ITaskService {
 			taskCancelers.put(task.getTaskId(), taskCanceler);
 			task.setCanBeCanceled(true);
 		}
-		store.writeTask(new TaskDescription(userId, task.getTaskId()), task.toJSON().toString());
+		index.writeTask(task, true);
 		notifyListeners(userId, task.getModified());
 		return task;
 	}
 
 	private void notifyListeners(String userId, Date modificationDate) {
-		new TasksNotificationJob(userId, modificationDate).schedule();
+		notificationJob.tasksModified(userId, modificationDate);
+		//changes made before the job runs are sent together
+		notificationJob.schedule();
 	}
 
 	private void notifyDeletionListeners(String userId, Date deletionDate) {
-		new DeletedTasksNotificationJob(userId, deletionDate).schedule();
+		notificationJob.tasksDeleted(userId, deletionDate);
+		notificationJob.schedule();
 	}
 
 	public TaskInfo getTask(String userId, String id) {
-		String taskString = store.readTask(new TaskDescription(userId, id));
+		String taskString = index.readTask(userId, id);
 		if (taskString == null)
 			return null;
 		TaskInfo info = TaskInfo.fromJSON(taskString);
@@ -207,7 +237,8 @@ public class TaskService implements ITaskService {
 
 	public void updateTask(TaskInfo task) {
 		task.setModified(new Date());
-		store.writeTask(new TaskDescription(task.getUserId(), task.getTaskId()), task.toJSON().toString());
+		//progress of running tasks can be written later, but the outcome can't
+		index.writeTask(task, !task.isRunning());
 		notifyListeners(task.getUserId(), task.getModified());
 	}
 
@@ -225,17 +256,9 @@ public class TaskService implements ITaskService {
 
 	public List<TaskInfo> getTasks(String userId, Date modifiedSince, boolean running) {
 		List<TaskInfo> tasks = new ArrayList<TaskInfo>();
-		for (String taskString : store.readAllTasks(userId)) {
+		//the index only returns matching tasks, so only those are parsed
+		for (String taskString : index.readTasks(userId, modifiedSince, running)) {
 			TaskInfo info = TaskInfo.fromJSON(taskString);
-			if (modifiedSince != null) {
-				if (info.getModified().getTime() < modifiedSince.getTime()) {
-					continue;
-				}
-			}
-			if (running && !info.isRunning()) {
-				continue;
-			}
-
 			ITaskCanceler taskCanceler = taskCancelers.get(info.getTaskId());
 			if (taskCanceler != null)
 				info.setCanBeCanceled(true);
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import org.eclipse.orion.internal.server.core.IOUtilities;
@@ -28,20 +29,24 @@ import org.eclipse.orion.server.core.resources.Base64;
  * will need to be reimplemented by different server implementations if they do
  * not support bare file access. This class intentionally does not understand
  * representations of tasks, to make it more easily pluggable in the future.
+ * <p>
+ * The store does not lock. Callers must not access the tasks of the same user
+ * from several threads at once.
+ * </p>
  */
 public class TaskStore {
-	private final File root;
+	protected final File root;
 
 	public TaskStore(File root) {
 		this.root = root;
 		this.root.mkdirs();
 	}
 
-	private String getUserDirectory(String userId) {
+	protected String getUserDirectory(String userId) {
 		return new String(Base64.encode(userId.getBytes()));
 	}
 
-	private String getUserName(String userDirectoryName) {
+	protected String getUserName(String userDirectoryName) {
 		try {
 			return new String(Base64.decode(userDirectoryName.getBytes()));
 		} catch (Exception e) {
@@ -56,7 +61,7 @@ public class TaskStore {
 	 * @param userId id of a user that is an owner of the task
 	 * @param id id of the task
 	 */
-	public synchronized String readTask(TaskDescription td) {
+	public String readTask(TaskDescription td) {
 		File userDirectory = new File(root, getUserDirectory(td.getUserId()));
 		if (!userDirectory.exists())
 			return null;
@@ -91,7 +96,7 @@ public class TaskStore {
 	 * @param id id of the task
 	 * @param representation string representation or the task
 	 */
-	public synchronized void writeTask(TaskDescription td, String representation) {
+	public void writeTask(TaskDescription td, String representation) {
 		try {
 			File userDirectory = new File(root, getUserDirectory(td.getUserId()));
 			if (!userDirectory.exists()) {
@@ -114,7 +119,7 @@ public class TaskStore {
 	 * @param id id of the task
 	 * @return <code>true</code> if task was removed, <code>false</code> otherwise. 
 	 */
-	public synchronized boolean removeTask(TaskDescription td) {
+	public boolean removeTask(TaskDescription td) {
 		File userDirectory = new File(root, getUserDirectory(td.getUserId()));
 		if (!userDirectory.exists())
 			return false;
@@ -137,15 +142,14 @@ public class TaskStore {
 				IOUtilities.pipe(reader, writer, true, false);
 				result.add(writer.toString());
 			} catch (IOException e) {
+				//skip the unreadable task rather than failing to read all tasks of the user
 				LogHelper.log(e);
-				return null;
 			} finally {
 				if (reader != null)
 					try {
 						reader.close();
 					} catch (IOException e) {
 						LogHelper.log(e);
-						return null;
 					}
 			}
 		}
@@ -172,7 +176,7 @@ public class TaskStore {
 	 * @param userId id of a user that is an owner of tasks
 	 * @return a list of tasks tracked for this user
 	 */
-	public synchronized List<String> readAllTasks(String userId) {
+	public List<String> readAllTasks(String userId) {
 		File userDirectory = new File(root, getUserDirectory(userId));
 		if (!userDirectory.exists())
 			return new ArrayList<String>();
@@ -180,7 +184,7 @@ public class TaskStore {
 		return internalReadAllTasks(userDirectory);
 	}
 
-	public synchronized List<TaskDescription> readAllTasks() {
+	public List<TaskDescription> readAllTasks() {
 		List<TaskDescription> result = new ArrayList<TaskDescription>();
 		for (File userDirectory : root.listFiles()) {
 			if (userDirectory.isDirectory()) {
@@ -189,4 +193,21 @@ public class TaskStore {
 		}
 		return result;
 	}
+
+	/**
+	 * Removes all tasks that were last written before the given date. This doesn't consider
+	 * task status, it is caller's responsibility to make sure no such task is still running.
+	 * 
+	 * @param date the oldest write time of the tasks to keep
+	 */
+	public void removeTasksBefore(Date date) {
+		for (File userDirectory : root.listFiles()) {
+			if (!userDirectory.isDirectory() || getUserName(userDirectory.getName()) == null)
+				continue;
+			for (File taskFile : userDirectory.listFiles()) {
+				if (taskFile.isFile() && taskFile.lastModified() < date.getTime())
+					taskFile.delete();
+			}
+		}
+	}
 }
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.orion.server.core;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.orion.internal.server.core.Activator;
 
@@ -39,4 +41,41 @@ public class PreferenceHelper {
 		return service.getString(ServerConstants.PREFERENCE_SCOPE, key, defaultValue, null);
 	}
 
+	/**
+	 * Returns the value of the integer preference corresponding to the given key,
+	 * or the provided default value if not defined. A value that is not an integer
+	 * is logged and the default value is returned.
+	 */
+	public static int getInt(String key, int defaultValue) {
+		String value = getString(key, null);
+		if (value == null)
+			return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			logInvalidValue(key, value);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns the value of the long preference corresponding to the given key,
+	 * or the provided default value if not defined. A value that is not an integer
+	 * is logged and the default value is returned.
+	 */
+	public static long getLong(String key, long defaultValue) {
+		String value = getString(key, null);
+		if (value == null)
+			return defaultValue;
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			logInvalidValue(key, value);
+			return defaultValue;
+		}
+	}
+
+	private static void logInvalidValue(String key, String value) {
+		LogHelper.log(new Status(IStatus.WARNING, ServerConstants.PI_SERVER_CORE, "Invalid value for " + key + ": " + value)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
 }
@@ -86,6 +86,78 @@ public class ServerConstants {
 	 */
 	public static final String CONFIG_FILE_LAYOUT = "orion.file.layout"; //$NON-NLS-1$
 
+	/**
+	 * The name of a configuration property specifying how file ETags are computed. The value
+	 * "metadata" derives them from the length and modification time of a file, without reading
+	 * its contents. By default the ETag is a hash of the file contents.
+	 */
+	public static final String CONFIG_FILE_ETAG = "orion.file.etag"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the maximum number of file content
+	 * hashes kept in memory for computing ETags. The default is 10000.
+	 */
+	public static final String CONFIG_FILE_ETAG_CACHE_SIZE = "orion.file.etagCacheSize"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the number of entries a directory listing
+	 * with depth may hold. Subdirectories that would exceed it are not expanded, but the children
+	 * of the listed directory itself are always returned. The default is 10000.
+	 */
+	public static final String CONFIG_FILE_LISTING_MAX_ENTRIES = "orion.file.listing.maxEntries"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the delay in milliseconds before
+	 * changed preferences are written to disk. Changes made within the delay are written
+	 * together. A value of zero writes changes immediately. The default is one second.
+	 */
+	public static final String CONFIG_PREFERENCE_FLUSH_DELAY = "orion.core.preferences.flushDelay"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the minimum time in milliseconds
+	 * between writes of the progress of a running task to disk. Progress reported in
+	 * between is kept in memory. The default is one second.
+	 */
+	public static final String CONFIG_TASK_PERSIST_INTERVAL = "orion.core.tasks.persistInterval"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying how tasks are stored. The value
+	 * "log" stores the tasks of each user in an append-only log. By default each task
+	 * is stored in a file of its own.
+	 */
+	public static final String CONFIG_TASK_STORE = "orion.core.tasks.store"; //$NON-NLS-1$
+
+	/**
+	 * The prefix of configuration properties limiting the jobs of a job family. The prefix is
+	 * followed by the family name and one of <code>.maxRunning</code>, <code>.maxQueued</code>
+	 * or <code>.maxPerUser</code>. For example, <code>orion.jobs.git.remote.maxRunning</code>.
+	 */
+	public static final String CONFIG_JOBS_PREFIX = "orion.jobs."; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the maximum number of git
+	 * repositories kept open between requests. The default is 64.
+	 */
+	public static final String CONFIG_GIT_REPOSITORY_POOL_SIZE = "orion.git.repositoryPool.size"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the time in milliseconds after
+	 * which a git repository that has not been used is closed. The default is five minutes.
+	 */
+	public static final String CONFIG_GIT_REPOSITORY_IDLE_TIMEOUT = "orion.git.repositoryPool.idleTimeout"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the maximum number of git pack
+	 * files held open at once across all repositories. The default is 128.
+	 */
+	public static final String CONFIG_GIT_MAX_OPEN_PACK_FILES = "orion.git.maxOpenPackFiles"; //$NON-NLS-1$
+
+	/**
+	 * The name of a configuration property specifying the number of threads used by
+	 * each stage of the search indexer. The default is the number of available processors.
+	 */
+	public static final String CONFIG_SEARCH_INDEXER_THREADS = "orion.search.indexer.threads"; //$NON-NLS-1$
+
 	/**
 	 * The name of a configuration property specifying the virtual hosts to use for
 	 * test sites launched by this server. The property value is a comma-separated 
@@ -10,12 +10,6 @@
  *******************************************************************************/
 package org.eclipse.orion.server.core.resources;
 
-import java.lang.reflect.Method;
-
-import org.eclipse.core.runtime.Assert;
-import org.eclipse.orion.server.core.resources.annotations.PropertyDescription;
-import org.eclipse.orion.server.core.resources.annotations.ResourceDescription;
-import org.eclipse.osgi.util.NLS;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -24,21 +18,18 @@ public class JSONSerializer implements Serializer<JSONObject> {
 	public JSONObject serialize(Object resource, ResourceShape resourceShape) {
 		JSONObject result = new JSONObject();
 		try {
-			for (Property property : resourceShape.getProperties()) {
-				Method getter = ReflectionHelper.findGetterForPropertyName(resource.getClass(), property.getName());
-				Object value = ReflectionHelper.callGetter(resource, getter);
-				PropertyDescription propertyDescriptionAnnotation = ReflectionHelper.getAnnotation(getter, PropertyDescription.class);
-				if (propertyDescriptionAnnotation.expandable()) {
-					ResourceShape nestedResourceShape = property.getResourceShape();
-					Assert.isNotNull(nestedResourceShape, NLS.bind("Could not find resource shape definition for {0}", property.getName()));
-					result.put(property.getName(), serialize(value, nestedResourceShape));
+			SerializationPlan plan = resourceShape.getPlan(resource.getClass());
+			Property[] properties = plan.properties;
+			for (int i = 0; i < properties.length; i++) {
+				Object value = plan.getValue(resource, i);
+				if (plan.isExpandable(i)) {
+					result.put(properties[i].getName(), serialize(value, properties[i].getResourceShape()));
 				} else {
-					result.put(property.getName(), value);
+					result.put(properties[i].getName(), value);
 				}
 			}
-			final ResourceDescription resourceShapeDescription = resource.getClass().getAnnotation(ResourceDescription.class);
 			// TODO: org.eclipse.orion.internal.server.servlets.ProtocolConstants.KEY_TYPE
-			result.put("Type", resourceShapeDescription.type());
+			result.put("Type", plan.type);
 		} catch (JSONException e) {
 			// should never happen
 		}
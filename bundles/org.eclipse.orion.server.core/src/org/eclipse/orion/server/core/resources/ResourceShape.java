@@ -13,6 +13,7 @@ package org.eclipse.orion.server.core.resources;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class ResourceShape {
 
@@ -21,6 +22,11 @@ public final class ResourceShape {
 
 	private Property[] properties = new Property[0];
 
+	/**
+	 * The plans for serializing resources of each class with this shape.
+	 */
+	private final ConcurrentHashMap<Class<?>, SerializationPlan> plans = new ConcurrentHashMap<Class<?>, SerializationPlan>();
+
 	public Property[] getProperties() {
 		return properties;
 	}
@@ -34,4 +40,18 @@ public final class ResourceShape {
 		propertiesSet.add(property);
 		this.properties = propertiesSet.toArray(new Property[propertiesSet.size()]);
 	}
+
+	/**
+	 * Returns the plan for serializing resources of the given class with this shape.
+	 */
+	SerializationPlan getPlan(Class<?> resourceClass) {
+		Property[] current = getProperties();
+		SerializationPlan plan = plans.get(resourceClass);
+		//the properties are replaced rather than modified, so a plan for other properties is out of date
+		if (plan == null || plan.properties != current) {
+			plan = new SerializationPlan(resourceClass, current);
+			plans.put(resourceClass, plan);
+		}
+		return plan;
+	}
 }
\ No newline at end of file
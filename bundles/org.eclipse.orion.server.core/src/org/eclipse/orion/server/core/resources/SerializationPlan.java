@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.core.resources;
+
+import java.lang.reflect.Method;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.orion.server.core.LogHelper;
+import org.eclipse.orion.server.core.ServerConstants;
+import org.eclipse.orion.server.core.resources.annotations.PropertyDescription;
+import org.eclipse.orion.server.core.resources.annotations.ResourceDescription;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * The getters and annotations needed to serialize the resources of one class with one
+ * {@link ResourceShape}. They are looked up once when the plan is created, rather than
+ * searching the class hierarchy for every property of every serialized resource.
+ */
+class SerializationPlan {
+	/**
+	 * The properties of the shape when the plan was created.
+	 */
+	final Property[] properties;
+	private final Method[] getters;
+	private final boolean[] expandable;
+	final String type;
+
+	SerializationPlan(Class<?> resourceClass, Property[] properties) {
+		this.properties = properties;
+		getters = new Method[properties.length];
+		expandable = new boolean[properties.length];
+		for (int i = 0; i < properties.length; i++) {
+			Method getter = ReflectionHelper.findGetterForPropertyName(resourceClass, properties[i].getName());
+			getter.setAccessible(true);
+			getters[i] = getter;
+			expandable[i] = ReflectionHelper.getAnnotation(getter, PropertyDescription.class).expandable();
+			if (expandable[i])
+				Assert.isNotNull(properties[i].getResourceShape(), NLS.bind("Could not find resource shape definition for {0}", properties[i].getName()));
+		}
+		type = resourceClass.getAnnotation(ResourceDescription.class).type();
+	}
+
+	/**
+	 * Returns the value of the property at the given index for the given resource.
+	 */
+	Object getValue(Object resource, int index) {
+		try {
+			return getters[index].invoke(resource);
+		} catch (Exception e) {
+			LogHelper.log(new Status(IStatus.ERROR, ServerConstants.PI_SERVER_CORE, e.getMessage(), e));
+		}
+		return null;
+	}
+
+	/**
+	 * Returns whether the property at the given index is serialized with its own resource shape.
+	 */
+	boolean isExpandable(int index) {
+		return expandable[index];
+	}
+}
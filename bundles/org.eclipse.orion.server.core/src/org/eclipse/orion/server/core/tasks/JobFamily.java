@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.core.tasks;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.orion.server.core.PreferenceHelper;
+import org.eclipse.orion.server.core.ServerConstants;
+import org.eclipse.orion.server.core.ServerStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits how many jobs of one kind run at once, so that a burst of one kind of job,
+ * such as git clones, can't use up the threads of the job manager. Jobs beyond the
+ * limit are queued, and a queued job is started when a running one finishes. Jobs
+ * are refused when the queue is full, or when the user scheduling them already has
+ * too many jobs of the family running or queued. Only jobs that can run for a long
+ * time, such as those talking to remote servers, belong to a family; other jobs are
+ * scheduled directly.
+ * <p>
+ * Each family is configured with the properties <code>orion.jobs.&lt;family&gt;.maxRunning</code>,
+ * <code>orion.jobs.&lt;family&gt;.maxQueued</code> and <code>orion.jobs.&lt;family&gt;.maxPerUser</code>.
+ * <p>
+ * Refused jobs are logged with the state of their family to the <code>org.eclipse.orion.server.jobs</code>
+ * logger, and the state of a family is logged at debug level whenever one of its jobs finishes.
+ * </p>
+ */
+public class JobFamily {
+	private static final String KEY_MAX_RUNNING = ".maxRunning"; //$NON-NLS-1$
+	private static final String KEY_MAX_QUEUED = ".maxQueued"; //$NON-NLS-1$
+	private static final String KEY_MAX_PER_USER = ".maxPerUser"; //$NON-NLS-1$
+	/**
+	 * HTTP status code for too many requests, which is not defined by the servlet API.
+	 */
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+	private static final int SC_SERVICE_UNAVAILABLE = 503;
+	/**
+	 * The delay a queued job is scheduled with. Queued jobs are sleeping in the job
+	 * manager until they are woken up, so that they look like any other scheduled job
+	 * to code waiting for them.
+	 */
+	private static final long QUEUED_DELAY = Integer.MAX_VALUE;
+
+	private static final Map<String, JobFamily> families = new HashMap<String, JobFamily>();
+
+	private static class QueuedJob {
+		final Job job;
+		final long queued = System.currentTimeMillis();
+
+		QueuedJob(Job job) {
+			this.job = job;
+		}
+	}
+
+	private final String name;
+	private final int maxRunning;
+	private final int maxQueued;
+	private final int maxPerUser;
+
+	private final LinkedList<QueuedJob> queue = new LinkedList<QueuedJob>();
+	private final Map<String, Integer> userJobs = new HashMap<String, Integer>();
+	private int running = 0;
+	private long started = 0;
+	private long totalWaitTime = 0;
+	private long rejected = 0;
+
+	/**
+	 * Returns the family with the given name.
+	 */
+	public static synchronized JobFamily get(String name) {
+		JobFamily family = families.get(name);
+		if (family == null) {
+			family = new JobFamily(name);
+			families.put(name, family);
+		}
+		return family;
+	}
+
+	private JobFamily(String name) {
+		this.name = name;
+		int processors = Runtime.getRuntime().availableProcessors();
+		this.maxRunning = getConfiguredLimit(KEY_MAX_RUNNING, 2 * processors);
+		this.maxQueued = getConfiguredLimit(KEY_MAX_QUEUED, 100);
+		this.maxPerUser = getConfiguredLimit(KEY_MAX_PER_USER, 10);
+	}
+
+	private int getConfiguredLimit(String suffix, int defaultValue) {
+		String key = ServerConstants.CONFIG_JOBS_PREFIX + name + suffix;
+		return Math.max(1, PreferenceHelper.getInt(key, defaultValue));
+	}
+
+	/**
+	 * Schedules the given job, or queues it if the family already has as many running
+	 * jobs as it may have.
+	 * @param job the job to schedule
+	 * @param userId the user the job runs for
+	 * @return an OK status if the job has been scheduled or queued, or an error status
+	 * with HTTP code 429 if the user has too many jobs of this family, or 503 if the
+	 * queue is full
+	 */
+	public synchronized IStatus schedule(final Job job, final String userId) {
+		Integer userCount = userJobs.get(userId);
+		if (userCount != null && userCount.intValue() >= maxPerUser) {
+			rejected++;
+			logStatistics("Refused job of user " + userId + " with too many jobs"); //$NON-NLS-1$ //$NON-NLS-2$
+			return new ServerStatus(IStatus.ERROR, SC_TOO_MANY_REQUESTS, "Too many operations are in progress. Try again when some have finished.", null);
+		}
+		if (running >= maxRunning && queue.size() >= maxQueued) {
+			rejected++;
+			logStatistics("Refused job with full queue"); //$NON-NLS-1$
+			return new ServerStatus(IStatus.ERROR, SC_SERVICE_UNAVAILABLE, "The server is busy. Try again later.", null);
+		}
+		userJobs.put(userId, userCount == null ? 1 : userCount.intValue() + 1);
+		job.addJobChangeListener(new JobChangeAdapter() {
+			public void done(IJobChangeEvent event) {
+				job.removeJobChangeListener(this);
+				finished(job, userId);
+			}
+		});
+		if (running < maxRunning) {
+			running++;
+			started++;
+			job.schedule();
+		} else {
+			queue.add(new QueuedJob(job));
+			job.schedule(QUEUED_DELAY);
+		}
+		return Status.OK_STATUS;
+	}
+
+	private synchronized void finished(Job job, String userId) {
+		Integer userCount = userJobs.get(userId);
+		if (userCount != null) {
+			if (userCount.intValue() <= 1)
+				userJobs.remove(userId);
+			else
+				userJobs.put(userId, userCount.intValue() - 1);
+		}
+		//a queued job that is canceled never ran
+		for (QueuedJob queued : queue) {
+			if (queued.job == job) {
+				queue.remove(queued);
+				return;
+			}
+		}
+		running--;
+		while (running < maxRunning && !queue.isEmpty()) {
+			QueuedJob next = queue.removeFirst();
+			running++;
+			started++;
+			totalWaitTime += System.currentTimeMillis() - next.queued;
+			next.job.wakeUp();
+		}
+		Logger logger = getLogger();
+		if (logger.isDebugEnabled())
+			logger.debug(getStatistics("Job finished")); //$NON-NLS-1$
+	}
+
+	private static Logger getLogger() {
+		return LoggerFactory.getLogger("org.eclipse.orion.server.jobs"); //$NON-NLS-1$
+	}
+
+	private void logStatistics(String event) {
+		getLogger().info(getStatistics(event));
+	}
+
+	private String getStatistics(String event) {
+		return event + " in family " + name + ": running=" + running + ", queued=" + queue.size() + ", averageWait=" + getAverageWaitTime() + "ms, refused=" + rejected; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	}
+
+	/**
+	 * Returns the name of this family.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of jobs of this family that are running.
+	 */
+	public synchronized int getRunningCount() {
+		return running;
+	}
+
+	/**
+	 * Returns the number of jobs of this family waiting to be started.
+	 */
+	public synchronized int getQueueLength() {
+		return queue.size();
+	}
+
+	/**
+	 * Returns the average time in milliseconds that started jobs of this family have
+	 * waited in the queue, including jobs that didn't wait.
+	 */
+	public synchronized long getAverageWaitTime() {
+		return started == 0 ? 0 : totalWaitTime / started;
+	}
+
+	/**
+	 * Returns the number of jobs of this family that have been refused.
+	 */
+	public synchronized long getRejectedCount() {
+		return rejected;
+	}
+}
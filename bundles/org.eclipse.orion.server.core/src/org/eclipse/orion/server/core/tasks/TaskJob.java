@@ -78,6 +78,30 @@ public abstract class TaskJob extends Job implements ITaskCanceler {
 		return realResult;
 	}
 
+	/**
+	 * Returns the family that limits how many jobs like this one run at once, or
+	 * <code>null</code> if the job is not limited. Subclasses that can run for a long
+	 * time should override this to return a family of their own.
+	 */
+	public JobFamily getFamily() {
+		return null;
+	}
+
+	/**
+	 * Schedules this job through its family, or directly if it has no family.
+	 * @return an OK status if the job has been scheduled, or an error status if the
+	 * family has refused it
+	 * @see JobFamily#schedule(Job, String)
+	 */
+	public IStatus submit() {
+		JobFamily family = getFamily();
+		if (family == null) {
+			schedule();
+			return Status.OK_STATUS;
+		}
+		return family.schedule(this, userRunningTask);
+	}
+
 	ITaskService getTaskService() {
 		if (taskService == null) {
 			BundleContext context = Activator.getDefault().getContext();
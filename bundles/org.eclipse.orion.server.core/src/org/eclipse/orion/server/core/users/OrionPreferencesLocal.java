@@ -10,29 +10,60 @@
  *******************************************************************************/
 package org.eclipse.orion.server.core.users;
 
-import java.io.IOException;
-import java.net.URL;
+import java.io.*;
+import java.net.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.internal.preferences.EclipsePreferences;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.orion.internal.server.core.Activator;
+import org.eclipse.orion.internal.server.core.IOUtilities;
 import org.eclipse.orion.server.core.ServerConstants;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.osgi.framework.*;
+import org.osgi.service.prefs.BackingStoreException;
 
 /**
  * A local file system implementation of storage for the eclipse web preference
  * scope.
+ * <p>
+ * Most qualifiers are stored in a single file. The users, workspaces and projects
+ * qualifiers instead store each entity below them in a file of its own, so saving an
+ * entity only writes that entity, however many entities there are. Entity files are
+ * written to a temporary file and renamed over the old one. Qualifiers still stored
+ * in a single file from an earlier version are split into entity files on first use.
+ * </p>
+ * <p>
+ * Flushing a node does not write it immediately. Changed files are written in the
+ * background after a short delay, so that many changes to the same file are written
+ * together. Callers that need the changes on disk before continuing use {@link #flushNow()}.
+ * </p>
  */
 public class OrionPreferencesLocal extends EclipsePreferences {
 
+	/**
+	 * The qualifiers whose entities are each stored in their own file.
+	 */
+	private static final List<String> SHARDED_QUALIFIERS = Arrays.asList("Users", "Workspaces", "Projects"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	private static final String PREFS_EXTENSION = ".prefs"; //$NON-NLS-1$
+	/**
+	 * The suffix appended to a single file qualifier once it has been split into entity files.
+	 */
+	private static final String MIGRATED_EXTENSION = ".migrated"; //$NON-NLS-1$
+
 	// cached values
 	private int segmentCount;
 	private String qualifier;
 	private IPath location;
 	private IEclipsePreferences loadLevel;
+	private boolean sharded;
+	/**
+	 * The entities of a sharded qualifier that have been loaded, by name. Only
+	 * these can have changes that need to be written.
+	 */
+	private final Map<String, OrionPreferencesLocal> loadedEntities = new ConcurrentHashMap<String, OrionPreferencesLocal>();
 	// cache which nodes have been loaded from disk
 	private static Set<String> loadedNodes = Collections.synchronizedSet(new HashSet<String>());
 	private static boolean initialized = false;
@@ -97,8 +128,198 @@ public class OrionPreferencesLocal extends EclipsePreferences {
 		// cache the location
 		if (qualifier == null)
 			return;
-		if (baseLocation != null)
-			location = computeLocation(baseLocation, qualifier);
+		sharded = SHARDED_QUALIFIERS.contains(qualifier);
+		if (baseLocation == null)
+			return;
+		location = computeLocation(baseLocation, qualifier);
+		if (!sharded)
+			return;
+		if (segmentCount == 2) {
+			//entities are loaded on demand, so only their names are known up front
+			for (String entity : listEntities())
+				addChild(entity, null);
+		} else if (segmentCount == 3) {
+			location = getEntityLocation(name);
+		}
+	}
+
+	/**
+	 * Returns the directory holding the entity files of this sharded qualifier.
+	 */
+	private File getEntityDirectory() {
+		IPath qualifierLocation = computeLocation(baseLocation, qualifier);
+		return qualifierLocation.removeFileExtension().toFile();
+	}
+
+	/**
+	 * Returns the location of the file of the entity with the given name.
+	 */
+	private IPath getEntityLocation(String entityName) {
+		IPath qualifierLocation = computeLocation(baseLocation, qualifier);
+		try {
+			return qualifierLocation.removeFileExtension().append(URLEncoder.encode(entityName, "UTF-8") + PREFS_EXTENSION); //$NON-NLS-1$
+		} catch (UnsupportedEncodingException e) {
+			//UTF-8 is always supported
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Returns the names of all entities stored for this sharded qualifier.
+	 */
+	private List<String> listEntities() {
+		List<String> result = new ArrayList<String>();
+		String[] files = getEntityDirectory().list();
+		if (files == null)
+			return result;
+		for (String file : files) {
+			if (!file.endsWith(PREFS_EXTENSION))
+				continue;
+			try {
+				result.add(URLDecoder.decode(file.substring(0, file.length() - PREFS_EXTENSION.length()), "UTF-8")); //$NON-NLS-1$
+			} catch (UnsupportedEncodingException e) {
+				//UTF-8 is always supported
+				throw new RuntimeException(e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether this node is the root of a qualifier whose entities are stored
+	 * in separate files.
+	 */
+	private boolean isShardedQualifier() {
+		return sharded && segmentCount == 2;
+	}
+
+	/**
+	 * Returns whether this node is an entity stored in a file of its own.
+	 */
+	private boolean isEntity() {
+		return sharded && segmentCount == 3;
+	}
+
+	@Override
+	public void flush() throws BackingStoreException {
+		PreferenceFlushJob job = PreferenceFlushJob.getInstance();
+		if (job == null) {
+			flushNow();
+			return;
+		}
+		for (OrionPreferencesLocal node : getLoadLevels())
+			job.schedule(node);
+	}
+
+	/**
+	 * Writes any changes to this node and its descendants before returning.
+	 */
+	public void flushNow() throws BackingStoreException {
+		PreferenceFlushJob job = PreferenceFlushJob.getInstance();
+		for (OrionPreferencesLocal node : getLoadLevels()) {
+			if (job != null)
+				job.cancel(node);
+			node.write();
+		}
+	}
+
+	/**
+	 * Writes all changes that are waiting to be written in the background.
+	 */
+	public static void flushAll() {
+		PreferenceFlushJob.flushAll();
+	}
+
+	/**
+	 * Writes this load level node if it has changed.
+	 */
+	void write() throws BackingStoreException {
+		super.flush();
+	}
+
+	/**
+	 * Returns the nodes that are written to disk to flush this node and its descendants.
+	 */
+	private List<OrionPreferencesLocal> getLoadLevels() throws BackingStoreException {
+		List<OrionPreferencesLocal> result = new ArrayList<OrionPreferencesLocal>();
+		if (isShardedQualifier()) {
+			//only entities that have been loaded can have changes to write
+			result.addAll(loadedEntities.values());
+			return result;
+		}
+		OrionPreferencesLocal level = (OrionPreferencesLocal) getLoadLevel();
+		if (level != null) {
+			result.add(level);
+			return result;
+		}
+		for (String child : childrenNames())
+			result.addAll(((OrionPreferencesLocal) node(child)).getLoadLevels());
+		return result;
+	}
+
+	@Override
+	protected void load() throws BackingStoreException {
+		if (!isShardedQualifier()) {
+			super.load();
+			return;
+		}
+		//split the single file written by earlier versions into entity files
+		File legacy = location == null ? null : location.toFile();
+		if (legacy == null || !legacy.exists())
+			return;
+		load(location);
+		for (OrionPreferencesLocal entity : loadedEntities.values())
+			entity.save();
+		if (!legacy.renameTo(new File(legacy.getPath() + MIGRATED_EXTENSION)))
+			throw new BackingStoreException("Unable to rename migrated preference file: " + legacy); //$NON-NLS-1$
+	}
+
+	@Override
+	public void removeNode() throws BackingStoreException {
+		boolean entity = isEntity();
+		String path = absolutePath();
+		super.removeNode();
+		if (!entity)
+			return;
+		PreferenceFlushJob job = PreferenceFlushJob.getInstance();
+		if (job != null)
+			job.cancel(this);
+		((OrionPreferencesLocal) parent).loadedEntities.remove(name);
+		loadedNodes.remove(path);
+		if (location != null) {
+			File file = location.toFile();
+			if (file.exists() && !file.delete())
+				throw new BackingStoreException("Unable to delete preference file: " + file); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected void save() throws BackingStoreException {
+		if (location == null)
+			return;
+		File file = location.toFile();
+		Properties properties = convertToProperties(new Properties(), ""); //$NON-NLS-1$
+		if (properties.isEmpty()) {
+			if (file.exists() && !file.delete())
+				throw new BackingStoreException("Unable to delete preference file: " + file); //$NON-NLS-1$
+			return;
+		}
+		//write a complete new file and then replace the old one, so a failed write never leaves a partial file
+		file.getParentFile().mkdirs();
+		File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(temp);
+			properties.store(out, null);
+			out.getFD().sync();
+		} catch (IOException e) {
+			throw new BackingStoreException("Unable to write preference file: " + file, e); //$NON-NLS-1$
+		} finally {
+			IOUtilities.safeClose(out);
+		}
+		//rename can't replace an existing file on all platforms
+		if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+			throw new BackingStoreException("Unable to replace preference file: " + file); //$NON-NLS-1$
 	}
 
 	protected IPath getLocation() {
@@ -106,11 +327,12 @@ public class OrionPreferencesLocal extends EclipsePreferences {
 	}
 
 	protected boolean isAlreadyLoaded(IEclipsePreferences node) {
-		return loadedNodes.contains(node.name());
+		//entity names are only unique within their qualifier
+		return loadedNodes.contains(node.absolutePath());
 	}
 
 	protected void loaded() {
-		loadedNodes.add(name());
+		loadedNodes.add(absolutePath());
 	}
 
 	/*
@@ -123,8 +345,10 @@ public class OrionPreferencesLocal extends EclipsePreferences {
 			// Make it relative to this node rather than navigating to it from the root.
 			// Walk backwards up the tree starting at this node.
 			// This is important to avoid a chicken/egg thing on startup.
+			//entities of sharded qualifiers are loaded and saved on their own
+			int loadSegments = sharded && segmentCount > 2 ? 3 : 2;
 			IEclipsePreferences node = this;
-			for (int i = 2; i < segmentCount; i++)
+			for (int i = loadSegments; i < segmentCount; i++)
 				node = (EclipsePreferences) node.parent();
 			loadLevel = node;
 		}
@@ -148,7 +372,10 @@ public class OrionPreferencesLocal extends EclipsePreferences {
 	}
 
 	protected EclipsePreferences internalCreate(EclipsePreferences nodeParent, String nodeName, Object context) {
-		return new OrionPreferencesLocal(nodeParent, nodeName);
+		OrionPreferencesLocal result = new OrionPreferencesLocal(nodeParent, nodeName);
+		if (result.isEntity())
+			((OrionPreferencesLocal) nodeParent).loadedEntities.put(nodeName, result);
+		return result;
 	}
 
 }
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.core.users;
+
+import java.util.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.orion.server.core.*;
+import org.osgi.service.prefs.BackingStoreException;
+
+/**
+ * Writes changed preference files in the background. Flushes requested within the
+ * configured delay of each other are written together, so a file changed many times
+ * in quick succession is only written once.
+ */
+class PreferenceFlushJob extends Job {
+	/**
+	 * The default delay in milliseconds between the first flush request and writing the files.
+	 */
+	private static final long DEFAULT_DELAY = 1000;
+
+	private static PreferenceFlushJob instance;
+
+	private final long delay;
+	/**
+	 * The load level nodes waiting to be written.
+	 */
+	private final Set<OrionPreferencesLocal> pending = new LinkedHashSet<OrionPreferencesLocal>();
+
+	private PreferenceFlushJob(long delay) {
+		super("Saving preferences"); //$NON-NLS-1$
+		this.delay = delay;
+		setSystem(true);
+	}
+
+	/**
+	 * Returns the flush job, or <code>null</code> if preferences should be written immediately.
+	 */
+	static synchronized PreferenceFlushJob getInstance() {
+		if (instance == null) {
+			long configured = PreferenceHelper.getLong(ServerConstants.CONFIG_PREFERENCE_FLUSH_DELAY, DEFAULT_DELAY);
+			if (configured <= 0)
+				return null;
+			instance = new PreferenceFlushJob(configured);
+		}
+		return instance;
+	}
+
+	/**
+	 * Writes all pending changes, if the flush job has been created.
+	 */
+	static void flushAll() {
+		PreferenceFlushJob job;
+		synchronized (PreferenceFlushJob.class) {
+			job = instance;
+		}
+		if (job != null)
+			job.writePending();
+	}
+
+	/**
+	 * Requests that the given load level node is written.
+	 */
+	void schedule(OrionPreferencesLocal node) {
+		synchronized (pending) {
+			if (!pending.add(node) || pending.size() > 1)
+				return;
+		}
+		//the first request of a batch starts the delay, later requests join it
+		schedule(delay);
+	}
+
+	/**
+	 * Forgets any pending request to write the given node, because it is being
+	 * written or removed by the caller.
+	 */
+	void cancel(OrionPreferencesLocal node) {
+		synchronized (pending) {
+			pending.remove(node);
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		writePending();
+		return Status.OK_STATUS;
+	}
+
+	private void writePending() {
+		List<OrionPreferencesLocal> toWrite;
+		synchronized (pending) {
+			toWrite = new ArrayList<OrionPreferencesLocal>(pending);
+			pending.clear();
+		}
+		for (OrionPreferencesLocal node : toWrite) {
+			try {
+				node.write();
+			} catch (BackingStoreException e) {
+				LogHelper.log(new Status(IStatus.ERROR, ServerConstants.PI_SERVER_CORE, "Failed to save preferences: " + node.absolutePath(), e)); //$NON-NLS-1$
+			} catch (IllegalStateException e) {
+				//the node was removed after the flush was requested
+			}
+		}
+	}
+}
@@ -10,9 +10,17 @@
  *******************************************************************************/
 package org.eclipse.orion.server.git;
 
+import java.io.File;
+import java.io.IOException;
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.orion.internal.server.core.IFileChangeListener;
 import org.eclipse.orion.internal.server.core.IWebResourceDecorator;
+import org.eclipse.orion.server.core.LogHelper;
+import org.eclipse.orion.server.git.servlets.GitUtils;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.util.tracker.ServiceTracker;
@@ -50,6 +58,25 @@ public class GitActivator implements BundleActivator {
 		this.bundleContext = context;
 		context.registerService(IWebResourceDecorator.class, new GitFileDecorator(), null);
 		SshSessionFactory.setInstance(new GitSshSessionFactory());
+		RepositoryPool.configure();
+		//repositories may be created or deleted along with the files containing them
+		context.registerService(IFileChangeListener.class, new IFileChangeListener() {
+			public void fileChanged(IFileStore store) {
+				try {
+					File file = store.toLocalFile(EFS.NONE, null);
+					if (file != null) {
+						GitUtils.invalidateGitDirs(file);
+						//don't keep deleted or moved repositories open
+						if (!file.exists())
+							RepositoryPool.discardAll(file);
+					}
+				} catch (CoreException e) {
+					//not a local file, so it can't contain a repository
+				} catch (IOException e) {
+					LogHelper.log(e);
+				}
+			}
+		}, null);
 
 		prefServiceTracker = new ServiceTracker<IPreferencesService, IPreferencesService>(context, IPreferencesService.class, null);
 		prefServiceTracker.open();
@@ -66,6 +93,7 @@ public class GitActivator implements BundleActivator {
 	 * org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		RepositoryPool.closeAll();
 		prefServiceTracker.close();
 		prefServiceTracker = null;
 		this.bundleContext = null;
@@ -76,25 +76,27 @@ public class GitFileDecorator implements IWebResourceDecorator {
 			if (!isWorkspace && Method.GET.equals(Method.fromString(request.getMethod()))) {
 				//compute all git properties in advance because it will be same for all children
 				Repository db = repositoryForPath(request, new Path(resource.getPath()));
-				URI cloneLocation = BaseToCloneConverter.getCloneLocation(resource, BaseToCloneConverter.FILE);
-				String branch = db == null ? null : db.getBranch();
-				Remote defaultRemote = db == null ? null : new Remote(cloneLocation, db, Constants.DEFAULT_REMOTE_NAME);
-				RemoteBranch defaultRemoteBranch = db == null ? null : new RemoteBranch(cloneLocation, db, defaultRemote, branch);
-				addGitLinks(request, resource, representation, cloneLocation, db, defaultRemoteBranch, branch);
-
-				JSONArray children = representation.optJSONArray(ProtocolConstants.KEY_CHILDREN);
-				if (children != null) {
-					for (int i = 0; i < children.length(); i++) {
-						JSONObject child = children.getJSONObject(i);
-						String location = child.getString(ProtocolConstants.KEY_LOCATION);
-						if (db != null) {
-							// if parent was a git repository we can reuse information computed above
-							addGitLinks(request, new URI(location), child, cloneLocation, db, defaultRemoteBranch, branch);
-						} else {
-							//maybe the child is the root of a git repository
-							addGitLinks(request, new URI(location), child);
+				try {
+					GitLinks links = db == null ? null : new GitLinks(request, resource, db);
+					if (links != null)
+						links.addTo(resource, representation);
+
+					JSONArray children = representation.optJSONArray(ProtocolConstants.KEY_CHILDREN);
+					if (children != null) {
+						for (int i = 0; i < children.length(); i++) {
+							JSONObject child = children.getJSONObject(i);
+							String location = child.getString(ProtocolConstants.KEY_LOCATION);
+							if (links != null) {
+								// if parent was a git repository we can reuse information computed above
+								links.addTo(new URI(location), child);
+							} else {
+								//maybe the child is the root of a git repository
+								addGitLinks(request, new URI(location), child);
+							}
 						}
 					}
+				} finally {
+					RepositoryPool.release(db);
 				}
 			}
 		} catch (Exception e) {
@@ -107,68 +109,72 @@ public class GitFileDecorator implements IWebResourceDecorator {
 		Repository db = repositoryForPath(request, new Path(location.getPath()));
 		if (db == null)
 			return;
-		URI cloneLocation = BaseToCloneConverter.getCloneLocation(location, BaseToCloneConverter.FILE);
-		String branch = db.getBranch();
-		Remote defaultRemote = new Remote(cloneLocation, db, Constants.DEFAULT_REMOTE_NAME);
-		RemoteBranch defaultRemoteBranch = new RemoteBranch(cloneLocation, db, defaultRemote, branch);
-		addGitLinks(request, location, representation, cloneLocation, db, defaultRemoteBranch, branch);
+		try {
+			new GitLinks(request, location, db).addTo(location, representation);
+		} finally {
+			RepositoryPool.release(db);
+		}
 	}
 
-	private void addGitLinks(HttpServletRequest request, URI location, JSONObject representation, URI cloneLocation, Repository db, RemoteBranch defaultRemoteBranch, String branchName) throws URISyntaxException, JSONException {
-		if (db == null)
-			return;
-		IPath targetPath = new Path(location.getPath());
-
-		JSONObject gitSection = new JSONObject();
-
-		// add Git Diff URI
-		IPath path = new Path(GitServlet.GIT_URI + '/' + Diff.RESOURCE + '/' + GitConstants.KEY_DIFF_DEFAULT).append(targetPath);
-		String contextPath = request.getContextPath();
-		URI link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_DIFF, link);
-
-		// add Git Status URI
-		path = new Path(GitServlet.GIT_URI + '/' + Status.RESOURCE).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_STATUS, link);
-
-		// add Git Index URI
-		path = new Path(GitServlet.GIT_URI + '/' + Index.RESOURCE).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_INDEX, link);
-
-		// add Git HEAD URI
-		path = new Path(GitServlet.GIT_URI + '/' + Commit.RESOURCE).append(Constants.HEAD).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_HEAD, link);
-
-		// add Git Commit URI
-		path = new Path(GitServlet.GIT_URI + '/' + Commit.RESOURCE).append(branchName).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_COMMIT, link);
-
-		// add Git Remote URI
-		path = new Path(GitServlet.GIT_URI + '/' + Remote.RESOURCE).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_REMOTE, link);
-
-		// add Git Clone Config URI
-		path = new Path(GitServlet.GIT_URI + '/' + ConfigOption.RESOURCE + '/' + Clone.RESOURCE).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_CONFIG, link);
-
-		// add Git Default Remote Branch URI 
-		gitSection.put(GitConstants.KEY_DEFAULT_REMOTE_BRANCH, defaultRemoteBranch.getLocation());
-
-		// add Git Tag URI
-		path = new Path(GitServlet.GIT_URI + '/' + Tag.RESOURCE).append(targetPath);
-		link = new URI(location.getScheme(), location.getAuthority(), contextPath + path.toString(), null, null);
-		gitSection.put(GitConstants.KEY_TAG, link);
-
-		// add Git Clone URI
-		gitSection.put(GitConstants.KEY_CLONE, cloneLocation);
-
-		representation.put(GitConstants.KEY_GIT, gitSection);
+	/**
+	 * Computes the git links of resources in one repository. The links only differ in
+	 * the path of the resource, so everything else is computed once and each resource
+	 * only costs one path encoding and a few string concatenations. The default remote
+	 * branch is linked without reading the repository configuration; clients that
+	 * follow the link get its details from the remote handler.
+	 */
+	private static class GitLinks {
+		private final String diff, status, index, head, commit, remote, config, tag;
+		private final String cloneLocation;
+		private final String defaultRemoteBranch;
+
+		GitLinks(HttpServletRequest request, URI location, Repository db) throws URISyntaxException, CoreException, IOException {
+			URI clone = BaseToCloneConverter.getCloneLocation(location, BaseToCloneConverter.FILE);
+			String branchName = db.getBranch();
+			String contextPath = request.getContextPath();
+			diff = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Diff.RESOURCE + '/' + GitConstants.KEY_DIFF_DEFAULT));
+			status = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Status.RESOURCE));
+			index = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Index.RESOURCE));
+			head = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Commit.RESOURCE).append(Constants.HEAD));
+			commit = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Commit.RESOURCE).append(branchName));
+			remote = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Remote.RESOURCE));
+			config = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + ConfigOption.RESOURCE + '/' + Clone.RESOURCE));
+			tag = prefix(location, contextPath, new Path(GitServlet.GIT_URI + '/' + Tag.RESOURCE));
+			cloneLocation = clone == null ? null : clone.toString();
+			defaultRemoteBranch = clone == null ? null : BaseToRemoteConverter.REMOVE_FIRST_2.baseToRemoteLocation(clone, Constants.DEFAULT_REMOTE_NAME, branchName).toString();
+		}
+
+		/**
+		 * Returns the encoded form of the given git resource path, preceded by the scheme
+		 * and authority of the given location and the context path.
+		 */
+		private static String prefix(URI location, String contextPath, IPath path) throws URISyntaxException {
+			return new URI(location.getScheme(), location.getAuthority(), contextPath + path.removeTrailingSeparator().toString(), null, null).toString();
+		}
+
+		/**
+		 * Adds the git section to the representation of the resource at the given
+		 * location, which must be in the repository these links were computed for.
+		 */
+		void addTo(URI location, JSONObject representation) throws URISyntaxException, JSONException {
+			IPath targetPath = new Path(location.getPath());
+			//encode the path once, rather than once for each link
+			String path = new URI(null, null, targetPath.makeAbsolute().toString(), null, null).getRawPath();
+
+			JSONObject gitSection = new JSONObject();
+			gitSection.put(GitConstants.KEY_DIFF, diff + path);
+			gitSection.put(GitConstants.KEY_STATUS, status + path);
+			gitSection.put(GitConstants.KEY_INDEX, index + path);
+			gitSection.put(GitConstants.KEY_HEAD, head + path);
+			gitSection.put(GitConstants.KEY_COMMIT, commit + path);
+			gitSection.put(GitConstants.KEY_REMOTE, remote + path);
+			gitSection.put(GitConstants.KEY_CONFIG, config + path);
+			gitSection.put(GitConstants.KEY_DEFAULT_REMOTE_BRANCH, defaultRemoteBranch);
+			gitSection.put(GitConstants.KEY_TAG, tag + path);
+			gitSection.put(GitConstants.KEY_CLONE, cloneLocation);
+
+			representation.put(GitConstants.KEY_GIT, gitSection);
+		}
 	}
 
 	private Repository repositoryForPath(HttpServletRequest request, IPath targetPath) throws CoreException, IOException {
@@ -185,8 +191,7 @@ public class GitFileDecorator implements IWebResourceDecorator {
 		if (gitDir == null)
 			return null;
 
-		Repository db = new FileRepository(gitDir);
-		return db;
+		return RepositoryPool.acquire(gitDir);
 	}
 
 	/**
@@ -209,6 +214,7 @@ public class GitFileDecorator implements IWebResourceDecorator {
 				gitDir = new File(localFile, Constants.DOT_GIT);
 				FileRepository repo = new FileRepositoryBuilder().setGitDir(gitDir).build();
 				repo.create();
+				GitUtils.invalidateGitDirs(localFile);
 				//we need to perform an initial commit to workaround JGit bug 339610.
 				Git git = new Git(repo);
 				git.add().addFilepattern(".").call(); //$NON-NLS-1$
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.*;
+import org.eclipse.orion.server.core.*;
+
+/**
+ * A process-wide pool of open repositories, so that requests on the same repository
+ * share its caches and open pack files rather than opening it again each time.
+ * <p>
+ * Repositories are keyed by their canonical git directory. Each call to {@link #acquire(File)}
+ * must be matched by a call to {@link #release(Repository)} once the caller is done with
+ * the repository. Repositories that are not in use are closed, least recently used first,
+ * when the pool holds more than its configured size, and when they have not been used
+ * for the configured idle timeout.
+ * </p>
+ */
+public class RepositoryPool {
+	private static final int DEFAULT_SIZE = 64;
+	private static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+	private static final int DEFAULT_MAX_OPEN_PACK_FILES = 128;
+
+	private static class Entry {
+		final File key;
+		final Repository repository;
+		/**
+		 * The number of callers that have acquired the repository and not yet released it.
+		 */
+		int references;
+		long lastUsed;
+
+		Entry(File key, Repository repository) {
+			this.key = key;
+			this.repository = repository;
+		}
+
+		boolean isIdle() {
+			return references == 0;
+		}
+	}
+
+	/**
+	 * Closes repositories that have not been used for the idle timeout. Runs for as long
+	 * as the pool holds any repositories.
+	 */
+	private static class IdleJob extends Job {
+		IdleJob() {
+			super("Closing idle repositories"); //$NON-NLS-1$
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			closeIdle(System.currentTimeMillis() - idleTimeout);
+			synchronized (entries) {
+				if (!entries.isEmpty())
+					schedule(idleTimeout / 2);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * The pooled repositories in order of last use, least recently used first.
+	 */
+	private static final Map<File, Entry> entries = new LinkedHashMap<File, Entry>(16, 0.75f, true);
+	private static final Map<Repository, Entry> byRepository = new IdentityHashMap<Repository, Entry>();
+	private static final IdleJob idleJob = new IdleJob();
+
+	private static int size = DEFAULT_SIZE;
+	private static long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+	/**
+	 * Returns the repository with the given git directory, opening it if it is not already
+	 * open. The caller must pass the repository to {@link #release(Repository)} when done.
+	 * @param gitDir the git directory of the repository
+	 * @return the repository
+	 * @throws IOException if the repository could not be opened
+	 */
+	public static Repository acquire(File gitDir) throws IOException {
+		File key = gitDir.getCanonicalFile();
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null)
+				return use(entry);
+		}
+		//open the repository outside the lock, since it reads the repository configuration
+		Repository repository = new FileRepository(key);
+		Repository discarded = null;
+		List<Entry> evicted;
+		try {
+			synchronized (entries) {
+				Entry entry = entries.get(key);
+				if (entry != null) {
+					//another caller opened the same repository in the meantime
+					discarded = repository;
+					return use(entry);
+				}
+				entry = new Entry(key, repository);
+				entries.put(key, entry);
+				byRepository.put(repository, entry);
+				evicted = evict();
+				if (idleJob.getState() == Job.NONE)
+					idleJob.schedule(idleTimeout / 2);
+				repository = use(entry);
+			}
+		} finally {
+			if (discarded != null)
+				discarded.close();
+		}
+		close(evicted);
+		return repository;
+	}
+
+	/**
+	 * Releases a repository returned by {@link #acquire(File)}. Does nothing if the
+	 * repository is <code>null</code>.
+	 * @param repository the repository to release
+	 */
+	public static void release(Repository repository) {
+		if (repository == null)
+			return;
+		List<Entry> evicted;
+		synchronized (entries) {
+			Entry entry = byRepository.get(repository);
+			if (entry != null) {
+				entry.references--;
+				entry.lastUsed = System.currentTimeMillis();
+			}
+			evicted = evict();
+		}
+		repository.close();
+		close(evicted);
+	}
+
+	/**
+	 * Removes the repository with the given git directory from the pool, for example
+	 * because it is about to be deleted. The repository is closed once it is no longer
+	 * in use.
+	 * @param gitDir the git directory of the repository
+	 * @throws IOException if the canonical git directory could not be determined
+	 */
+	public static void discard(File gitDir) throws IOException {
+		File key = gitDir.getCanonicalFile();
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.remove(key);
+			if (entry != null)
+				byRepository.remove(entry.repository);
+		}
+		if (entry != null)
+			close(Collections.singletonList(entry));
+	}
+
+	/**
+	 * Removes all repositories whose git directory is the given directory or lies below
+	 * it from the pool, for example because the directory has been deleted. The
+	 * repositories are closed once they are no longer in use.
+	 * @param directory the directory containing the repositories
+	 * @throws IOException if the canonical directory could not be determined
+	 */
+	public static void discardAll(File directory) throws IOException {
+		String key = directory.getCanonicalPath();
+		String prefix = key.endsWith(File.separator) ? key : key + File.separatorChar;
+		List<Entry> discarded = new ArrayList<Entry>();
+		synchronized (entries) {
+			for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+				Entry entry = it.next();
+				String path = entry.key.getPath();
+				if (path.equals(key) || path.startsWith(prefix)) {
+					it.remove();
+					byRepository.remove(entry.repository);
+					discarded.add(entry);
+				}
+			}
+		}
+		close(discarded);
+	}
+
+	private static Repository use(Entry entry) {
+		entry.references++;
+		entry.lastUsed = System.currentTimeMillis();
+		//each acquired reference is counted by the repository, so it stays open until the last one is released
+		entry.repository.incrementOpen();
+		return entry.repository;
+	}
+
+	/**
+	 * Removes the least recently used idle entries while the pool is larger than its size.
+	 * Entries in use are never evicted, so the pool may temporarily exceed its size.
+	 * The caller must hold the pool lock and close the returned entries.
+	 */
+	private static List<Entry> evict() {
+		List<Entry> evicted = new ArrayList<Entry>();
+		int excess = entries.size() - size;
+		for (Iterator<Entry> it = entries.values().iterator(); excess > 0 && it.hasNext();) {
+			Entry entry = it.next();
+			if (entry.isIdle()) {
+				it.remove();
+				byRepository.remove(entry.repository);
+				evicted.add(entry);
+				excess--;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Closes all idle repositories last used before the given time.
+	 */
+	static void closeIdle(long cutoff) {
+		List<Entry> evicted = new ArrayList<Entry>();
+		synchronized (entries) {
+			for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+				Entry entry = it.next();
+				if (entry.isIdle() && entry.lastUsed < cutoff) {
+					it.remove();
+					byRepository.remove(entry.repository);
+					evicted.add(entry);
+				}
+			}
+		}
+		close(evicted);
+	}
+
+	/**
+	 * Removes all repositories from the pool. Repositories still in use are closed
+	 * when they are released.
+	 */
+	static void closeAll() {
+		idleJob.cancel();
+		List<Entry> evicted;
+		synchronized (entries) {
+			evicted = new ArrayList<Entry>(entries.values());
+			entries.clear();
+			byRepository.clear();
+		}
+		close(evicted);
+	}
+
+	private static void close(List<Entry> evicted) {
+		//drops the reference held by the pool itself
+		for (Entry entry : evicted)
+			entry.repository.close();
+	}
+
+	/**
+	 * Reads the pool size, idle timeout and pack file limit from the server configuration.
+	 */
+	static void configure() {
+		synchronized (entries) {
+			size = (int) getConfigured(ServerConstants.CONFIG_GIT_REPOSITORY_POOL_SIZE, DEFAULT_SIZE);
+			idleTimeout = getConfigured(ServerConstants.CONFIG_GIT_REPOSITORY_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+		}
+		WindowCacheConfig config = new WindowCacheConfig();
+		config.setPackedGitOpenFiles((int) getConfigured(ServerConstants.CONFIG_GIT_MAX_OPEN_PACK_FILES, DEFAULT_MAX_OPEN_PACK_FILES));
+		WindowCache.reconfigure(config);
+	}
+
+	private static long getConfigured(String key, long defaultValue) {
+		long result = PreferenceHelper.getLong(key, defaultValue);
+		return result > 0 ? result : defaultValue;
+	}
+}
@@ -24,10 +24,13 @@ import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.util.FileUtils;
 import org.eclipse.orion.internal.server.servlets.workspace.WebProject;
 import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.orion.server.core.tasks.JobFamily;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.GitCredentialsProvider;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.objects.Clone;
 import org.eclipse.orion.server.git.servlets.GitCloneHandlerV1;
+import org.eclipse.orion.server.git.servlets.GitUtils;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -61,10 +64,12 @@ public class CloneJob extends GitJob {
 			cc.setRemote(Constants.DEFAULT_REMOTE_NAME);
 			cc.setURI(clone.getUrl());
 			Git git = cc.call();
+			GitUtils.invalidateGitDirs(cloneFolder);
 
 			// Configure the clone, see Bug 337820
 			setMessage(NLS.bind("Configuring {0}...", clone.getUrl()));
 			GitCloneHandlerV1.doConfigureClone(git, user);
+			GitUtils.fireWorkTreeChanged(git.getRepository());
 			git.getRepository().close();
 		} catch (IOException e) {
 			return new Status(IStatus.ERROR, GitActivator.PI_GIT, "Error cloning git repository", e);
@@ -80,16 +85,24 @@ public class CloneJob extends GitJob {
 		return Status.OK_STATUS;
 	}
 
+	@Override
+	public JobFamily getFamily() {
+		return JobFamily.get(FAMILY_REMOTE);
+	}
+
 	@Override
 	protected IStatus performJob() {
 		IStatus result = doClone();
 		if (result.isOK())
 			return result;
 		try {
+			//the failed clone may have left its repository in the pool
+			RepositoryPool.discardAll(URIUtil.toFile(clone.getContentLocation()));
 			if (project != null)
 				GitCloneHandlerV1.removeProject(user, project);
 			else
 				FileUtils.delete(URIUtil.toFile(clone.getContentLocation()), FileUtils.RECURSIVE);
+			GitUtils.invalidateGitDirs(URIUtil.toFile(clone.getContentLocation()));
 		} catch (IOException e) {
 			String msg = "An error occured when cleaning up after a clone failure";
 			result = new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg, e);
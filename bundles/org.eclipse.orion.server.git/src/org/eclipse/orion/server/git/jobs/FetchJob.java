@@ -18,11 +18,12 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.*;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.lib.RefUpdate.Result;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.jgit.transport.*;
 import org.eclipse.orion.internal.server.servlets.workspace.WebProject;
+import org.eclipse.orion.server.core.tasks.JobFamily;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.GitCredentialsProvider;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.servlets.GitUtils;
 import org.eclipse.osgi.util.NLS;
 
@@ -77,23 +78,26 @@ public class FetchJob extends GitJob {
 
 	private IStatus doFetch() throws IOException, CoreException, URISyntaxException, GitAPIException {
 		Repository db = getRepository();
+		try {
+			Git git = new Git(db);
+			FetchCommand fc = git.fetch();
 
-		Git git = new Git(db);
-		FetchCommand fc = git.fetch();
-
-		RemoteConfig remoteConfig = new RemoteConfig(git.getRepository().getConfig(), remote);
-		credentials.setUri(remoteConfig.getURIs().get(0));
+			RemoteConfig remoteConfig = new RemoteConfig(git.getRepository().getConfig(), remote);
+			credentials.setUri(remoteConfig.getURIs().get(0));
 
-		fc.setCredentialsProvider(credentials);
-		fc.setRemote(remote);
-		if (branch != null) {
-			// refs/heads/{branch}:refs/remotes/{remote}/{branch}
-			RefSpec spec = new RefSpec(Constants.R_HEADS + branch + ":" + Constants.R_REMOTES + remote + "/" + branch); //$NON-NLS-1$ //$NON-NLS-2$
-			spec = spec.setForceUpdate(force);
-			fc.setRefSpecs(spec);
+			fc.setCredentialsProvider(credentials);
+			fc.setRemote(remote);
+			if (branch != null) {
+				// refs/heads/{branch}:refs/remotes/{remote}/{branch}
+				RefSpec spec = new RefSpec(Constants.R_HEADS + branch + ":" + Constants.R_REMOTES + remote + "/" + branch); //$NON-NLS-1$ //$NON-NLS-2$
+				spec = spec.setForceUpdate(force);
+				fc.setRefSpecs(spec);
+			}
+			FetchResult fetchResult = fc.call();
+			return handleFetchResult(fetchResult);
+		} finally {
+			RepositoryPool.release(db);
 		}
-		FetchResult fetchResult = fc.call();
-		return handleFetchResult(fetchResult);
 	}
 
 	static IStatus handleFetchResult(FetchResult fetchResult) {
@@ -126,7 +130,12 @@ public class FetchJob extends GitJob {
 			p = path.removeFirstSegments(1);
 		else
 			p = path.removeFirstSegments(2);
-		return new FileRepository(GitUtils.getGitDir(p));
+		return RepositoryPool.acquire(GitUtils.getGitDir(p));
+	}
+
+	@Override
+	public JobFamily getFamily() {
+		return JobFamily.get(FAMILY_REMOTE);
 	}
 
 	@Override
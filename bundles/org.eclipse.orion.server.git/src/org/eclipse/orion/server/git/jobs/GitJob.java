@@ -42,6 +42,10 @@ public abstract class GitJob extends TaskJob {
 	public static final String KEY_URL = "Url"; //$NON-NLS-1$
 	public static final String KEY_USER = "User"; //$NON-NLS-1$
 	public static final String KEY_HOST = "Host"; //$NON-NLS-1$
+	/**
+	 * The family of jobs that talk to remote repositories, which can take a long time.
+	 */
+	public static final String FAMILY_REMOTE = "git.remote"; //$NON-NLS-1$
 	protected GitCredentialsProvider credentials;
 
 	private static JSchException getJSchException(Throwable e) {
@@ -21,6 +21,7 @@ import org.eclipse.jgit.lib.Repository;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.objects.Clone;
 import org.eclipse.orion.server.git.servlets.GitCloneHandlerV1;
+import org.eclipse.orion.server.git.servlets.GitUtils;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -45,6 +46,7 @@ public class InitJob extends GitJob {
 			File directory = new File(clone.getContentLocation());
 			command.setDirectory(directory);
 			Repository repository = command.call().getRepository();
+			GitUtils.invalidateGitDirs(directory);
 			Git git = new Git(repository);
 
 			// configure the repo
@@ -23,11 +23,11 @@ import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.GitConstants;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.objects.Log;
 import org.eclipse.orion.server.git.objects.Tag;
 import org.eclipse.orion.server.git.servlets.GitUtils;
@@ -104,56 +104,60 @@ public class ListTagsJob extends GitJob {
 		try {
 			// list all tags
 			File gitDir = GitUtils.getGitDir(path);
-			Repository db = new FileRepository(gitDir);
-			Git git = new Git(db);
-			List<Ref> refs = git.tagList().call();
-			JSONObject result = new JSONObject();
-			List<Tag> tags = new ArrayList<Tag>();
-			for (Ref ref : refs) {
-				Tag tag = new Tag(cloneLocation, db, ref);
-				tags.add(tag);
-			}
-			Collections.sort(tags, Tag.COMPARATOR);
-			JSONArray children = new JSONArray();
-			int firstTag = pageSize > 0 ? pageSize * (pageNo - 1) : 0;
-			int lastTag = pageSize > 0 ? firstTag + pageSize - 1 : tags.size() - 1;
-			lastTag = lastTag > tags.size() - 1 ? tags.size() - 1 : lastTag;
-			if (pageNo > 1 && baseLocation != null) {
-				String prev = baseLocation + "?page=" + (pageNo - 1) + "&pageSize=" + pageSize;
-				if (commitsSize > 0) {
-					prev += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				Git git = new Git(db);
+				List<Ref> refs = git.tagList().call();
+				JSONObject result = new JSONObject();
+				List<Tag> tags = new ArrayList<Tag>();
+				for (Ref ref : refs) {
+					Tag tag = new Tag(cloneLocation, db, ref);
+					tags.add(tag);
 				}
-				result.put(ProtocolConstants.KEY_PREVIOUS_LOCATION, prev);
-			}
-			if (lastTag < tags.size() - 1) {
-				String next = baseLocation + "?page=" + (pageNo + 1) + "&pageSize=" + pageSize;
-				if (commitsSize > 0) {
-					next += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+				Collections.sort(tags, Tag.COMPARATOR);
+				JSONArray children = new JSONArray();
+				int firstTag = pageSize > 0 ? pageSize * (pageNo - 1) : 0;
+				int lastTag = pageSize > 0 ? firstTag + pageSize - 1 : tags.size() - 1;
+				lastTag = lastTag > tags.size() - 1 ? tags.size() - 1 : lastTag;
+				if (pageNo > 1 && baseLocation != null) {
+					String prev = baseLocation + "?page=" + (pageNo - 1) + "&pageSize=" + pageSize;
+					if (commitsSize > 0) {
+						prev += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+					}
+					result.put(ProtocolConstants.KEY_PREVIOUS_LOCATION, prev);
 				}
-				result.put(ProtocolConstants.KEY_NEXT_LOCATION, next);
-			}
-			for (int i = firstTag; i <= lastTag; i++) {
-				Tag tag = tags.get(i);
-				if (this.commitsSize == 0) {
-					children.put(tag.toJSON());
-				} else {
-					// add info about commits if requested
-					LogCommand lc = git.log();
-					String toCommitName = tag.getRevCommitName();
-					ObjectId toCommitId = db.resolve(toCommitName);
-					Ref toCommitRef = db.getRef(toCommitName);
-					toCommitId = getCommitObjectId(db, toCommitId);
-					lc.add(toCommitId);
-					lc.setMaxCount(this.commitsSize);
-					Iterable<RevCommit> commits = lc.call();
-					Log log = new Log(cloneLocation, db, commits, null, null, toCommitRef);
-					log.setPaging(1, commitsSize);
-					children.put(tag.toJSON(log.toJSON()));
+				if (lastTag < tags.size() - 1) {
+					String next = baseLocation + "?page=" + (pageNo + 1) + "&pageSize=" + pageSize;
+					if (commitsSize > 0) {
+						next += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+					}
+					result.put(ProtocolConstants.KEY_NEXT_LOCATION, next);
+				}
+				for (int i = firstTag; i <= lastTag; i++) {
+					Tag tag = tags.get(i);
+					if (this.commitsSize == 0) {
+						children.put(tag.toJSON());
+					} else {
+						// add info about commits if requested
+						LogCommand lc = git.log();
+						String toCommitName = tag.getRevCommitName();
+						ObjectId toCommitId = db.resolve(toCommitName);
+						Ref toCommitRef = db.getRef(toCommitName);
+						toCommitId = getCommitObjectId(db, toCommitId);
+						lc.add(toCommitId);
+						lc.setMaxCount(this.commitsSize);
+						Iterable<RevCommit> commits = lc.call();
+						Log log = new Log(cloneLocation, db, commits, null, null, toCommitRef);
+						log.setPaging(1, commitsSize);
+						children.put(tag.toJSON(log.toJSON()));
+					}
 				}
+				result.put(ProtocolConstants.KEY_CHILDREN, children);
+				result.put(ProtocolConstants.KEY_TYPE, Tag.TYPE);
+				return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
+			} finally {
+				RepositoryPool.release(db);
 			}
-			result.put(ProtocolConstants.KEY_CHILDREN, children);
-			result.put(ProtocolConstants.KEY_TYPE, Tag.TYPE);
-			return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
 		} catch (Exception e) {
 			String msg = NLS.bind("An error occured when listing tags for {0}", path);
 			return new Status(IStatus.ERROR, GitActivator.PI_GIT, msg, e);
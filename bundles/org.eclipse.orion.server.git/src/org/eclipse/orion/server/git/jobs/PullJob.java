@@ -18,11 +18,12 @@ import org.eclipse.jgit.api.MergeResult.MergeStatus;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.jgit.transport.*;
 import org.eclipse.orion.internal.server.servlets.workspace.WebProject;
+import org.eclipse.orion.server.core.tasks.JobFamily;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.GitCredentialsProvider;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.servlets.GitUtils;
 import org.eclipse.osgi.util.NLS;
 
@@ -46,40 +47,49 @@ public class PullJob extends GitJob {
 	}
 
 	private IStatus doPull() throws IOException, GitAPIException, CoreException {
-		Repository db = new FileRepository(GitUtils.getGitDir(path));
+		Repository db = RepositoryPool.acquire(GitUtils.getGitDir(path));
+		try {
+			Git git = new Git(db);
+			PullCommand pc = git.pull();
+			pc.setCredentialsProvider(credentials);
+			pc.setTransportConfigCallback(new TransportConfigCallback() {
+				@Override
+				public void configure(Transport t) {
+					credentials.setUri(t.getURI());
+				}
+			});
+			PullResult pullResult = pc.call();
+			GitUtils.fireWorkTreeChanged(db);
 
-		Git git = new Git(db);
-		PullCommand pc = git.pull();
-		pc.setCredentialsProvider(credentials);
-		pc.setTransportConfigCallback(new TransportConfigCallback() {
-			@Override
-			public void configure(Transport t) {
-				credentials.setUri(t.getURI());
-			}
-		});
-		PullResult pullResult = pc.call();
+			// handle result
+			if (pullResult.isSuccessful()) {
+				return Status.OK_STATUS;
+			} else {
 
-		// handle result
-		if (pullResult.isSuccessful()) {
-			return Status.OK_STATUS;
-		} else {
+				FetchResult fetchResult = pullResult.getFetchResult();
 
-			FetchResult fetchResult = pullResult.getFetchResult();
+				IStatus fetchStatus = FetchJob.handleFetchResult(fetchResult);
+				if (!fetchStatus.isOK()) {
+					return fetchStatus;
+				}
 
-			IStatus fetchStatus = FetchJob.handleFetchResult(fetchResult);
-			if (!fetchStatus.isOK()) {
-				return fetchStatus;
-			}
-
-			MergeStatus mergeStatus = pullResult.getMergeResult().getMergeStatus();
-			if (mergeStatus.isSuccessful()) {
-				return Status.OK_STATUS;
-			} else {
-				return new Status(IStatus.ERROR, GitActivator.PI_GIT, mergeStatus.name());
+				MergeStatus mergeStatus = pullResult.getMergeResult().getMergeStatus();
+				if (mergeStatus.isSuccessful()) {
+					return Status.OK_STATUS;
+				} else {
+					return new Status(IStatus.ERROR, GitActivator.PI_GIT, mergeStatus.name());
+				}
 			}
+		} finally {
+			RepositoryPool.release(db);
 		}
 	}
 
+	@Override
+	public JobFamily getFamily() {
+		return JobFamily.get(FAMILY_REMOTE);
+	}
+
 	@Override
 	protected IStatus performJob() {
 		IStatus result = Status.OK_STATUS;
@@ -21,10 +21,11 @@ import org.eclipse.jgit.api.PushCommand;
 import org.eclipse.jgit.api.errors.*;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.jgit.transport.*;
+import org.eclipse.orion.server.core.tasks.JobFamily;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.GitCredentialsProvider;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.servlets.GitUtils;
 import org.eclipse.osgi.util.NLS;
 
@@ -50,43 +51,52 @@ public class PushJob extends GitJob {
 	private IStatus doPush() throws IOException, CoreException, URISyntaxException, GitAPIException {
 		// /git/remote/{remote}/{branch}/file/{path}
 		File gitDir = GitUtils.getGitDir(path.removeFirstSegments(2));
-		Repository db = new FileRepository(gitDir);
-		Git git = new Git(db);
+		Repository db = RepositoryPool.acquire(gitDir);
+		try {
+			Git git = new Git(db);
 
-		PushCommand pushCommand = git.push();
+			PushCommand pushCommand = git.push();
 
-		RemoteConfig remoteConfig = new RemoteConfig(git.getRepository().getConfig(), path.segment(0));
-		credentials.setUri(remoteConfig.getURIs().get(0));
-		pushCommand.setCredentialsProvider(credentials);
+			RemoteConfig remoteConfig = new RemoteConfig(git.getRepository().getConfig(), path.segment(0));
+			credentials.setUri(remoteConfig.getURIs().get(0));
+			pushCommand.setCredentialsProvider(credentials);
 
-		RefSpec spec = new RefSpec(srcRef + ':' + Constants.R_HEADS + path.segment(1));
-		pushCommand.setRemote(path.segment(0)).setRefSpecs(spec);
-		if (tags)
-			pushCommand.setPushTags();
-		pushCommand.setForce(force);
-		Iterable<PushResult> resultIterable = pushCommand.call();
-		PushResult pushResult = resultIterable.iterator().next();
-		// this set will contain only OK status or UP_TO_DATE status
-		Set<RemoteRefUpdate.Status> statusSet = new HashSet<RemoteRefUpdate.Status>();
-		for (final RemoteRefUpdate rru : pushResult.getRemoteUpdates()) {
-			final String rm = rru.getRemoteName();
-			// check status only for branch given in the URL or tags
-			if (path.segment(1).equals(Repository.shortenRefName(rm)) || rm.startsWith(Constants.R_TAGS)) {
-				RemoteRefUpdate.Status status = rru.getStatus();
-				// any status different from UP_TO_DATE and OK should generate warning
-				if (status != RemoteRefUpdate.Status.OK && status != RemoteRefUpdate.Status.UP_TO_DATE)
-					return new Status(IStatus.WARNING, GitActivator.PI_GIT, status.name(), new Throwable(rru.getMessage()));
-				// add OK or UP_TO_DATE status to the set
-				statusSet.add(status);
+			RefSpec spec = new RefSpec(srcRef + ':' + Constants.R_HEADS + path.segment(1));
+			pushCommand.setRemote(path.segment(0)).setRefSpecs(spec);
+			if (tags)
+				pushCommand.setPushTags();
+			pushCommand.setForce(force);
+			Iterable<PushResult> resultIterable = pushCommand.call();
+			PushResult pushResult = resultIterable.iterator().next();
+			// this set will contain only OK status or UP_TO_DATE status
+			Set<RemoteRefUpdate.Status> statusSet = new HashSet<RemoteRefUpdate.Status>();
+			for (final RemoteRefUpdate rru : pushResult.getRemoteUpdates()) {
+				final String rm = rru.getRemoteName();
+				// check status only for branch given in the URL or tags
+				if (path.segment(1).equals(Repository.shortenRefName(rm)) || rm.startsWith(Constants.R_TAGS)) {
+					RemoteRefUpdate.Status status = rru.getStatus();
+					// any status different from UP_TO_DATE and OK should generate warning
+					if (status != RemoteRefUpdate.Status.OK && status != RemoteRefUpdate.Status.UP_TO_DATE)
+						return new Status(IStatus.WARNING, GitActivator.PI_GIT, status.name(), new Throwable(rru.getMessage()));
+					// add OK or UP_TO_DATE status to the set
+					statusSet.add(status);
+				}
+				// TODO: return results for all updated branches once push is available for remote, see bug 352202
 			}
-			// TODO: return results for all updated branches once push is available for remote, see bug 352202
+			if (statusSet.contains(RemoteRefUpdate.Status.OK))
+				// if there is OK status in the set -> something was updated
+				return Status.OK_STATUS;
+			else
+				// if there is no OK status in the set -> only UP_TO_DATE status is possible
+				return new Status(IStatus.WARNING, GitActivator.PI_GIT, RemoteRefUpdate.Status.UP_TO_DATE.name());
+		} finally {
+			RepositoryPool.release(db);
 		}
-		if (statusSet.contains(RemoteRefUpdate.Status.OK))
-			// if there is OK status in the set -> something was updated
-			return Status.OK_STATUS;
-		else
-			// if there is no OK status in the set -> only UP_TO_DATE status is possible
-			return new Status(IStatus.WARNING, GitActivator.PI_GIT, RemoteRefUpdate.Status.UP_TO_DATE.name());
+	}
+
+	@Override
+	public JobFamily getFamily() {
+		return JobFamily.get(FAMILY_REMOTE);
 	}
 
 	@Override
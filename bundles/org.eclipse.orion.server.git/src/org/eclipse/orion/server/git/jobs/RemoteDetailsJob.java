@@ -23,11 +23,11 @@ import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.git.GitActivator;
 import org.eclipse.orion.server.git.GitConstants;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.objects.Log;
 import org.eclipse.orion.server.git.objects.Remote;
 import org.eclipse.orion.server.git.servlets.GitUtils;
@@ -101,73 +101,77 @@ public class RemoteDetailsJob extends GitJob {
 
 		try {
 			File gitDir = GitUtils.getGitDir(path);
-			Repository db = new FileRepository(gitDir);
-			Git git = new Git(db);
-			Set<String> configNames = db.getConfig().getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION);
-			for (String configN : configNames) {
-				if (configN.equals(configName)) {
-					Remote remote = new Remote(cloneLocation, db, configN);
-					JSONObject result = remote.toJSON();
-					if (!result.has(ProtocolConstants.KEY_CHILDREN)) {
-						return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
-					}
-					JSONArray children = result.getJSONArray(ProtocolConstants.KEY_CHILDREN);
-					if (children.length() == 0 || (commitsSize == 0 && pageSize < 0)) {
-						return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
-					}
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				Git git = new Git(db);
+				Set<String> configNames = db.getConfig().getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION);
+				for (String configN : configNames) {
+					if (configN.equals(configName)) {
+						Remote remote = new Remote(cloneLocation, db, configN);
+						JSONObject result = remote.toJSON();
+						if (!result.has(ProtocolConstants.KEY_CHILDREN)) {
+							return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
+						}
+						JSONArray children = result.getJSONArray(ProtocolConstants.KEY_CHILDREN);
+						if (children.length() == 0 || (commitsSize == 0 && pageSize < 0)) {
+							return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
+						}
 
-					int firstChild = pageSize > 0 ? pageSize * (pageNo - 1) : 0;
-					int lastChild = pageSize > 0 ? firstChild + pageSize - 1 : children.length() - 1;
-					lastChild = lastChild > children.length() - 1 ? children.length() - 1 : lastChild;
-					if (pageNo > 1 && baseLocation != null) {
-						String prev = baseLocation + "?page=" + (pageNo - 1) + "&pageSize=" + pageSize;
-						if (commitsSize > 0) {
-							prev += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+						int firstChild = pageSize > 0 ? pageSize * (pageNo - 1) : 0;
+						int lastChild = pageSize > 0 ? firstChild + pageSize - 1 : children.length() - 1;
+						lastChild = lastChild > children.length() - 1 ? children.length() - 1 : lastChild;
+						if (pageNo > 1 && baseLocation != null) {
+							String prev = baseLocation + "?page=" + (pageNo - 1) + "&pageSize=" + pageSize;
+							if (commitsSize > 0) {
+								prev += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+							}
+							result.put(ProtocolConstants.KEY_PREVIOUS_LOCATION, prev);
 						}
-						result.put(ProtocolConstants.KEY_PREVIOUS_LOCATION, prev);
-					}
-					if (lastChild < children.length() - 1) {
-						String next = baseLocation + "?page=" + (pageNo + 1) + "&pageSize=" + pageSize;
-						if (commitsSize > 0) {
-							next += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+						if (lastChild < children.length() - 1) {
+							String next = baseLocation + "?page=" + (pageNo + 1) + "&pageSize=" + pageSize;
+							if (commitsSize > 0) {
+								next += "&" + GitConstants.KEY_TAG_COMMITS + "=" + commitsSize;
+							}
+							result.put(ProtocolConstants.KEY_NEXT_LOCATION, next);
 						}
-						result.put(ProtocolConstants.KEY_NEXT_LOCATION, next);
-					}
 
-					JSONArray newChildren = new JSONArray();
-					for (int i = firstChild; i <= lastChild; i++) {
-						JSONObject branch = children.getJSONObject(i);
-						if (commitsSize == 0) {
-							newChildren.put(branch);
-						} else {
-							LogCommand lc = git.log();
-							String branchName = branch.getString(ProtocolConstants.KEY_ID);
-							ObjectId toObjectId = db.resolve(branchName);
-							Ref toRefId = db.getRef(branchName);
-							if (toObjectId == null) {
-								String msg = NLS.bind("No ref or commit found: {0}", branchName);
-								return new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, null);
+						JSONArray newChildren = new JSONArray();
+						for (int i = firstChild; i <= lastChild; i++) {
+							JSONObject branch = children.getJSONObject(i);
+							if (commitsSize == 0) {
+								newChildren.put(branch);
+							} else {
+								LogCommand lc = git.log();
+								String branchName = branch.getString(ProtocolConstants.KEY_ID);
+								ObjectId toObjectId = db.resolve(branchName);
+								Ref toRefId = db.getRef(branchName);
+								if (toObjectId == null) {
+									String msg = NLS.bind("No ref or commit found: {0}", branchName);
+									return new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, null);
+								}
+								toObjectId = getCommitObjectId(db, toObjectId);
+
+								// set the commit range
+								lc.add(toObjectId);
+								lc.setMaxCount(this.commitsSize);
+								Iterable<RevCommit> commits = lc.call();
+								Log log = new Log(cloneLocation, db, commits, null, null, toRefId);
+								log.setPaging(1, commitsSize);
+								branch.put(GitConstants.KEY_TAG_COMMIT, log.toJSON());
+								newChildren.put(branch);
 							}
-							toObjectId = getCommitObjectId(db, toObjectId);
-
-							// set the commit range
-							lc.add(toObjectId);
-							lc.setMaxCount(this.commitsSize);
-							Iterable<RevCommit> commits = lc.call();
-							Log log = new Log(cloneLocation, db, commits, null, null, toRefId);
-							log.setPaging(1, commitsSize);
-							branch.put(GitConstants.KEY_TAG_COMMIT, log.toJSON());
-							newChildren.put(branch);
 						}
-					}
 
-					result.put(ProtocolConstants.KEY_CHILDREN, newChildren);
+						result.put(ProtocolConstants.KEY_CHILDREN, newChildren);
 
-					return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
+						return new ServerStatus(Status.OK_STATUS, HttpServletResponse.SC_OK, result);
+					}
 				}
+				String msg = NLS.bind("Couldn't find remote : {0}", configName);
+				return new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, null);
+			} finally {
+				RepositoryPool.release(db);
 			}
-			String msg = NLS.bind("Couldn't find remote : {0}", configName);
-			return new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, null);
 		} catch (Exception e) {
 			String msg = NLS.bind("Couldn't get remote details : {0}", configName);
 			return new Status(IStatus.ERROR, GitActivator.PI_GIT, msg, e);
@@ -19,8 +19,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.storage.file.FileBasedConfig;
-import org.eclipse.jgit.storage.file.FileRepository;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.orion.internal.server.servlets.Activator;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
@@ -28,6 +27,7 @@ import org.eclipse.orion.server.core.resources.*;
 import org.eclipse.orion.server.core.resources.annotations.PropertyDescription;
 import org.eclipse.orion.server.core.resources.annotations.ResourceDescription;
 import org.eclipse.orion.server.git.GitConstants;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.servlets.GitServlet;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -45,7 +45,7 @@ public class Clone {
 	private URI contentLocation;
 	private URIish uriish;
 	private String name;
-	private FileRepository db;
+	private File gitDir;
 	private URI baseLocation;
 
 	private static final ResourceShape DEFAULT_RESOURCE_SHAPE = new ResourceShape();
@@ -127,10 +127,10 @@ public class Clone {
 		return this.name;
 	}
 
-	private FileRepository getRepository() throws IOException {
-		if (db == null)
-			db = new FileRepository(new File(new File(getContentLocation()), Constants.DOT_GIT));
-		return db;
+	private File getGitDir() {
+		if (gitDir == null)
+			gitDir = new File(new File(getContentLocation()), Constants.DOT_GIT);
+		return gitDir;
 	}
 
 	public void setBaseLocation(URI baseLocation) {
@@ -225,13 +225,16 @@ public class Clone {
 
 	@PropertyDescription(name = GitConstants.KEY_URL)
 	private String getCloneUrl() {
+		Repository db = null;
 		try {
-			FileBasedConfig config = getRepository().getConfig();
-			String remoteUri = config.getString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, ConfigConstants.CONFIG_KEY_URL);
+			db = RepositoryPool.acquire(getGitDir());
+			String remoteUri = db.getConfig().getString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, ConfigConstants.CONFIG_KEY_URL);
 			if (remoteUri != null)
 				return remoteUri;
 		} catch (IOException e) {
 			// ignore and skip Git URL
+		} finally {
+			RepositoryPool.release(db);
 		}
 		return null;
 	}
@@ -243,7 +246,7 @@ public class Clone {
 	public JSONObject toJSON(Entry<IPath, File> entry, URI aBaseLocation) throws IOException, URISyntaxException {
 		id = Activator.LOCATION_FILE_SERVLET + '/' + entry.getKey().toString();
 		name = entry.getKey().lastSegment();
-		db = new FileRepository(entry.getValue());
+		gitDir = entry.getValue();
 		this.baseLocation = aBaseLocation;
 		return toJSON();
 	}
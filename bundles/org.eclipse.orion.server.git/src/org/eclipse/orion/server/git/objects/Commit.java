@@ -14,7 +14,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.Map.Entry;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
@@ -73,7 +72,7 @@ public class Commit extends GitObject {
 	 * particular path (git commit -o {path}).
 	 */
 	private boolean isRoot = true;
-	private Map<ObjectId, JSONArray> commitToBranchMap;
+	private RefIndex refIndex;
 
 	public Commit(URI cloneLocation, Repository db, RevCommit revCommit, String pattern) {
 		super(cloneLocation, db);
@@ -85,14 +84,18 @@ public class Commit extends GitObject {
 		}
 	}
 
-	public void setCommitToBranchMap(Map<ObjectId, JSONArray> map) {
-		this.commitToBranchMap = map;
+	/**
+	 * Sets the ref index to take tags and branches from, so that the commits of a log
+	 * don't each look up the index.
+	 */
+	public void setRefIndex(RefIndex refIndex) {
+		this.refIndex = refIndex;
 	}
 
-	public Map<ObjectId, JSONArray> getCommitToBranchMap() throws GitAPIException, JSONException, URISyntaxException, IOException, CoreException {
-		if (commitToBranchMap == null)
-			commitToBranchMap = Log.getCommitToBranchMap(cloneLocation, db);
-		return commitToBranchMap;
+	private RefIndex getRefIndex() throws GitAPIException {
+		if (refIndex == null)
+			refIndex = RefIndex.get(db);
+		return refIndex;
 	}
 
 	/**
@@ -175,14 +178,23 @@ public class Commit extends GitObject {
 
 	// TODO: expandable
 	@PropertyDescription(name = GitConstants.KEY_TAGS)
-	private JSONArray getTags() throws MissingObjectException, JSONException, URISyntaxException, CoreException, IOException {
-		return toJSON(getTagsForCommit());
+	private JSONArray getTags() throws GitAPIException, JSONException, URISyntaxException, CoreException, IOException {
+		return toJSON(getRefIndex().getTags(revCommit));
 	}
 
 	// TODO: expandable
 	@PropertyDescription(name = GitConstants.KEY_BRANCHES)
 	private JSONArray getBranches() throws JSONException, GitAPIException, URISyntaxException, IOException, CoreException {
-		return getCommitToBranchMap().get(revCommit.getId());
+		List<Ref> branchRefs = getRefIndex().getBranches(revCommit);
+		if (branchRefs.isEmpty())
+			return null;
+		JSONArray branches = new JSONArray();
+		for (Ref branchRef : branchRefs) {
+			JSONObject branch = new JSONObject();
+			branch.put(ProtocolConstants.KEY_FULL_NAME, branchRef.getName());
+			branches.put(branch);
+		}
+		return branches;
 	}
 
 	// TODO: expandable?
@@ -230,10 +242,10 @@ public class Commit extends GitObject {
 		return null;
 	}
 
-	private JSONArray toJSON(Map<String, Ref> revTags) throws JSONException, URISyntaxException, CoreException, IOException {
+	private JSONArray toJSON(List<Ref> revTags) throws JSONException, URISyntaxException, CoreException, IOException {
 		JSONArray children = new JSONArray();
-		for (Entry<String, Ref> revTag : revTags.entrySet()) {
-			Tag tag = new Tag(cloneLocation, db, revTag.getValue());
+		for (Ref revTag : revTags) {
+			Tag tag = new Tag(cloneLocation, db, revTag);
 			children.put(tag.toJSON());
 		}
 		return children;
@@ -244,20 +256,6 @@ public class Commit extends GitObject {
 		return BaseToCommitConverter.getCommitLocation(cloneLocation, revCommit.getName(), pattern, BaseToCommitConverter.REMOVE_FIRST_2);
 	}
 
-	private Map<String, Ref> getTagsForCommit() throws MissingObjectException, IOException {
-		final Map<String, Ref> tags = new HashMap<String, Ref>();
-		for (final Entry<String, Ref> tag : db.getTags().entrySet()) {
-			Ref ref = db.peel(tag.getValue());
-			ObjectId refId = ref.getPeeledObjectId();
-			if (refId == null)
-				refId = ref.getObjectId();
-			if (!AnyObjectId.equals(refId, revCommit))
-				continue;
-			tags.put(tag.getKey(), tag.getValue());
-		}
-		return tags;
-	}
-
 	private URI createDiffLocation(String toRefId, String fromRefId, String path) throws URISyntaxException {
 		IPath diffPath = new Path(GitServlet.GIT_URI).append(Diff.RESOURCE);
 
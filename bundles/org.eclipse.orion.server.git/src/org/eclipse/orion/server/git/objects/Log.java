@@ -15,8 +15,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import org.eclipse.core.runtime.*;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.ListBranchCommand.ListMode;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -91,12 +89,12 @@ public class Log extends GitObject {
 
 	@PropertyDescription(name = ProtocolConstants.KEY_CHILDREN)
 	private JSONArray getChildren() throws GitAPIException, JSONException, URISyntaxException, IOException, CoreException {
-		Map<ObjectId, JSONArray> commitToBranchMap = getCommitToBranchMap(cloneLocation, db);
+		RefIndex refIndex = RefIndex.get(db);
 		JSONArray children = new JSONArray();
 		int i = 0;
 		for (RevCommit revCommit : commits) {
 			Commit commit = new Commit(cloneLocation, db, revCommit, pattern);
-			commit.setCommitToBranchMap(commitToBranchMap);
+			commit.setRefIndex(refIndex);
 			children.put(commit.toJSON());
 			if (i++ == pageSize - 1)
 				break;
@@ -207,25 +205,4 @@ public class Log extends GitObject {
 		// TODO: lost paging info
 		return BaseToCommitConverter.getCommitLocation(cloneLocation, GitUtils.encode(c.toString()), pattern, BaseToCommitConverter.REMOVE_FIRST_2);
 	}
-
-	static Map<ObjectId, JSONArray> getCommitToBranchMap(URI cloneLocation, Repository db) throws GitAPIException, JSONException {
-		HashMap<ObjectId, JSONArray> commitToBranch = new HashMap<ObjectId, JSONArray>();
-		Git git = new Git(db);
-		List<Ref> branchRefs = git.branchList().setListMode(ListMode.ALL).call();
-		for (Ref branchRef : branchRefs) {
-			ObjectId commitId = branchRef.getLeaf().getObjectId();
-			JSONObject branch = new JSONObject();
-			branch.put(ProtocolConstants.KEY_FULL_NAME, branchRef.getName());
-
-			JSONArray branchesArray = commitToBranch.get(commitId);
-			if (branchesArray != null) {
-				branchesArray.put(branch);
-			} else {
-				branchesArray = new JSONArray();
-				branchesArray.put(branch);
-				commitToBranch.put(commitId, branchesArray);
-			}
-		}
-		return commitToBranch;
-	}
 }
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.git.objects;
+
+import java.util.*;
+import java.util.Map.Entry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ListBranchCommand.ListMode;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.*;
+
+/**
+ * Maps the commits of a repository to the tags and branches pointing at them, so that
+ * decorating a page of commits does not peel every tag and list every branch for each
+ * commit. The index is shared by all users of a repository and rebuilt when any ref of
+ * the repository has changed.
+ */
+public class RefIndex {
+	private static final Map<Repository, RefIndex> indexes = new WeakHashMap<Repository, RefIndex>();
+
+	/**
+	 * The object id of every ref when the index was built, used to detect ref changes.
+	 */
+	private final Map<String, ObjectId> snapshot = new HashMap<String, ObjectId>();
+	/**
+	 * Tags by the id of the object they point to, after peeling annotated tags.
+	 */
+	private final Map<ObjectId, List<Ref>> tags = new HashMap<ObjectId, List<Ref>>();
+	/**
+	 * Local and remote tracking branches by the id of the commit they point to.
+	 */
+	private final Map<ObjectId, List<Ref>> branches = new HashMap<ObjectId, List<Ref>>();
+	private final List<Ref> localBranches = new ArrayList<Ref>();
+
+	private RefIndex(Repository db, Map<String, Ref> refs) throws GitAPIException {
+		for (Entry<String, Ref> ref : refs.entrySet())
+			snapshot.put(ref.getKey(), ref.getValue().getObjectId());
+		for (Ref tag : db.getTags().values()) {
+			Ref peeled = db.peel(tag);
+			ObjectId id = peeled.getPeeledObjectId();
+			add(tags, id == null ? peeled.getObjectId() : id, tag);
+		}
+		for (Ref branch : new Git(db).branchList().setListMode(ListMode.ALL).call()) {
+			add(branches, branch.getLeaf().getObjectId(), branch);
+			if (!branch.getName().startsWith(Constants.R_REMOTES))
+				localBranches.add(branch);
+		}
+	}
+
+	private static void add(Map<ObjectId, List<Ref>> map, ObjectId id, Ref ref) {
+		if (id == null)
+			return;
+		List<Ref> refs = map.get(id);
+		if (refs == null) {
+			refs = new ArrayList<Ref>(1);
+			map.put(id, refs);
+		}
+		refs.add(ref);
+	}
+
+	/**
+	 * Returns the index for the given repository, building it if the refs of the
+	 * repository have changed since it was last built.
+	 */
+	public static RefIndex get(Repository db) throws GitAPIException {
+		//reading the refs is cheap, it only checks whether the ref files have changed
+		Map<String, Ref> refs = db.getAllRefs();
+		synchronized (indexes) {
+			RefIndex index = indexes.get(db);
+			if (index != null && index.isCurrent(refs))
+				return index;
+		}
+		RefIndex index = new RefIndex(db, refs);
+		synchronized (indexes) {
+			indexes.put(db, index);
+		}
+		return index;
+	}
+
+	private boolean isCurrent(Map<String, Ref> refs) {
+		if (refs.size() != snapshot.size())
+			return false;
+		for (Entry<String, Ref> ref : refs.entrySet()) {
+			if (!snapshot.containsKey(ref.getKey()))
+				return false;
+			ObjectId id = snapshot.get(ref.getKey());
+			ObjectId current = ref.getValue().getObjectId();
+			if (id == null ? current != null : !id.equals(current))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the tags pointing at the given commit.
+	 */
+	public List<Ref> getTags(AnyObjectId commit) {
+		List<Ref> result = tags.get(commit);
+		return result == null ? Collections.<Ref> emptyList() : Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns the local and remote tracking branches pointing at the given commit.
+	 */
+	public List<Ref> getBranches(AnyObjectId commit) {
+		List<Ref> result = branches.get(commit);
+		return result == null ? Collections.<Ref> emptyList() : Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns all local branches, in the order listed by <code>git branch</code>.
+	 */
+	public List<Ref> getLocalBranches() {
+		return Collections.unmodifiableList(localBranches);
+	}
+}
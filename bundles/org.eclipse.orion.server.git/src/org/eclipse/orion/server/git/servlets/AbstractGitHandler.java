@@ -20,11 +20,11 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
 import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.git.GitActivator;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.servlets.GitUtils.Traverse;
 import org.eclipse.orion.server.servlets.OrionServlet;
 import org.eclipse.osgi.util.NLS;
@@ -98,7 +98,7 @@ public abstract class AbstractGitHandler extends ServletResourceHandler<String>
 				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, msg, null));
 			}
 			String relativePath = GitUtils.getRelativePath(filePath, firstGitDir.getKey());
-			db = new FileRepository(gitDir);
+			db = RepositoryPool.acquire(gitDir);
 			RequestInfo requestInfo = new RequestInfo(request, response, db, gitSegment, relativePath, filePath);
 			switch (getMethod(request)) {
 				case GET :
@@ -121,8 +121,7 @@ public abstract class AbstractGitHandler extends ServletResourceHandler<String>
 			String msg = NLS.bind("Failed to process a git request for {0}", path);
 			return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg, e));
 		} finally {
-			if (db != null)
-				db.close();
+			RepositoryPool.release(db);
 		}
 	}
 
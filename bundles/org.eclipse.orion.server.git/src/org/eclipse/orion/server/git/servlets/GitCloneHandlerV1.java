@@ -24,7 +24,6 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.*;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.lib.*;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.util.FileUtils;
 import org.eclipse.orion.internal.server.servlets.*;
@@ -34,6 +33,7 @@ import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.git.GitConstants;
 import org.eclipse.orion.server.git.GitCredentialsProvider;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.jobs.*;
 import org.eclipse.orion.server.git.objects.Clone;
 import org.eclipse.orion.server.git.servlets.GitUtils.Traverse;
@@ -299,53 +299,61 @@ public class GitCloneHandlerV1 extends ServletResourceHandler<String> {
 					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, msg, null));
 				}
 
-				Git git = new Git(new FileRepository(gitDir));
-				if (paths != null) {
-					Set<String> toRemove = new HashSet<String>();
-					CheckoutCommand checkout = git.checkout();
-					for (int i = 0; i < paths.length(); i++) {
-						String p = paths.getString(i);
-						if (removeUntracked && !isInIndex(git.getRepository(), p))
-							toRemove.add(p);
-						checkout.addPath(p);
-					}
-					checkout.call();
-					for (String p : toRemove) {
-						File f = new File(git.getRepository().getWorkTree(), p);
-						f.delete();
-					}
-					return true;
-				} else if (tag != null && branch != null) {
-					CheckoutCommand co = git.checkout();
-					try {
-						co.setName(branch).setStartPoint(tag).setCreateBranch(true).call();
+				Repository db = RepositoryPool.acquire(gitDir);
+				try {
+					Git git = new Git(db);
+					if (paths != null) {
+						Set<String> toRemove = new HashSet<String>();
+						CheckoutCommand checkout = git.checkout();
+						for (int i = 0; i < paths.length(); i++) {
+							String p = paths.getString(i);
+							if (removeUntracked && !isInIndex(git.getRepository(), p))
+								toRemove.add(p);
+							checkout.addPath(p);
+						}
+						checkout.call();
+						for (String p : toRemove) {
+							File f = new File(git.getRepository().getWorkTree(), p);
+							f.delete();
+						}
+						GitUtils.fireWorkTreeChanged(git.getRepository());
 						return true;
-					} catch (RefNotFoundException e) {
-						String msg = NLS.bind("Tag not found: {0}", tag);
-						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, e));
-					} catch (GitAPIException e) {
-						if (org.eclipse.jgit.api.CheckoutResult.Status.CONFLICTS.equals(co.getResult().getStatus())) {
-							return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_CONFLICT, "Checkout aborted.", e));
+					} else if (tag != null && branch != null) {
+						CheckoutCommand co = git.checkout();
+						try {
+							co.setName(branch).setStartPoint(tag).setCreateBranch(true).call();
+							GitUtils.fireWorkTreeChanged(git.getRepository());
+							return true;
+						} catch (RefNotFoundException e) {
+							String msg = NLS.bind("Tag not found: {0}", tag);
+							return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, e));
+						} catch (GitAPIException e) {
+							if (org.eclipse.jgit.api.CheckoutResult.Status.CONFLICTS.equals(co.getResult().getStatus())) {
+								return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_CONFLICT, "Checkout aborted.", e));
+							}
+							// TODO: handle other exceptions
 						}
-						// TODO: handle other exceptions
-					}
-				} else if (branch != null) {
+					} else if (branch != null) {
 
-					if (!isLocalBranch(git, branch)) {
-						String msg = NLS.bind("{0} is not a branch.", branch);
-						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, null));
-					}
+						if (!isLocalBranch(git, branch)) {
+							String msg = NLS.bind("{0} is not a branch.", branch);
+							return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, null));
+						}
 
-					CheckoutCommand co = git.checkout();
-					try {
-						co.setName(Constants.R_HEADS + branch).call();
-						return true;
-					} catch (CheckoutConflictException e) {
-						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_CONFLICT, "Checkout aborted.", e));
-					} catch (RefNotFoundException e) {
-						String msg = NLS.bind("Branch name not found: {0}", branch);
-						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, e));
-					} // TODO: handle other exceptions
+						CheckoutCommand co = git.checkout();
+						try {
+							co.setName(Constants.R_HEADS + branch).call();
+							GitUtils.fireWorkTreeChanged(git.getRepository());
+							return true;
+						} catch (CheckoutConflictException e) {
+							return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_CONFLICT, "Checkout aborted.", e));
+						} catch (RefNotFoundException e) {
+							String msg = NLS.bind("Branch name not found: {0}", branch);
+							return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, msg, e));
+						} // TODO: handle other exceptions
+					}
+				} finally {
+					RepositoryPool.release(db);
 				}
 			} else {
 				String msg = NLS.bind("Nothing found for the given ID: {0}", path);
@@ -379,9 +387,12 @@ public class GitCloneHandlerV1 extends ServletResourceHandler<String> {
 			WebProject webProject = GitUtils.projectFromPath(path);
 			if (webProject != null && isAccessAllowed(request.getRemoteUser(), webProject)) {
 				File gitDir = GitUtils.getGitDirs(path, Traverse.CURRENT).values().iterator().next();
-				Repository repo = new FileRepository(gitDir);
-				repo.close();
+				Repository repo = RepositoryPool.acquire(gitDir);
+				RepositoryPool.release(repo);
+				//the clone is being deleted, so don't keep its repository open
+				RepositoryPool.discard(gitDir);
 				FileUtils.delete(repo.getWorkTree(), FileUtils.RECURSIVE | FileUtils.RETRY);
+				GitUtils.invalidateGitDirs(repo.getWorkTree());
 				if (path.segmentCount() == 3)
 					return statusHandler.handleRequest(request, response, removeProject(request.getRemoteUser(), webProject));
 				return true;
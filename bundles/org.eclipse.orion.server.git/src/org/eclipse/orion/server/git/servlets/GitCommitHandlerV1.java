@@ -351,6 +351,7 @@ public class GitCommitHandlerV1 extends AbstractGitHandler {
 			ObjectId objectId = db.resolve(commitToMerge);
 			Git git = new Git(db);
 			MergeResult mergeResult = git.merge().setSquash(squash).include(objectId).call();
+			GitUtils.fireWorkTreeChanged(db);
 			JSONObject result = new JSONObject();
 			result.put(GitConstants.KEY_RESULT, mergeResult.getMergeStatus().name());
 			if (mergeResult.getFailingPaths() != null && !mergeResult.getFailingPaths().isEmpty())
@@ -406,6 +407,7 @@ public class GitCommitHandlerV1 extends AbstractGitHandler {
 			}
 			rebase.setOperation(operation);
 			RebaseResult rebaseResult = rebase.call();
+			GitUtils.fireWorkTreeChanged(db);
 			result.put(GitConstants.KEY_RESULT, rebaseResult.getStatus().name());
 		} catch (UnmergedPathsException e) {
 			// this error should be handled by client, so return a proper status
@@ -440,6 +442,7 @@ public class GitCommitHandlerV1 extends AbstractGitHandler {
 			ObjectId objectId = db.resolve(commitToCherryPick);
 			Git git = new Git(db);
 			CherryPickResult cherryPickResult = git.cherryPick().include(objectId).call();
+			GitUtils.fireWorkTreeChanged(db);
 			RevCommit newHead = cherryPickResult.getNewHead();
 
 			JSONObject result = new JSONObject();
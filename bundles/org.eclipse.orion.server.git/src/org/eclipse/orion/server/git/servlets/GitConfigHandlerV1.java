@@ -20,12 +20,12 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.git.BaseToCloneConverter;
 import org.eclipse.orion.server.git.GitConstants;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.objects.Clone;
 import org.eclipse.orion.server.git.objects.ConfigOption;
 import org.eclipse.orion.server.servlets.OrionServlet;
@@ -72,26 +72,34 @@ public class GitConfigHandlerV1 extends ServletResourceHandler<String> {
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(1));
 			if (gitDir == null)
 				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, NLS.bind("No repository found under {0}", p.removeFirstSegments(1)), null));
-			Repository db = new FileRepository(gitDir);
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(baseLocation, BaseToCloneConverter.CONFIG);
-			ConfigOption configOption = new ConfigOption(cloneLocation, db);
-			OrionServlet.writeJSONResponse(request, response, configOption.toJSON(/* all */));
-			return true;
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(baseLocation, BaseToCloneConverter.CONFIG);
+				ConfigOption configOption = new ConfigOption(cloneLocation, db);
+				OrionServlet.writeJSONResponse(request, response, configOption.toJSON(/* all */));
+				return true;
+			} finally {
+				RepositoryPool.release(db);
+			}
 		} else if (p.segment(1).equals(Clone.RESOURCE) && p.segment(2).equals("file")) { //$NON-NLS-1$
 			// expected path /gitapi/config/{key}/clone/file/{path}
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(2));
 			if (gitDir == null)
 				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, NLS.bind("No repository found under {0}", p.removeFirstSegments(2)), null));
-			Repository db = new FileRepository(gitDir);
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(baseLocation, BaseToCloneConverter.CONFIG_OPTION);
+			Repository db = RepositoryPool.acquire(gitDir);
 			try {
-				ConfigOption configOption = new ConfigOption(cloneLocation, db, p.segment(0));
-				if (!configOption.exists())
-					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, "There is no config entry with key provided", null));
-				OrionServlet.writeJSONResponse(request, response, configOption.toJSON());
-				return true;
-			} catch (IllegalArgumentException e) {
-				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(baseLocation, BaseToCloneConverter.CONFIG_OPTION);
+				try {
+					ConfigOption configOption = new ConfigOption(cloneLocation, db, p.segment(0));
+					if (!configOption.exists())
+						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, "There is no config entry with key provided", null));
+					OrionServlet.writeJSONResponse(request, response, configOption.toJSON());
+					return true;
+				} catch (IllegalArgumentException e) {
+					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
+				}
+			} finally {
+				RepositoryPool.release(db);
 			}
 		}
 		return false;
@@ -104,29 +112,33 @@ public class GitConfigHandlerV1 extends ServletResourceHandler<String> {
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(1));
 			if (gitDir == null)
 				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, NLS.bind("No repository found under {0}", p.removeFirstSegments(1)), null));
-			Repository db = new FileRepository(gitDir);
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.CONFIG);
-			JSONObject toPost = OrionServlet.readJSONRequest(request);
-			String key = toPost.optString(GitConstants.KEY_CONFIG_ENTRY_KEY, null);
-			if (key == null || key.isEmpty())
-				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Config entry key must be provided", null));
-			String value = toPost.optString(GitConstants.KEY_CONFIG_ENTRY_VALUE, null);
-			if (value == null || value.isEmpty())
-				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Config entry value must be provided", null));
+			Repository db = RepositoryPool.acquire(gitDir);
 			try {
-				ConfigOption configOption = new ConfigOption(cloneLocation, db, key);
-				boolean present = configOption.exists();
-				if (present)
-					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_CONFLICT, NLS.bind("Config entry for {0} already exists", key), null));
-				save(configOption, value);
-
-				JSONObject result = configOption.toJSON();
-				OrionServlet.writeJSONResponse(request, response, result);
-				response.setHeader(ProtocolConstants.HEADER_LOCATION, result.getString(ProtocolConstants.KEY_LOCATION));
-				response.setStatus(HttpServletResponse.SC_CREATED);
-				return true;
-			} catch (IllegalArgumentException e) {
-				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.CONFIG);
+				JSONObject toPost = OrionServlet.readJSONRequest(request);
+				String key = toPost.optString(GitConstants.KEY_CONFIG_ENTRY_KEY, null);
+				if (key == null || key.isEmpty())
+					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Config entry key must be provided", null));
+				String value = toPost.optString(GitConstants.KEY_CONFIG_ENTRY_VALUE, null);
+				if (value == null || value.isEmpty())
+					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Config entry value must be provided", null));
+				try {
+					ConfigOption configOption = new ConfigOption(cloneLocation, db, key);
+					boolean present = configOption.exists();
+					if (present)
+						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_CONFLICT, NLS.bind("Config entry for {0} already exists", key), null));
+					save(configOption, value);
+
+					JSONObject result = configOption.toJSON();
+					OrionServlet.writeJSONResponse(request, response, result);
+					response.setHeader(ProtocolConstants.HEADER_LOCATION, result.getString(ProtocolConstants.KEY_LOCATION));
+					response.setStatus(HttpServletResponse.SC_CREATED);
+					return true;
+				} catch (IllegalArgumentException e) {
+					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
+				}
+			} finally {
+				RepositoryPool.release(db);
 			}
 		}
 		return false;
@@ -139,30 +151,34 @@ public class GitConfigHandlerV1 extends ServletResourceHandler<String> {
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(2));
 			if (gitDir == null)
 				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, NLS.bind("No repository found under {0}", p.removeFirstSegments(2)), null));
-			Repository db = new FileRepository(gitDir);
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.CONFIG_OPTION);
+			Repository db = RepositoryPool.acquire(gitDir);
 			try {
-				ConfigOption configOption = new ConfigOption(cloneLocation, db, p.segment(0));
-
-				JSONObject toPut = OrionServlet.readJSONRequest(request);
-				String value = toPut.optString(GitConstants.KEY_CONFIG_ENTRY_VALUE, null);
-				if (value == null || value.isEmpty())
-					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Config entry value must be provided", null));
-
-				// PUT allows only to modify existing config entries
-				if (!configOption.exists()) {
-					response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.CONFIG_OPTION);
+				try {
+					ConfigOption configOption = new ConfigOption(cloneLocation, db, p.segment(0));
+
+					JSONObject toPut = OrionServlet.readJSONRequest(request);
+					String value = toPut.optString(GitConstants.KEY_CONFIG_ENTRY_VALUE, null);
+					if (value == null || value.isEmpty())
+						return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Config entry value must be provided", null));
+
+					// PUT allows only to modify existing config entries
+					if (!configOption.exists()) {
+						response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+						return true;
+					}
+
+					save(configOption, value);
+
+					JSONObject result = configOption.toJSON();
+					OrionServlet.writeJSONResponse(request, response, result);
+					response.setHeader(ProtocolConstants.HEADER_LOCATION, result.getString(ProtocolConstants.KEY_LOCATION));
 					return true;
+				} catch (IllegalArgumentException e) {
+					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
 				}
-
-				save(configOption, value);
-
-				JSONObject result = configOption.toJSON();
-				OrionServlet.writeJSONResponse(request, response, result);
-				response.setHeader(ProtocolConstants.HEADER_LOCATION, result.getString(ProtocolConstants.KEY_LOCATION));
-				return true;
-			} catch (IllegalArgumentException e) {
-				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
+			} finally {
+				RepositoryPool.release(db);
 			}
 		}
 		return false;
@@ -175,19 +191,23 @@ public class GitConfigHandlerV1 extends ServletResourceHandler<String> {
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(2));
 			if (gitDir == null)
 				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, NLS.bind("No repository found under {0}", p.removeFirstSegments(2)), null));
-			Repository db = new FileRepository(gitDir);
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.CONFIG_OPTION);
+			Repository db = RepositoryPool.acquire(gitDir);
 			try {
-				ConfigOption configOption = new ConfigOption(cloneLocation, db, p.segment(0));
-				if (configOption.exists()) {
-					delete(configOption);
-					response.setStatus(HttpServletResponse.SC_OK);
-				} else {
-					response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.CONFIG_OPTION);
+				try {
+					ConfigOption configOption = new ConfigOption(cloneLocation, db, p.segment(0));
+					if (configOption.exists()) {
+						delete(configOption);
+						response.setStatus(HttpServletResponse.SC_OK);
+					} else {
+						response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+					}
+					return true;
+				} catch (IllegalArgumentException e) {
+					return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
 				}
-				return true;
-			} catch (IllegalArgumentException e) {
-				return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), e));
+			} finally {
+				RepositoryPool.release(db);
 			}
 		}
 		return false;
@@ -23,13 +23,13 @@ import org.eclipse.jgit.api.ResetCommand.ResetType;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.NoFilepatternException;
 import org.eclipse.jgit.lib.*;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.orion.internal.server.core.IOUtilities;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
 import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.git.GitConstants;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.objects.Index;
 import org.eclipse.orion.server.git.servlets.GitUtils.Traverse;
 import org.eclipse.orion.server.servlets.OrionServlet;
@@ -62,7 +62,7 @@ public class GitIndexHandlerV1 extends ServletResourceHandler<String> {
 			File gitDir = set.iterator().next().getValue();
 			if (gitDir == null)
 				return false; // TODO: or an error response code, 405?
-			db = new FileRepository(gitDir);
+			db = RepositoryPool.acquire(gitDir);
 			switch (getMethod(request)) {
 				case GET :
 					return handleGet(request, response, db, GitUtils.getRelativePath(p, set.iterator().next().getKey()));
@@ -79,8 +79,7 @@ public class GitIndexHandlerV1 extends ServletResourceHandler<String> {
 			LogHelper.log(status);
 			return statusHandler.handleRequest(request, response, status);
 		} finally {
-			if (db != null)
-				db.close();
+			RepositoryPool.release(db);
 		}
 		return false;
 	}
@@ -140,6 +139,8 @@ public class GitIndexHandlerV1 extends ServletResourceHandler<String> {
 						// "git reset --{type} HEAD ."
 						try {
 							git.reset().setMode(type).setRef(ref).call();
+							if (type == ResetType.HARD)
+								GitUtils.fireWorkTreeChanged(db);
 						} catch (GitAPIException e) {
 							statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage(), e));
 						}
@@ -20,7 +20,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jgit.lib.*;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.jgit.transport.*;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
@@ -67,19 +66,23 @@ public class GitRemoteHandlerV1 extends ServletResourceHandler<String> {
 		if (p.segment(0).equals("file")) { //$NON-NLS-1$
 			// /git/remote/file/{path}
 			File gitDir = GitUtils.getGitDir(p);
-			Repository db = new FileRepository(gitDir);
-			Set<String> configNames = db.getConfig().getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION);
-			JSONObject result = new JSONObject();
-			JSONArray children = new JSONArray();
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.REMOTE_LIST);
-			for (String configName : configNames) {
-				Remote remote = new Remote(cloneLocation, db, configName);
-				children.put(remote.toJSON(false));
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				Set<String> configNames = db.getConfig().getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION);
+				JSONObject result = new JSONObject();
+				JSONArray children = new JSONArray();
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.REMOTE_LIST);
+				for (String configName : configNames) {
+					Remote remote = new Remote(cloneLocation, db, configName);
+					children.put(remote.toJSON(false));
+				}
+				result.put(ProtocolConstants.KEY_CHILDREN, children);
+				result.put(ProtocolConstants.KEY_TYPE, Remote.TYPE);
+				OrionServlet.writeJSONResponse(request, response, result);
+				return true;
+			} finally {
+				RepositoryPool.release(db);
 			}
-			result.put(ProtocolConstants.KEY_CHILDREN, children);
-			result.put(ProtocolConstants.KEY_TYPE, Remote.TYPE);
-			OrionServlet.writeJSONResponse(request, response, result);
-			return true;
 		} else if (p.segment(1).equals("file")) { //$NON-NLS-1$
 			// /git/remote/{remote}/file/{path}
 			RemoteDetailsJob job;
@@ -97,18 +100,22 @@ public class GitRemoteHandlerV1 extends ServletResourceHandler<String> {
 		} else if (p.segment(2).equals("file")) { //$NON-NLS-1$
 			// /git/remote/{remote}/{branch}/file/{path}
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(2));
-			Repository db = new FileRepository(gitDir);
-			URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.REMOTE_BRANCH);
-			Remote remote = new Remote(cloneLocation, db, p.segment(0));
-			RemoteBranch remoteBranch = new RemoteBranch(cloneLocation, db, remote, p.segment(1));
-			if (remoteBranch.exists()) {
-				JSONObject result = remoteBranch.toJSON();
-				OrionServlet.writeJSONResponse(request, response, result);
-				return true;
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.REMOTE_BRANCH);
+				Remote remote = new Remote(cloneLocation, db, p.segment(0));
+				RemoteBranch remoteBranch = new RemoteBranch(cloneLocation, db, remote, p.segment(1));
+				if (remoteBranch.exists()) {
+					JSONObject result = remoteBranch.toJSON();
+					OrionServlet.writeJSONResponse(request, response, result);
+					return true;
+				}
+				JSONObject errorData = new JSONObject();
+				errorData.put(GitConstants.KEY_CLONE, cloneLocation);
+				return statusHandler.handleRequest(request, response, new ServerStatus(new Status(IStatus.ERROR, GitActivator.PI_GIT, "No remote branch found: " + p.uptoSegment(2).removeTrailingSeparator()), HttpServletResponse.SC_NOT_FOUND, errorData));
+			} finally {
+				RepositoryPool.release(db);
 			}
-			JSONObject errorData = new JSONObject();
-			errorData.put(GitConstants.KEY_CLONE, cloneLocation);
-			return statusHandler.handleRequest(request, response, new ServerStatus(new Status(IStatus.ERROR, GitActivator.PI_GIT, "No remote branch found: " + p.uptoSegment(2).removeTrailingSeparator()), HttpServletResponse.SC_NOT_FOUND, errorData));
 		}
 		return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_BAD_REQUEST, "Bad request, \"/git/remote/{remote}/{branch}/file/{path}\" expected", null));
 	}
@@ -121,12 +128,16 @@ public class GitRemoteHandlerV1 extends ServletResourceHandler<String> {
 			String remoteName = p.segment(0);
 
 			File gitDir = GitUtils.getGitDir(p.removeFirstSegments(1));
-			Repository db = new FileRepository(gitDir);
-			StoredConfig config = db.getConfig();
-			config.unsetSection(ConfigConstants.CONFIG_REMOTE_SECTION, remoteName);
-			config.save();
-			//TODO: handle result
-			return true;
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				StoredConfig config = db.getConfig();
+				config.unsetSection(ConfigConstants.CONFIG_REMOTE_SECTION, remoteName);
+				config.save();
+				//TODO: handle result
+				return true;
+			} finally {
+				RepositoryPool.release(db);
+			}
 		}
 		return false;
 	}
@@ -177,35 +188,39 @@ public class GitRemoteHandlerV1 extends ServletResourceHandler<String> {
 		String pushRefSpec = toPut.optString(GitConstants.KEY_REMOTE_PUSH_REF, null);
 
 		File gitDir = GitUtils.getGitDir(p);
-		Repository db = new FileRepository(gitDir);
-		StoredConfig config = db.getConfig();
-
-		RemoteConfig rc = new RemoteConfig(config, remoteName);
-		rc.addURI(new URIish(remoteURI));
-		// FetchRefSpec is required, but default version can be generated
-		// if it isn't provided
-		if (fetchRefSpec == null || fetchRefSpec.isEmpty()) {
-			fetchRefSpec = String.format("+refs/heads/*:refs/remotes/%s/*", remoteName); //$NON-NLS-1$
+		Repository db = RepositoryPool.acquire(gitDir);
+		try {
+			StoredConfig config = db.getConfig();
+
+			RemoteConfig rc = new RemoteConfig(config, remoteName);
+			rc.addURI(new URIish(remoteURI));
+			// FetchRefSpec is required, but default version can be generated
+			// if it isn't provided
+			if (fetchRefSpec == null || fetchRefSpec.isEmpty()) {
+				fetchRefSpec = String.format("+refs/heads/*:refs/remotes/%s/*", remoteName); //$NON-NLS-1$
+			}
+			rc.addFetchRefSpec(new RefSpec(fetchRefSpec));
+			// pushURI is optional
+			if (remotePushURI != null && !remotePushURI.isEmpty())
+				rc.addPushURI(new URIish(remotePushURI));
+			// PushRefSpec is optional
+			if (pushRefSpec != null && !pushRefSpec.isEmpty())
+				rc.addPushRefSpec(new RefSpec(pushRefSpec));
+
+			rc.update(config);
+			config.save();
+
+			URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.REMOTE_LIST);
+			Remote remote = new Remote(cloneLocation, db, remoteName);
+			JSONObject result = new JSONObject();
+			result.put(ProtocolConstants.KEY_LOCATION, remote.getLocation());
+			OrionServlet.writeJSONResponse(request, response, result);
+			response.setHeader(ProtocolConstants.HEADER_LOCATION, result.getString(ProtocolConstants.KEY_LOCATION));
+			response.setStatus(HttpServletResponse.SC_CREATED);
+			return true;
+		} finally {
+			RepositoryPool.release(db);
 		}
-		rc.addFetchRefSpec(new RefSpec(fetchRefSpec));
-		// pushURI is optional
-		if (remotePushURI != null && !remotePushURI.isEmpty())
-			rc.addPushURI(new URIish(remotePushURI));
-		// PushRefSpec is optional
-		if (pushRefSpec != null && !pushRefSpec.isEmpty())
-			rc.addPushRefSpec(new RefSpec(pushRefSpec));
-
-		rc.update(config);
-		config.save();
-
-		URI cloneLocation = BaseToCloneConverter.getCloneLocation(getURI(request), BaseToCloneConverter.REMOTE_LIST);
-		Remote remote = new Remote(cloneLocation, db, remoteName);
-		JSONObject result = new JSONObject();
-		result.put(ProtocolConstants.KEY_LOCATION, remote.getLocation());
-		OrionServlet.writeJSONResponse(request, response, result);
-		response.setHeader(ProtocolConstants.HEADER_LOCATION, result.getString(ProtocolConstants.KEY_LOCATION));
-		response.setStatus(HttpServletResponse.SC_CREATED);
-		return true;
 	}
 
 	private boolean fetch(HttpServletRequest request, HttpServletResponse response, GitCredentialsProvider cp, String path, boolean force) throws URISyntaxException, JSONException, IOException, ServletException {
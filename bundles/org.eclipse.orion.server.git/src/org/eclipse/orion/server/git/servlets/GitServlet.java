@@ -15,6 +15,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
+import org.eclipse.orion.internal.server.servlets.task.TaskJobHandler;
 import org.eclipse.orion.server.servlets.OrionServlet;
 
 /*
@@ -34,6 +35,9 @@ public class GitServlet extends OrionServlet {
 
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		//a request suspended while waiting for a git job is answered once it is dispatched again
+		if (TaskJobHandler.resumeTaskJob(req, resp))
+			return;
 		traceRequest(req);
 		String pathInfo = req.getPathInfo();
 		if (gitSerializer.handleRequest(req, resp, pathInfo))
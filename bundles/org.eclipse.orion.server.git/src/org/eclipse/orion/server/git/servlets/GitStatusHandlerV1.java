@@ -20,9 +20,9 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepository;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
 import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.orion.server.git.RepositoryPool;
 import org.eclipse.orion.server.git.objects.Status;
 import org.eclipse.orion.server.git.servlets.GitUtils.Traverse;
 import org.eclipse.orion.server.servlets.OrionServlet;
@@ -51,16 +51,20 @@ public class GitStatusHandlerV1 extends ServletResourceHandler<String> {
 			File gitDir = set.iterator().next().getValue();
 			if (gitDir == null)
 				return false; // TODO: or an error response code, 405?
-			Repository db = new FileRepository(gitDir);
-			Git git = new Git(db);
-			org.eclipse.jgit.api.Status gitStatus = git.status().call();
+			Repository db = RepositoryPool.acquire(gitDir);
+			try {
+				Git git = new Git(db);
+				org.eclipse.jgit.api.Status gitStatus = git.status().call();
 
-			URI baseLocation = getURI(request);
-			String relativePath = GitUtils.getRelativePath(path, set.iterator().next().getKey());
-			IPath basePath = new Path(relativePath);
-			Status status = new Status(baseLocation, db, gitStatus, basePath);
-			OrionServlet.writeJSONResponse(request, response, status.toJSON());
-			return true;
+				URI baseLocation = getURI(request);
+				String relativePath = GitUtils.getRelativePath(path, set.iterator().next().getKey());
+				IPath basePath = new Path(relativePath);
+				Status status = new Status(baseLocation, db, gitStatus, basePath);
+				OrionServlet.writeJSONResponse(request, response, status.toJSON());
+				return true;
+			} finally {
+				RepositoryPool.release(db);
+			}
 
 		} catch (Exception e) {
 			return statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error generating status response", e));
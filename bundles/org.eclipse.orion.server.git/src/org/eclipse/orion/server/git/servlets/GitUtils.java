@@ -18,6 +18,7 @@ import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.util.FS;
 import org.eclipse.orion.internal.server.servlets.Activator;
@@ -34,6 +35,25 @@ public class GitUtils {
 		GO_UP, GO_DOWN, CURRENT
 	}
 
+	/**
+	 * Marks a directory that is known not to be a git repository in the git directory cache.
+	 */
+	private static final File NO_GIT_DIR = new File(""); //$NON-NLS-1$
+	private static final int MAX_CACHED_GIT_DIRS = 10000;
+
+	/**
+	 * Caches the result of probing each directory for a git repository, so that
+	 * resolving the repositories of many files does not probe the file system again
+	 * for the directories they share. Keyed by absolute path, so that a directory and
+	 * everything below it can be invalidated together.
+	 */
+	private static final SortedMap<String, File> gitDirCache = new TreeMap<String, File>();
+	/**
+	 * Incremented on every invalidation, so that a probe that raced with an
+	 * invalidation does not put a stale result into the cache.
+	 */
+	private static long gitDirCacheGeneration;
+
 	/**
 	 * Returns the file representing the Git repository directory for the given 
 	 * file path or any of its parent in the filesystem. If the file doesn't exits,
@@ -58,17 +78,63 @@ public class GitUtils {
 	public static File getGitDir(File file) {
 		if (file.exists()) {
 			while (file != null) {
-				if (RepositoryCache.FileKey.isGitRepository(file, FS.DETECTED)) {
-					return file;
-				} else if (RepositoryCache.FileKey.isGitRepository(new File(file, Constants.DOT_GIT), FS.DETECTED)) {
-					return new File(file, Constants.DOT_GIT);
-				}
+				File gitDir = findGitDir(file);
+				if (gitDir != null)
+					return gitDir;
 				file = file.getParentFile();
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Returns the git directory of the repository at the given directory, or <code>null</code>
+	 * if the directory doesn't exist or is not a repository. The directory may either be
+	 * a git directory itself or contain one.
+	 */
+	private static File findGitDir(File file) {
+		String key = file.getAbsolutePath();
+		long generation;
+		synchronized (gitDirCache) {
+			File cached = gitDirCache.get(key);
+			if (cached != null)
+				return cached == NO_GIT_DIR ? null : cached;
+			generation = gitDirCacheGeneration;
+		}
+		if (!file.exists())
+			return null;
+		File result = null;
+		if (RepositoryCache.FileKey.isGitRepository(file, FS.DETECTED)) {
+			result = file;
+		} else if (RepositoryCache.FileKey.isGitRepository(new File(file, Constants.DOT_GIT), FS.DETECTED)) {
+			result = new File(file, Constants.DOT_GIT);
+		}
+		synchronized (gitDirCache) {
+			if (generation == gitDirCacheGeneration) {
+				if (gitDirCache.size() >= MAX_CACHED_GIT_DIRS)
+					gitDirCache.clear();
+				gitDirCache.put(key, result == null ? NO_GIT_DIR : result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Discards the cached git directories of the given directory and everything below it.
+	 * Must be called whenever a repository is created or deleted under the directory.
+	 * @param directory the directory that has changed
+	 */
+	public static void invalidateGitDirs(File directory) {
+		String key = directory.getAbsolutePath();
+		String prefix = key.endsWith(File.separator) ? key : key + File.separatorChar;
+		synchronized (gitDirCache) {
+			gitDirCacheGeneration++;
+			gitDirCache.remove(key);
+			//all paths below the directory sort between its path followed by the separator and the next character
+			gitDirCache.subMap(prefix, prefix.substring(0, prefix.length() - 1) + (char) (File.separatorChar + 1)).clear();
+		}
+	}
+
 	/**
 	 * Returns the existing git repositories for the given file path, following
 	 * the given traversal rule.
@@ -87,11 +153,9 @@ public class GitUtils {
 		Map<IPath, File> result = new HashMap<IPath, File>();
 		switch (traverse) {
 			case CURRENT :
-				if (RepositoryCache.FileKey.isGitRepository(file, FS.DETECTED)) {
-					result.put(new Path(""), file); //$NON-NLS-1$
-				} else if (RepositoryCache.FileKey.isGitRepository(new File(file, Constants.DOT_GIT), FS.DETECTED)) {
-					result.put(new Path(""), new File(file, Constants.DOT_GIT)); //$NON-NLS-1$
-				}
+				File gitDir = findGitDir(file);
+				if (gitDir != null)
+					result.put(new Path(""), gitDir); //$NON-NLS-1$
 				break;
 			case GO_UP :
 				getGitDirsInParents(file, result);
@@ -107,14 +171,10 @@ public class GitUtils {
 		int levelUp = 0;
 		File workspaceRoot = org.eclipse.orion.internal.server.servlets.Activator.getDefault().getPlatformLocation().toFile();
 		while (file != null && !file.getAbsolutePath().equals(workspaceRoot.getAbsolutePath())) {
-			if (file.exists()) {
-				if (RepositoryCache.FileKey.isGitRepository(file, FS.DETECTED)) {
-					gitDirs.put(getPathForLevelUp(levelUp), file);
-					return;
-				} else if (RepositoryCache.FileKey.isGitRepository(new File(file, Constants.DOT_GIT), FS.DETECTED)) {
-					gitDirs.put(getPathForLevelUp(levelUp), new File(file, Constants.DOT_GIT));
-					return;
-				}
+			File gitDir = findGitDir(file);
+			if (gitDir != null) {
+				gitDirs.put(getPathForLevelUp(levelUp), gitDir);
+				return;
 			}
 			file = file.getParentFile();
 			levelUp++;
@@ -135,11 +195,9 @@ public class GitUtils {
 	 */
 	private static void getGitDirsInChildren(File localFile, IPath path, Map<IPath, File> gitDirs) throws CoreException {
 		if (localFile.exists() && localFile.isDirectory()) {
-			if (RepositoryCache.FileKey.isGitRepository(localFile, FS.DETECTED)) {
-				gitDirs.put(path.addTrailingSeparator(), localFile);
-				return;
-			} else if (RepositoryCache.FileKey.isGitRepository(new File(localFile, Constants.DOT_GIT), FS.DETECTED)) {
-				gitDirs.put(path.addTrailingSeparator(), new File(localFile, Constants.DOT_GIT));
+			File gitDir = findGitDir(localFile);
+			if (gitDir != null) {
+				gitDirs.put(path.addTrailingSeparator(), gitDir);
 				return;
 			}
 			File[] folders = localFile.listFiles(new FileFilter() {
@@ -154,6 +212,16 @@ public class GitUtils {
 		}
 	}
 
+	/**
+	 * Notifies interested parties, such as the search indexer, that files in the
+	 * work tree of the given repository may have been modified by a git operation.
+	 */
+	public static void fireWorkTreeChanged(Repository db) {
+		if (db == null || db.isBare())
+			return;
+		org.eclipse.orion.internal.server.core.Activator.fireFileChanged(EFS.getLocalFileSystem().fromLocalFile(db.getWorkTree()));
+	}
+
 	public static String getRelativePath(IPath filePath, IPath pathToGitRoot) {
 		StringBuilder sb = new StringBuilder();
 		String file = null;
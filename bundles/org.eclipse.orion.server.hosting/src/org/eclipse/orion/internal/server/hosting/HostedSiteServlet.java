@@ -280,15 +280,13 @@ public class HostedSiteServlet extends OrionServlet {
 				handleException(resp, new ServerStatus(IStatus.ERROR, 404, NLS.bind("File not found: {0}", filePath), null));
 				return true;
 			}
+			//headers must be set before the contents are sent
+			addEditHeaders(resp, site, path);
+			addContentTypeHeader(resp, file.getName());
 			if (fileSerializer.handleRequest(req, resp, file)) {
 				//return;
 			}
 			// end copied
-
-			if (file != null) {
-				addEditHeaders(resp, site, path);
-				addContentTypeHeader(resp, file.getName());
-			}
 		}
 		return true;
 	}
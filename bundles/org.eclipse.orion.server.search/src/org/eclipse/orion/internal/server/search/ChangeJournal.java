@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.search;
+
+import java.net.URI;
+import java.util.*;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.orion.internal.server.core.IFileChangeListener;
+
+/**
+ * Records the files and directories modified by the server since the last indexing
+ * pass. The indexer drains the journal and only re-indexes the affected documents,
+ * instead of crawling every project on the server.
+ */
+public class ChangeJournal implements IFileChangeListener {
+	/**
+	 * Pending changes, keyed by store URI so that repeated changes to the same
+	 * file are only indexed once.
+	 */
+	private final Map<URI, IFileStore> changes = new LinkedHashMap<URI, IFileStore>();
+	private final Indexer indexer;
+
+	public ChangeJournal(Indexer indexer) {
+		this.indexer = indexer;
+	}
+
+	/**
+	 * Removes and returns all changes recorded so far.
+	 */
+	public synchronized List<IFileStore> drain() {
+		List<IFileStore> result = new ArrayList<IFileStore>(changes.values());
+		changes.clear();
+		return result;
+	}
+
+	/**
+	 * Puts back changes that were drained but could not be indexed, for example
+	 * because the indexing pass was canceled.
+	 */
+	public synchronized void requeue(List<IFileStore> stores) {
+		for (IFileStore store : stores)
+			changes.put(store.toURI(), store);
+	}
+
+	public void fileChanged(IFileStore store) {
+		synchronized (this) {
+			changes.put(store.toURI(), store);
+		}
+		indexer.changesPending();
+	}
+
+	/**
+	 * Returns whether there are changes that have not yet been indexed.
+	 */
+	public synchronized boolean isEmpty() {
+		return changes.isEmpty();
+	}
+}
@@ -37,10 +37,12 @@ public class IndexPurgeJob extends Job {
 	private static final long DEFAULT_DELAY = 30000;//3 minutes
 	private static final long PAGE_SIZE = 1000;
 	private final SolrServer server;
+	private final IndexWriterQueue writer;
 
-	public IndexPurgeJob(SolrServer server) {
+	public IndexPurgeJob(SolrServer server, IndexWriterQueue writer) {
 		super("Purging Index"); //$NON-NLS-1$
 		this.server = server;
+		this.writer = writer;
 		setSystem(true);
 	}
 
@@ -126,8 +128,8 @@ public class IndexPurgeJob extends Job {
 
 			checkCanceled(monitor);
 			if (listIds.size() > 0) {
-				this.server.deleteById(listIds);
-				this.server.commit();
+				writer.deleteById(listIds);
+				writer.flush();
 			}
 			if (logger.isDebugEnabled())
 				logger.debug("\tPurged: " + listIds.size()); //$NON-NLS-1$
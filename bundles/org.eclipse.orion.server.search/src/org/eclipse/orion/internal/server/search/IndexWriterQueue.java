@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.orion.server.core.LogHelper;
+
+/**
+ * Buffers updates to the search index so they can be sent to the server in batches.
+ * Buffered updates are sent when the buffer becomes too large or too old, or when
+ * {@link #flush()} is called. Commits are throttled so that a commit happens at most
+ * once per {@link #COMMIT_INTERVAL}, rather than once per indexing pass.
+ * <p>
+ * Updates are applied in the order they were queued. The queue is shared by all jobs
+ * that modify the index, and is thread safe.
+ * </p>
+ */
+public class IndexWriterQueue {
+	/**
+	 * The maximum number of documents to buffer before sending them to the server.
+	 */
+	private static final int MAX_BUFFERED_DOCUMENTS = 500;
+	/**
+	 * The maximum time an update is buffered before it is sent to the server.
+	 */
+	private static final long MAX_BUFFER_AGE = 5000;//five seconds
+	/**
+	 * The minimum interval between commits. Updates sent between commits are made
+	 * visible by the server within this interval.
+	 */
+	private static final int COMMIT_INTERVAL = 10000;//ten seconds
+
+	private final SolrServer server;
+	private final List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>();
+	private final List<String> deletedIds = new ArrayList<String>();
+	private final List<String> deleteQueries = new ArrayList<String>();
+	/**
+	 * The time the oldest buffered update was queued, or zero if the buffer is empty.
+	 */
+	private long oldestUpdate = 0;
+	private long lastCommit = 0;
+	private boolean uncommitted = false;
+
+	public IndexWriterQueue(SolrServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * Queues a document to be added to the index, replacing any existing document
+	 * with the same id.
+	 */
+	public synchronized void add(SolrInputDocument doc) {
+		//the server applies deletes after adds within a request, so send pending deletes first
+		if (hasDeletes())
+			send();
+		documents.add(doc);
+		updateQueued();
+	}
+
+	/**
+	 * Commits all pending updates, and blocks until they are visible to searches.
+	 */
+	public synchronized void commit() {
+		send();
+		if (!uncommitted)
+			return;
+		try {
+			server.commit();
+		} catch (Exception e) {
+			handleFailure(e);
+		}
+		lastCommit = System.currentTimeMillis();
+		uncommitted = false;
+	}
+
+	/**
+	 * Queues the removal of the document with the given id.
+	 */
+	public synchronized void deleteById(String id) {
+		deletedIds.add(id);
+		updateQueued();
+	}
+
+	/**
+	 * Queues the removal of the documents with the given ids.
+	 */
+	public synchronized void deleteById(List<String> ids) {
+		deletedIds.addAll(ids);
+		updateQueued();
+	}
+
+	/**
+	 * Queues the removal of all documents matching the given query.
+	 */
+	public synchronized void deleteByQuery(String query) {
+		deleteQueries.add(query);
+		updateQueued();
+	}
+
+	/**
+	 * Sends all buffered updates to the server. The updates are committed if
+	 * no commit has happened within the commit interval, and otherwise become
+	 * visible within the commit interval.
+	 */
+	public synchronized void flush() {
+		send();
+		if (uncommitted && System.currentTimeMillis() - lastCommit >= COMMIT_INTERVAL)
+			commit();
+	}
+
+	private void handleFailure(Throwable t) {
+		LogHelper.log(new Status(IStatus.ERROR, SearchActivator.PI_SEARCH, "Error updating search index", t)); //$NON-NLS-1$
+	}
+
+	private boolean hasDeletes() {
+		return !deletedIds.isEmpty() || !deleteQueries.isEmpty();
+	}
+
+	/**
+	 * Sends all buffered updates to the server as a single request.
+	 */
+	private void send() {
+		if (documents.isEmpty() && !hasDeletes())
+			return;
+		UpdateRequest request = new UpdateRequest();
+		if (!documents.isEmpty())
+			request.add(documents);
+		if (!deletedIds.isEmpty())
+			request.deleteById(deletedIds);
+		for (String query : deleteQueries)
+			request.deleteByQuery(query);
+		request.setCommitWithin(COMMIT_INTERVAL);
+		try {
+			request.process(server);
+			uncommitted = true;
+		} catch (Exception e) {
+			handleFailure(e);
+		} finally {
+			//a failed batch is not retried, the next reconciliation will pick up anything we lost
+			documents.clear();
+			deletedIds.clear();
+			deleteQueries.clear();
+			oldestUpdate = 0;
+		}
+	}
+
+	/**
+	 * Sends the buffered updates if the buffer has become too large or too old.
+	 */
+	private void updateQueued() {
+		long now = System.currentTimeMillis();
+		if (oldestUpdate == 0)
+			oldestUpdate = now;
+		if (documents.size() + deletedIds.size() >= MAX_BUFFERED_DOCUMENTS || now - oldestUpdate >= MAX_BUFFER_AGE)
+			send();
+	}
+}
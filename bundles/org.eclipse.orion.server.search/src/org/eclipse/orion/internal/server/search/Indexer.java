@@ -14,11 +14,10 @@ import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.solr.client.solrj.*;
-import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
-import org.apache.solr.common.SolrInputDocument;
-import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.*;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
@@ -35,7 +34,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The indexer is responsible for keeping the solr/lucene index up to date.
- * It currently does this by naively polling the file system on a periodic basis.
+ * Changes made by the server itself are recorded in a {@link ChangeJournal}, and
+ * the indexer only re-indexes the affected documents. Changes made outside the
+ * server are picked up by a periodic reconciliation pass that crawls the entire
+ * file system. Crawling and content extraction are spread over the threads of an
+ * {@link IndexingPipeline}.
  */
 public class Indexer extends Job {
 
@@ -47,15 +50,80 @@ public class Indexer extends Job {
 	 * The minimum delay between indexing runs when the server is idle.
 	 */
 	private static final long IDLE_DELAY = 300000;//five minutes
+	/**
+	 * The delay between a change being recorded and the change being indexed. Changes
+	 * arriving within this window are indexed in a single pass.
+	 */
+	private static final long CHANGE_DELAY = 2000;//two seconds
+	/**
+	 * The minimum delay between full reconciliation passes over the file system.
+	 */
+	private static final long RECONCILE_DELAY = 3600000;//one hour
 
 	private static final long MAX_SEARCH_SIZE = 300000;//don't index files larger than 300,000 bytes
+	/**
+	 * The number of documents to fetch per query when reading the index state of a project.
+	 */
+	private static final int SNAPSHOT_PAGE_SIZE = 5000;
 	//private static final List<String> IGNORED_FILE_TYPES = Arrays.asList("png", "jpg", "gif", "bmp", "pdf", "tiff", "class", "so", "zip", "jar", "tar");
 	private final List<String> INDEXED_FILE_TYPES;
 	private final SolrServer server;
+	private final IndexWriterQueue writer;
+	private final ChangeJournal journal;
+	private final IndexingPipeline pipeline;
+	/**
+	 * Maps the store URI of each known project to the project. Rebuilt on each reconciliation pass,
+	 * when a change is recorded against a project we don't know about yet, or when a change is
+	 * recorded against the content of a project itself, which is how a rename is reported.
+	 */
+	private Map<URI, IndexedProject> projects = Collections.emptyMap();
+	/**
+	 * The earliest time at which the next reconciliation pass should run. Zero forces
+	 * reconciliation on the next run.
+	 */
+	private volatile long nextReconcile = 0;
+	private volatile boolean wakeRequested = false;
+
+	/**
+	 * A project known to the indexer, along with the information needed to compute
+	 * the server-relative location of the files it contains.
+	 */
+	private static class IndexedProject {
+		final WebProject project;
+		final IFileStore projectStore;
+		final IPath projectLocation;
+		final int projectLocationLength;
+
+		IndexedProject(WebWorkspace workspace, WebProject project, IFileStore projectStore) {
+			this.project = project;
+			this.projectStore = projectStore;
+			String encodedProjectName;
+			try {
+				//project location field is an encoded URI
+				encodedProjectName = new URI(null, project.getName(), null).toString();
+			} catch (URISyntaxException e) {
+				//UTF-8 should never be unsupported
+				throw new RuntimeException(e);
+			}
+			projectLocation = new Path(Activator.LOCATION_FILE_SERVLET).append(workspace.getId()).append(encodedProjectName).addTrailingSeparator();
+			projectLocationLength = projectStore.toURI().toString().length();
+		}
+	}
+
+	/**
+	 * Counters shared by the pipeline tasks of a single indexing pass.
+	 */
+	private static class IndexingPass {
+		final AtomicInteger indexed = new AtomicInteger();
+		final AtomicInteger unmodified = new AtomicInteger();
+	}
 
-	public Indexer(SolrServer server) {
+	public Indexer(SolrServer server, IndexWriterQueue writer) {
 		super("Indexing"); //$NON-NLS-1$
 		this.server = server;
+		this.writer = writer;
+		this.journal = new ChangeJournal(this);
+		this.pipeline = new IndexingPipeline(IndexingPipeline.getConfiguredThreads());
 		setSystem(true);
 		INDEXED_FILE_TYPES = Arrays.asList("css", "js", "html", "txt", "xml", "java", "properties", "php", "htm", "project", "conf", "pl", "sh", "text", "xhtml", "mf", "manifest");
 		Collections.sort(INDEXED_FILE_TYPES);
@@ -67,18 +135,40 @@ public class Indexer extends Job {
 	}
 
 	/**
-	 * Adds all files in the given directory to the provided list.
+	 * Called by the change journal when a new change has been recorded. Wakes up
+	 * a sleeping indexer so the change is indexed promptly.
+	 */
+	void changesPending() {
+		//only wake up once per batch so a steady stream of changes can't postpone indexing indefinitely
+		if (wakeRequested || getState() != Job.SLEEPING)
+			return;
+		wakeRequested = true;
+		wakeUp(CHANGE_DELAY);
+	}
+
+	/**
+	 * Submits the indexing of all files below the given directory to the pipeline. Files
+	 * that are unchanged according to the given snapshot are skipped. If the snapshot
+	 * is <code>null</code>, all files are indexed.
 	 */
-	private void collectFiles(IFileStore dir, List<IFileStore> files) {
+	private void crawl(final IndexedProject indexed, IFileStore dir, final List<String> users, final Map<String, Long> snapshot, final IndexingPass pass, final IProgressMonitor monitor) {
 		try {
 			IFileStore[] children = dir.childStores(EFS.NONE, null);
-			for (IFileStore child : children) {
-				if (!child.getName().startsWith(".")) { //$NON-NLS-1$
-					IFileInfo info = child.fetchInfo();
-					if (info.isDirectory())
-						collectFiles(child, files);
-					else
-						files.add(child);
+			for (final IFileStore child : children) {
+				checkCanceled(monitor);
+				if (child.getName().startsWith(".")) //$NON-NLS-1$
+					continue;
+				final IFileInfo info = child.fetchInfo();
+				if (info.isDirectory()) {
+					pipeline.crawl(new Runnable() {
+						public void run() {
+							crawl(indexed, child, users, snapshot, pass, monitor);
+						}
+					});
+				} else if (snapshot != null && !isModified(child, info, snapshot)) {
+					pass.unmodified.incrementAndGet();
+				} else {
+					indexFile(indexed, child, info, users, pass, monitor);
 				}
 			}
 		} catch (CoreException e) {
@@ -86,20 +176,79 @@ public class Indexer extends Job {
 		}
 	}
 
+	/**
+	 * Creates the search document for the given file, or returns <code>null</code> if the
+	 * file should not be indexed.
+	 */
+	private SolrInputDocument createDocument(IndexedProject indexed, IFileStore file, IFileInfo fileInfo, List<String> users) {
+		String projectName = indexed.project.getName();
+		//Projects with no name are due to an old bug where project metadata was not deleted  see bug 367333.
+		if (projectName == null)
+			return null;
+		SolrInputDocument doc = new SolrInputDocument();
+		doc.addField(ProtocolConstants.KEY_ID, file.toURI().toString());
+		doc.addField(ProtocolConstants.KEY_NAME, fileInfo.getName());
+		doc.addField(ProtocolConstants.KEY_NAME_LOWERCASE, fileInfo.getName());//Lucene will do lower-casing
+		doc.addField(ProtocolConstants.KEY_LENGTH, Long.toString(fileInfo.getLength()));
+		doc.addField(ProtocolConstants.KEY_DIRECTORY, Boolean.toString(fileInfo.isDirectory()));
+		doc.addField(ProtocolConstants.KEY_LAST_MODIFIED, Long.toString(fileInfo.getLastModified()));
+		//we add the server-relative location so the server can be moved without affecting the index
+		String projectRelativePath = file.toURI().toString().substring(indexed.projectLocationLength);
+		IPath fileLocation = indexed.projectLocation.append(projectRelativePath);
+		doc.addField(ProtocolConstants.KEY_LOCATION, fileLocation.toString());
+		doc.addField(ProtocolConstants.KEY_PATH, new Path(projectName).append(projectRelativePath));
+		//don't index body of non-text files
+		if (!skip(fileInfo))
+			doc.addField("Text", getContentsAsString(file, fileInfo)); //$NON-NLS-1$
+		if (users != null)
+			for (String user : users)
+				doc.addField(ProtocolConstants.KEY_USER_NAME, user);
+		return doc;
+	}
+
 	public void ensureUpdated() {
 		schedule(DEFAULT_DELAY);
 	}
 
-	private String getContentsAsString(IFileStore file) {
-		StringWriter writer = new StringWriter();
+	/**
+	 * Returns the project containing the given store, or <code>null</code> if the
+	 * store does not belong to any known project.
+	 */
+	private IndexedProject findProject(IFileStore store) {
+		for (IFileStore current = store; current != null; current = current.getParent()) {
+			IndexedProject result = projects.get(current.toURI());
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the journal recording changes that have not been indexed yet.
+	 */
+	public ChangeJournal getChangeJournal() {
+		return journal;
+	}
+
+	private String getContentsAsString(IFileStore file, IFileInfo fileInfo) {
+		//files are small enough to index, so read them in one go into a buffer of the right size
+		StringBuilder result = new StringBuilder((int) fileInfo.getLength());
+		Reader reader = null;
 		try {
-			IOUtilities.pipe(new InputStreamReader(file.openInputStream(EFS.NONE, null)), writer, true, false);
+			//the server writes files as UTF-8
+			reader = new InputStreamReader(file.openInputStream(EFS.NONE, null), "UTF-8"); //$NON-NLS-1$
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) > 0)
+				result.append(buffer, 0, read);
 		} catch (IOException e) {
 			handleIndexingFailure(e, file);
 		} catch (CoreException e) {
 			handleIndexingFailure(e, file);
+		} finally {
+			IOUtilities.safeClose(reader);
 		}
-		return writer.toString();
+		return result.toString();
 	}
 
 	/**
@@ -117,95 +266,156 @@ public class Indexer extends Job {
 	}
 
 	/**
-	 * Runs an indexer pass over a workspace. Returns the number of documents indexed.
+	 * Indexes the changes recorded in the journal since the last pass. Returns the number of 
+	 * documents indexed.
 	 */
-	private int indexWorkspace(WebWorkspace workspace, SubMonitor monitor, List<SolrInputDocument> documents) {
-		int indexed = 0;
-		for (WebProject project : workspace.getProjects()) {
-			indexed += indexProject(workspace, project, monitor, documents);
-		}
-		return indexed;
-	}
-
-	private int indexProject(WebWorkspace workspace, WebProject project, SubMonitor monitor, List<SolrInputDocument> documents) {
+	private int indexChanges(IProgressMonitor monitor) {
+		List<IFileStore> changes = journal.drain();
+		if (changes.isEmpty())
+			return 0;
 		Logger logger = LoggerFactory.getLogger(Indexer.class);
 		if (logger.isDebugEnabled())
-			logger.debug("Indexing project id: " + project.getId() + " name: " + project.getName()); //$NON-NLS-1$ //$NON-NLS-2$
-		checkCanceled(monitor);
-		IFileStore projectStore;
-		try {
-			projectStore = project.getProjectStore();
-		} catch (CoreException e) {
-			//TODO implement indexing of remote content
-			handleIndexingFailure(e, null);
-			return 0;
-		}
-		String encodedProjectName;
+			logger.debug("Indexing " + changes.size() + " changes"); //$NON-NLS-1$ //$NON-NLS-2$
+		IndexingPass pass = new IndexingPass();
+		boolean refreshed = false;
+		Map<IndexedProject, List<String>> users = new HashMap<IndexedProject, List<String>>();
+		boolean done = false;
 		try {
-			//project location field is an encoded URI
-			encodedProjectName = new URI(null, project.getName(), null).toString();
-		} catch (URISyntaxException e) {
-			//UTF-8 should never be unsupported
-			throw new RuntimeException(e);
+			for (IFileStore store : changes) {
+				checkCanceled(monitor);
+				IFileInfo info = store.fetchInfo();
+				if (!info.exists()) {
+					removeDocuments(store);
+				} else {
+					//the location of every file changes when a project is renamed
+					boolean projectRoot = projects.containsKey(store.toURI());
+					IndexedProject indexedProject = projectRoot ? null : findProject(store);
+					if (indexedProject == null && !refreshed) {
+						//the change may belong to a project created or renamed since the last pass
+						projects = readProjects();
+						refreshed = true;
+					}
+					if (indexedProject == null)
+						indexedProject = findProject(store);
+					//the whole project is crawled again below, so drop the documents with the old locations
+					if (projectRoot)
+						removeDocuments(store);
+					if (indexedProject != null) {
+						List<String> projectUsers = users.get(indexedProject);
+						if (projectUsers == null) {
+							projectUsers = findUsers(indexedProject.projectLocation);
+							users.put(indexedProject, projectUsers);
+						}
+						indexStore(indexedProject, store, info, projectUsers, pass, monitor);
+					}
+				}
+			}
+			pipeline.waitForIdle(monitor);
+			done = true;
+		} finally {
+			//don't lose changes we didn't get to. Re-indexing a change twice is harmless
+			if (!done)
+				journal.requeue(changes);
+			writer.flush();
 		}
-		IPath projectLocation = new Path(Activator.LOCATION_FILE_SERVLET).append(workspace.getId()).append(encodedProjectName).addTrailingSeparator();
-		//gather all files
-		int projectLocationLength = projectStore.toURI().toString().length();
-		final List<IFileStore> toIndex = new ArrayList<IFileStore>();
-		collectFiles(projectStore, toIndex);
-		int unmodifiedCount = 0, indexedCount = 0;
-		//add each file to the index
-		List<String> users = findUsers(projectLocation);
-		for (IFileStore file : toIndex) {
-			checkCanceled(monitor);
-			IFileInfo fileInfo = file.fetchInfo();
-			if (!isModified(file, fileInfo)) {
-				unmodifiedCount++;
-				continue;
+		return pass.indexed.get();
+	}
+
+	/**
+	 * Creates the document for a single file and queues it for the index. Content
+	 * extraction runs on the pipeline.
+	 */
+	private void indexFile(final IndexedProject indexed, final IFileStore file, final IFileInfo fileInfo, final List<String> users, final IndexingPass pass, final IProgressMonitor monitor) {
+		pipeline.extract(new Runnable() {
+			public void run() {
+				checkCanceled(monitor);
+				SolrInputDocument doc = createDocument(indexed, file, fileInfo, users);
+				if (doc == null)
+					return;
+				writer.add(doc);
+				pass.indexed.incrementAndGet();
 			}
-			indexedCount++;
-			SolrInputDocument doc = new SolrInputDocument();
-			doc.addField(ProtocolConstants.KEY_ID, file.toURI().toString());
-			doc.addField(ProtocolConstants.KEY_NAME, fileInfo.getName());
-			doc.addField(ProtocolConstants.KEY_NAME_LOWERCASE, fileInfo.getName());//Lucene will do lower-casing
-			doc.addField(ProtocolConstants.KEY_LENGTH, Long.toString(fileInfo.getLength()));
-			doc.addField(ProtocolConstants.KEY_DIRECTORY, Boolean.toString(fileInfo.isDirectory()));
-			doc.addField(ProtocolConstants.KEY_LAST_MODIFIED, Long.toString(fileInfo.getLastModified()));
-			//we add the server-relative location so the server can be moved without affecting the index
-			String projectRelativePath = file.toURI().toString().substring(projectLocationLength);
-			IPath fileLocation = projectLocation.append(projectRelativePath);
-			doc.addField(ProtocolConstants.KEY_LOCATION, fileLocation.toString());
-			String projectName = project.getName();
-			//Projects with no name are due to an old bug where project metadata was not deleted  see bug 367333.
-			if (projectName == null)
+		});
+	}
+
+	/**
+	 * Submits an indexer pass over a workspace to the pipeline.
+	 */
+	private void indexWorkspace(WebWorkspace workspace, IndexingPass pass, IProgressMonitor monitor, Map<URI, IndexedProject> found) {
+		for (WebProject project : workspace.getProjects()) {
+			checkCanceled(monitor);
+			IndexedProject indexedProject = toIndexedProject(workspace, project);
+			if (indexedProject == null)
 				continue;
-			doc.addField(ProtocolConstants.KEY_PATH, new Path(projectName).append(projectRelativePath));
-			//don't index body of non-text files
-			if (!skip(fileInfo))
-				doc.addField("Text", getContentsAsString(file)); //$NON-NLS-1$
-			if (users != null)
-				for (String user : users)
-					doc.addField(ProtocolConstants.KEY_USER_NAME, user);
-			try {
-				server.add(doc);
-			} catch (Exception e) {
-				handleIndexingFailure(e, file);
-			}
-		}
-		try {
-			server.commit();
-		} catch (Exception e) {
-			handleIndexingFailure(e, null);
+			found.put(indexedProject.projectStore.toURI(), indexedProject);
+			indexProject(indexedProject, pass, monitor);
 		}
-		if (logger.isDebugEnabled())
-			logger.debug("\tIndexed: " + indexedCount + " Unchanged:  " + unmodifiedCount); //$NON-NLS-1$ //$NON-NLS-2$
-		return indexedCount;
+	}
+
+	private void indexProject(final IndexedProject indexed, final IndexingPass pass, final IProgressMonitor monitor) {
+		pipeline.crawl(new Runnable() {
+			public void run() {
+				WebProject project = indexed.project;
+				Logger logger = LoggerFactory.getLogger(Indexer.class);
+				if (logger.isDebugEnabled())
+					logger.debug("Indexing project id: " + project.getId() + " name: " + project.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+				checkCanceled(monitor);
+				//read the index state of the whole project at once, rather than querying for each file
+				Map<String, Long> snapshot = readSnapshot(indexed);
+				List<String> users = findUsers(indexed.projectLocation);
+				crawl(indexed, indexed.projectStore, users, snapshot, pass, monitor);
+			}
+		});
+	}
+
+	/**
+	 * Indexes a single changed file, or all files below a changed directory.
+	 */
+	private void indexStore(IndexedProject indexed, IFileStore store, IFileInfo info, List<String> users, IndexingPass pass, IProgressMonitor monitor) {
+		//a directory change may be a rename, so we can't skip unmodified files here
+		if (info.isDirectory())
+			crawl(indexed, store, users, null, pass, monitor);
+		else if (!store.getName().startsWith(".")) //$NON-NLS-1$
+			indexFile(indexed, store, info, users, pass, monitor);
 	}
 
 	private List<String> findUsers(IPath projectLocation) {
 		return AuthorizationService.findUserWithRights(projectLocation.toString());
 	}
 
+	/**
+	 * Returns all projects on the server, keyed by the URI of their content store.
+	 */
+	private Map<URI, IndexedProject> readProjects() {
+		Map<URI, IndexedProject> result = new HashMap<URI, IndexedProject>();
+		for (WebWorkspace workspace : WebWorkspace.allWorkspaces()) {
+			for (WebProject project : workspace.getProjects()) {
+				IndexedProject indexed = toIndexedProject(workspace, project);
+				if (indexed != null)
+					result.put(indexed.projectStore.toURI(), indexed);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the documents for the given file, or for all files below the given directory.
+	 */
+	private void removeDocuments(IFileStore store) {
+		String id = store.toURI().toString();
+		writer.deleteById(id);
+		//the store may have been a directory, so remove anything below it as well
+		String prefix = id.endsWith("/") ? id : id + '/'; //$NON-NLS-1$
+		writer.deleteByQuery(ProtocolConstants.KEY_ID + ':' + ClientUtils.escapeQueryChars(prefix) + '*');
+	}
+
+	/**
+	 * Requests that the next indexing pass reconciles the index with the entire file system.
+	 */
+	public void requestReconcile() {
+		nextReconcile = 0;
+	}
+
 	private boolean skip(IFileInfo fileInfo) {
 		if (fileInfo.getLength() > MAX_SEARCH_SIZE)
 			return true;
@@ -216,25 +426,65 @@ public class Indexer extends Job {
 		return false;
 	}
 
-	private boolean isModified(IFileStore file, IFileInfo fileInfo) {
+	/**
+	 * Returns the indexer representation of the given project, or <code>null</code>
+	 * if the project content cannot be indexed.
+	 */
+	private IndexedProject toIndexedProject(WebWorkspace workspace, WebProject project) {
+		if (project.getName() == null)
+			return null;
+		try {
+			return new IndexedProject(workspace, project, project.getProjectStore());
+		} catch (CoreException e) {
+			//TODO implement indexing of remote content
+			handleIndexingFailure(e, null);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the given file has changed since it was last indexed, according
+	 * to the provided snapshot of the index.
+	 */
+	private boolean isModified(IFileStore file, IFileInfo fileInfo, Map<String, Long> snapshot) {
+		//if there is no match, then the file last modified doesn't match last index so assume it was modified
+		Long indexedModified = snapshot.get(file.toURI().toString());
+		return indexedModified == null || indexedModified.longValue() != fileInfo.getLastModified();
+	}
+
+	/**
+	 * Reads the id and last modified time of every document indexed for the given project.
+	 * The result maps document ids to last modified times. Returns an empty map if the
+	 * index could not be read, in which case all files of the project are re-indexed.
+	 */
+	private Map<String, Long> readSnapshot(IndexedProject indexed) {
+		Map<String, Long> snapshot = new HashMap<String, Long>();
+		String prefix = indexed.projectStore.toURI().toString();
+		if (!prefix.endsWith("/")) //$NON-NLS-1$
+			prefix += '/';
+		SolrQuery query = new SolrQuery(ProtocolConstants.KEY_ID + ':' + ClientUtils.escapeQueryChars(prefix) + '*');
+		query.setFields(ProtocolConstants.KEY_ID, ProtocolConstants.KEY_LAST_MODIFIED);
+		query.setRows(SNAPSHOT_PAGE_SIZE);
 		try {
-			//if there is no match, then the file last modified doesn't match last index so assume it was modified
-			StringBuffer qString = new StringBuffer(ProtocolConstants.KEY_ID);
-			qString.append(':');
-			qString.append(ClientUtils.escapeQueryChars(file.toURI().toString()));
-			qString.append(" AND "); //$NON-NLS-1$
-			qString.append(ProtocolConstants.KEY_LAST_MODIFIED);
-			qString.append(':');
-			qString.append(Long.toString(fileInfo.getLastModified()));
-			SolrQuery query = new SolrQuery(qString.toString());
-			query.setParam(CommonParams.FL, ProtocolConstants.KEY_ID);
-			QueryResponse response = server.query(query);
-			return response.getResults().getNumFound() == 0;
+			long start = 0;
+			while (true) {
+				query.setStart((int) start);
+				SolrDocumentList page = server.query(query).getResults();
+				for (SolrDocument doc : page) {
+					Object lastModified = doc.getFieldValue(ProtocolConstants.KEY_LAST_MODIFIED);
+					if (lastModified instanceof Number)
+						snapshot.put((String) doc.getFieldValue(ProtocolConstants.KEY_ID), Long.valueOf(((Number) lastModified).longValue()));
+				}
+				start += SNAPSHOT_PAGE_SIZE;
+				if (page.isEmpty() || start >= page.getNumFound())
+					break;
+			}
 		} catch (SolrServerException e) {
-			handleIndexingFailure(e, file);
+			handleIndexingFailure(e, indexed.projectStore);
 			//attempt to re-index
-			return true;
+			snapshot.clear();
 		}
+		return snapshot;
 	}
 
 	private void checkCanceled(IProgressMonitor monitor) {
@@ -242,25 +492,63 @@ public class Indexer extends Job {
 			throw new OperationCanceledException();
 	}
 
-	@Override
-	protected IStatus run(IProgressMonitor monitor) {
+	/**
+	 * Runs an indexer pass over the entire file system. Returns the number of documents indexed.
+	 */
+	private int reconcile(IProgressMonitor monitor) {
 		long start = System.currentTimeMillis();
 		List<WebWorkspace> workspaces = WebWorkspace.allWorkspaces();
-		SubMonitor progress = SubMonitor.convert(monitor, workspaces.size());
-		List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>();
-		int indexed = 0;
-		for (WebWorkspace workspace : workspaces) {
-			indexed += indexWorkspace(workspace, progress.newChild(1), documents);
+		Map<URI, IndexedProject> found = new HashMap<URI, IndexedProject>();
+		IndexingPass pass = new IndexingPass();
+		try {
+			for (WebWorkspace workspace : workspaces)
+				indexWorkspace(workspace, pass, monitor, found);
+			pipeline.waitForIdle(monitor);
+		} finally {
+			writer.flush();
 		}
+		projects = found;
 		long duration = System.currentTimeMillis() - start;
 		Logger logger = LoggerFactory.getLogger(Indexer.class);
 		if (logger.isDebugEnabled())
-			logger.debug("Indexed " + workspaces.size() + " workspaces  in " + duration + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			logger.debug("Indexed " + workspaces.size() + " workspaces  in " + duration + "ms. Indexed: " + pass.indexed.get() + " Unchanged: " + pass.unmodified.get()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		//throttle so reconciliation never runs more than 10% of the time
+		nextReconcile = System.currentTimeMillis() + Math.max(RECONCILE_DELAY, duration * 10);
+		return pass.indexed.get();
+	}
+
+	/**
+	 * Shuts down the threads used by the indexer. The indexer must not be scheduled again
+	 * after this method is called.
+	 */
+	public void shutdown() {
+		pipeline.shutdown();
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		wakeRequested = false;
+		long start = System.currentTimeMillis();
+		int indexed;
+		if (start >= nextReconcile) {
+			//changes recorded so far are covered by the full pass
+			journal.drain();
+			indexed = reconcile(monitor);
+		} else {
+			indexed = indexChanges(monitor);
+		}
+		long duration = System.currentTimeMillis() - start;
 		//reschedule the indexing - throttle so the job never runs more than 10% of the time
 		long delay = Math.max(DEFAULT_DELAY, duration * 10);
 		//if there was nothing to index then back off for awhile
 		if (indexed == 0)
 			delay = Math.max(delay, IDLE_DELAY);
+		//don't sleep past the next reconciliation
+		delay = Math.max(0, Math.min(delay, nextReconcile - System.currentTimeMillis()));
+		//changes recorded while we were running should be picked up promptly
+		if (!journal.isEmpty())
+			delay = Math.min(delay, CHANGE_DELAY);
+		Logger logger = LoggerFactory.getLogger(Indexer.class);
 		if (logger.isDebugEnabled())
 			logger.debug("Rescheduling indexing in " + delay + "ms"); //$NON-NLS-1$//$NON-NLS-2$
 		schedule(delay);
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.search;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.orion.server.core.LogHelper;
+import org.eclipse.orion.server.core.PreferenceHelper;
+import org.eclipse.orion.server.core.ServerConstants;
+
+/**
+ * Runs the stages of an indexing pass on bounded thread pools. Directories are
+ * crawled on one pool, and file contents are read and turned into search documents
+ * on another. Finished documents are handed to the shared {@link IndexWriterQueue},
+ * which sends them to the server in batches.
+ * <p>
+ * The work queue of each pool is bounded. When a queue is full, the submitting
+ * thread runs the task itself, so a fast crawl can't get arbitrarily far ahead of
+ * content extraction.
+ * </p>
+ */
+public class IndexingPipeline {
+	/**
+	 * The number of pending tasks each pool can hold per thread before submitters
+	 * have to run tasks themselves.
+	 */
+	private static final int QUEUED_TASKS_PER_THREAD = 64;
+	/**
+	 * How often a waiting indexer checks its progress monitor for cancelation.
+	 */
+	private static final long CANCEL_POLL_INTERVAL = 200;
+
+	private final ThreadPoolExecutor crawlers;
+	private final ThreadPoolExecutor extractors;
+	/**
+	 * The number of submitted tasks that have not completed yet.
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+	private final Object idleLock = new Object();
+
+	/**
+	 * Returns the number of threads to use for each indexing stage, as configured by
+	 * {@link ServerConstants#CONFIG_SEARCH_INDEXER_THREADS}. Defaults to the number of
+	 * available processors.
+	 */
+	static int getConfiguredThreads() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return Math.max(1, PreferenceHelper.getInt(ServerConstants.CONFIG_SEARCH_INDEXER_THREADS, processors));
+	}
+
+	public IndexingPipeline(int threads) {
+		crawlers = createPool("Orion Search Crawler", threads); //$NON-NLS-1$
+		extractors = createPool("Orion Search Indexer", threads); //$NON-NLS-1$
+	}
+
+	private ThreadPoolExecutor createPool(final String name, int threads) {
+		ThreadFactory factory = new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name + ' ' + count.incrementAndGet());
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		};
+		BlockingQueue<Runnable> queue = new ArrayBlockingQueue<Runnable>(threads * QUEUED_TASKS_PER_THREAD);
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, factory, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Submits a directory crawl. The task may be run on the calling thread if the
+	 * crawl stage is saturated.
+	 */
+	public void crawl(Runnable task) {
+		submit(crawlers, task);
+	}
+
+	/**
+	 * Submits the extraction of a file's contents. The task may be run on the calling
+	 * thread if the extraction stage is saturated.
+	 */
+	public void extract(Runnable task) {
+		submit(extractors, task);
+	}
+
+	/**
+	 * Shuts down the pipeline. Tasks that have not started yet are discarded.
+	 */
+	public void shutdown() {
+		crawlers.shutdownNow();
+		extractors.shutdownNow();
+	}
+
+	private void submit(ThreadPoolExecutor pool, final Runnable task) {
+		pending.incrementAndGet();
+		try {
+			pool.execute(new Runnable() {
+				public void run() {
+					try {
+						task.run();
+					} catch (OperationCanceledException e) {
+						//the pass was canceled, the indexer will notice when it wakes up
+					} catch (RuntimeException e) {
+						LogHelper.log(new Status(IStatus.ERROR, SearchActivator.PI_SEARCH, "Error during search indexing", e)); //$NON-NLS-1$
+					} finally {
+						taskDone();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			//the pipeline has been shut down
+			taskDone();
+		}
+	}
+
+	private void taskDone() {
+		if (pending.decrementAndGet() == 0) {
+			synchronized (idleLock) {
+				idleLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Blocks until all submitted tasks have completed. Running tasks are expected to
+	 * check the same monitor and stop early when it is canceled.
+	 *
+	 * @throws OperationCanceledException if the monitor is canceled while waiting
+	 */
+	public void waitForIdle(IProgressMonitor monitor) {
+		synchronized (idleLock) {
+			while (pending.get() > 0) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				try {
+					idleLock.wait(CANCEL_POLL_INTERVAL);
+				} catch (InterruptedException e) {
+					throw new OperationCanceledException();
+				}
+			}
+		}
+	}
+}
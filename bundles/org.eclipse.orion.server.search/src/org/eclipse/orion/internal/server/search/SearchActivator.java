@@ -19,6 +19,7 @@ import org.apache.solr.core.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.orion.internal.server.core.IFileChangeListener;
 import org.eclipse.orion.internal.server.core.IOUtilities;
 import org.eclipse.orion.internal.server.core.IWebResourceDecorator;
 import org.eclipse.orion.internal.server.servlets.Activator;
@@ -35,7 +36,7 @@ public class SearchActivator implements BundleActivator, IWebResourceDecorator {
 	 * version should be incremented whenever there are breaking changes to the
 	 * indexing schema or format.
 	 */
-	private static final int CURRENT_INDEX_GENERATION = 14;
+	private static final int CURRENT_INDEX_GENERATION = 15;
 
 	private static final String INDEX_GENERATION_FILE = "index.generation";//$NON-NLS-1$
 	private static SearchActivator instance;
@@ -47,7 +48,9 @@ public class SearchActivator implements BundleActivator, IWebResourceDecorator {
 	private Indexer indexer;
 	private IndexPurgeJob purgeJob;
 	private ServiceRegistration<IWebResourceDecorator> searchDecoratorRegistration;
+	private ServiceRegistration<IFileChangeListener> changeJournalRegistration;
 	private SolrServer server;
+	private IndexWriterQueue writer;
 	private SolrCore solrCore;
 	private CoreContainer solrContainer;
 
@@ -147,7 +150,7 @@ public class SearchActivator implements BundleActivator, IWebResourceDecorator {
 		}
 	}
 
-	SolrServer getSolrServer() {
+	public SolrServer getSolrServer() {
 		return server;
 	}
 
@@ -188,10 +191,12 @@ public class SearchActivator implements BundleActivator, IWebResourceDecorator {
 		SearchActivator.context = bundleContext;
 		createServer();
 		if (server != null) {
-			indexer = new Indexer(server);
+			writer = new IndexWriterQueue(server);
+			indexer = new Indexer(server, writer);
 			indexer.schedule();
+			changeJournalRegistration = context.registerService(IFileChangeListener.class, indexer.getChangeJournal(), null);
 
-			purgeJob = new IndexPurgeJob(server);
+			purgeJob = new IndexPurgeJob(server, writer);
 			purgeJob.schedule();
 		}
 		searchDecoratorRegistration = context.registerService(IWebResourceDecorator.class, this, null);
@@ -205,20 +210,32 @@ public class SearchActivator implements BundleActivator, IWebResourceDecorator {
 	 */
 	public void stop(BundleContext bundleContext) throws Exception {
 		searchDecoratorRegistration.unregister();
-		if (solrContainer != null) {
-			solrContainer.shutdown();
-			solrContainer = null;
+		if (changeJournalRegistration != null) {
+			changeJournalRegistration.unregister();
+			changeJournalRegistration = null;
 		}
-		if (indexer != null) {
+		if (indexer != null)
 			indexer.cancel();
-			indexer = null;
-		}
 		if (purgeJob != null) {
 			purgeJob.cancel();
 			purgeJob = null;
 		}
 		//wait for all indexing jobs to complete
 		Job.getJobManager().join(JOB_FAMILY, null);
+		//the pipeline threads finish once the canceled indexer stops waiting for them
+		if (indexer != null) {
+			indexer.shutdown();
+			indexer = null;
+		}
+		//write out anything the jobs left in the queue before shutting down the server
+		if (writer != null) {
+			writer.commit();
+			writer = null;
+		}
+		if (solrContainer != null) {
+			solrContainer.shutdown();
+			solrContainer = null;
+		}
 		SearchActivator.context = null;
 	}
 
@@ -242,10 +259,14 @@ public class SearchActivator implements BundleActivator, IWebResourceDecorator {
 	 */
 	public void testWaitForIndex() {
 		try {
+			//tests expect everything on disk to be indexed, not just recorded changes
+			indexer.requestReconcile();
 			//cancel to wake up a sleeping indexer
 			indexer.cancel();
 			indexer.schedule();
 			indexer.join();
+			//make the results of the run visible to searches right away
+			writer.commit();
 		} catch (InterruptedException e) {
 			//just return
 		}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.search;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Fieldable;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrRequestHandler;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.*;
+import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
+import org.json.JSONObject;
+
+/**
+ * Runs a search against the embedded search core and writes the result as JSON.
+ * Matching documents are loaded from the index one at a time as they are written,
+ * so the size of a response does not determine the memory needed to produce it.
+ * The output has the same form as the JSON response writer of the core.
+ */
+public class SearchResultWriter {
+	private final SolrCore core;
+	private final Set<String> fields;
+
+	/**
+	 * @param core the core to search
+	 * @param fields the stored fields to write for each document
+	 */
+	public SearchResultWriter(SolrCore core, Collection<String> fields) {
+		this.core = core;
+		this.fields = new HashSet<String>(fields);
+	}
+
+	/**
+	 * Runs the query and writes the response to the given writer.
+	 *
+	 * @param query the query to run
+	 * @param userQuery the query string to report in the response header, in place of the
+	 * query actually run. This hides the user restriction added by the servlet.
+	 * @param contextPath the servlet context path to prepend to document locations
+	 * @param out the writer to write the response to
+	 * @throws SolrServerException if the search failed
+	 */
+	public void write(SolrParams query, String userQuery, String contextPath, Writer out) throws SolrServerException, IOException {
+		LocalSolrQueryRequest request = new LocalSolrQueryRequest(core, query);
+		try {
+			SolrQueryResponse response = new SolrQueryResponse();
+			SolrRequestHandler handler = core.getRequestHandler(query.get(CommonParams.QT));
+			if (handler == null)
+				throw new SolrServerException("Unknown request handler: " + query.get(CommonParams.QT)); //$NON-NLS-1$
+			core.execute(handler, request, response);
+			if (response.getException() != null)
+				throw new SolrServerException(response.getException());
+			out.write("{\"responseHeader\":"); //$NON-NLS-1$
+			writeHeader(response, query, userQuery, out);
+			out.write(",\"response\":"); //$NON-NLS-1$
+			Object results = response.getValues().get("response"); //$NON-NLS-1$
+			if (results instanceof DocList)
+				writeDocuments((DocList) results, request.getSearcher(), contextPath, out);
+			else
+				out.write("{\"numFound\":0,\"start\":0,\"docs\":[]}"); //$NON-NLS-1$
+			out.write('}');
+		} finally {
+			request.close();
+		}
+	}
+
+	private void writeDocument(Document doc, IndexSchema schema, String contextPath, Writer out) throws IOException {
+		out.write('{');
+		boolean first = true;
+		for (Fieldable field : doc.getFields()) {
+			SchemaField schemaField = schema.getFieldOrNull(field.name());
+			if (schemaField == null)
+				continue;
+			if (!first)
+				out.write(',');
+			first = false;
+			out.write(JSONObject.quote(field.name()));
+			out.write(':');
+			Object value = schemaField.getType().toObject(field);
+			if (ProtocolConstants.KEY_LOCATION.equals(field.name()) && value instanceof String)
+				value = contextPath + value;
+			writeValue(value, out);
+		}
+		out.write('}');
+	}
+
+	private void writeDocuments(DocList docs, SolrIndexSearcher searcher, String contextPath, Writer out) throws IOException {
+		out.write("{\"numFound\":"); //$NON-NLS-1$
+		out.write(Integer.toString(docs.matches()));
+		out.write(",\"start\":"); //$NON-NLS-1$
+		out.write(Integer.toString(docs.offset()));
+		out.write(",\"docs\":["); //$NON-NLS-1$
+		IndexSchema schema = searcher.getSchema();
+		DocIterator iterator = docs.iterator();
+		boolean first = true;
+		while (iterator.hasNext()) {
+			if (!first)
+				out.write(',');
+			first = false;
+			//load each document just before writing it, rather than the whole page up front
+			writeDocument(searcher.doc(iterator.nextDoc(), fields), schema, contextPath, out);
+		}
+		out.write("]}"); //$NON-NLS-1$
+	}
+
+	private void writeHeader(SolrQueryResponse response, SolrParams query, String userQuery, Writer out) throws IOException {
+		NamedList<?> header = response.getResponseHeader();
+		out.write("{\"status\":"); //$NON-NLS-1$
+		Object status = header == null ? null : header.get("status"); //$NON-NLS-1$
+		out.write(status == null ? "0" : status.toString()); //$NON-NLS-1$
+		Object time = header == null ? null : header.get("QTime"); //$NON-NLS-1$
+		if (time != null) {
+			out.write(",\"QTime\":"); //$NON-NLS-1$
+			out.write(time.toString());
+		}
+		out.write(",\"params\":{"); //$NON-NLS-1$
+		boolean first = true;
+		for (Iterator<String> it = query.getParameterNamesIterator(); it.hasNext();) {
+			String name = it.next();
+			if (!first)
+				out.write(',');
+			first = false;
+			out.write(JSONObject.quote(name));
+			out.write(':');
+			if (CommonParams.Q.equals(name)) {
+				writeValue(userQuery, out);
+				continue;
+			}
+			String[] values = query.getParams(name);
+			if (values.length == 1) {
+				writeValue(values[0], out);
+			} else {
+				out.write('[');
+				for (int i = 0; i < values.length; i++) {
+					if (i > 0)
+						out.write(',');
+					writeValue(values[i], out);
+				}
+				out.write(']');
+			}
+		}
+		out.write("}}"); //$NON-NLS-1$
+	}
+
+	private void writeValue(Object value, Writer out) throws IOException {
+		if (value == null)
+			out.write("null"); //$NON-NLS-1$
+		else if (value instanceof Number || value instanceof Boolean)
+			out.write(value.toString());
+		else
+			out.write(JSONObject.quote(value.toString()));
+	}
+}
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.orion.internal.server.search;
 
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.*;
 import java.net.URLDecoder;
 import java.util.*;
 import javax.servlet.ServletException;
@@ -19,17 +18,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
-import org.apache.solr.common.SolrDocument;
-import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.params.CommonParams;
-import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
-import org.apache.solr.request.LocalSolrQueryRequest;
-import org.apache.solr.request.SolrQueryRequest;
-import org.apache.solr.response.QueryResponseWriter;
-import org.apache.solr.response.SolrQueryResponse;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.servlets.OrionServlet;
@@ -41,6 +32,18 @@ public class SearchServlet extends OrionServlet {
 	private static final long serialVersionUID = 1L;
 	private static final String FIELD_NAMES = "Id,Name,NameLower,Length,Directory,LastModified,Location,Path"; //$NON-NLS-1$
 	private static final List<String> FIELD_LIST = Arrays.asList(FIELD_NAMES.split(",")); //$NON-NLS-1$
+	/**
+	 * N-gram copies of the Name, NameLower and Text fields. A substring search within the
+	 * gram size limits of these fields is a single term lookup, rather than a wildcard
+	 * scan over the entire term dictionary. The sizes must match the schema.
+	 */
+	private static final String FIELD_NAME_GRAM = "NameGram"; //$NON-NLS-1$
+	private static final String FIELD_NAME_LOWER_GRAM = "NameLowerGram"; //$NON-NLS-1$
+	private static final String FIELD_TEXT_GRAM = "TextGram"; //$NON-NLS-1$
+	private static final int NAME_MIN_GRAM = 1;
+	private static final int NAME_MAX_GRAM = 30;
+	private static final int TEXT_MIN_GRAM = 2;
+	private static final int TEXT_MAX_GRAM = 15;
 
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -51,8 +54,7 @@ public class SearchServlet extends OrionServlet {
 			return;
 		}
 		try {
-			QueryResponse solrResponse = SearchActivator.getInstance().getSolrServer().query(query);
-			writeResponse(query, req, resp, solrResponse);
+			writeResponse(query, req, resp);
 		} catch (SolrServerException e) {
 			LogHelper.log(e);
 			resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
@@ -78,9 +80,12 @@ public class SearchServlet extends OrionServlet {
 					if (term.startsWith("NameLower:")) { //$NON-NLS-1$
 						//solr does not lowercase queries containing wildcards
 						//https://issues.apache.org/jira/browse/SOLR-219
-						processedQuery += "NameLower:" + term.substring(10).toLowerCase(); //$NON-NLS-1$
-					} else {
+						String value = term.substring(10).toLowerCase();
+						processedQuery += rewriteSubstring("NameLower", value, FIELD_NAME_LOWER_GRAM, NAME_MIN_GRAM, NAME_MAX_GRAM); //$NON-NLS-1$
+					} else if (term.startsWith("Name:")) { //$NON-NLS-1$
 						//all other field searches are case sensitive
+						processedQuery += rewriteSubstring("Name", term.substring(5), FIELD_NAME_GRAM, NAME_MIN_GRAM, NAME_MAX_GRAM); //$NON-NLS-1$
+					} else {
 						processedQuery += term;
 					}
 				} else {
@@ -94,8 +99,11 @@ public class SearchServlet extends OrionServlet {
 					//solr does not lowercase queries containing wildcards
 					//see https://bugs.eclipse.org/bugs/show_bug.cgi?id=359766
 					String processedTerm = ClientUtils.escapeQueryChars(term.toLowerCase());
-					//add leading and trailing wildcards to match word segments
-					if (!isPhrase) {
+					//match word segments with a single term lookup where possible
+					if (!isPhrase && isGramTerm(processedTerm, TEXT_MIN_GRAM, TEXT_MAX_GRAM)) {
+						processedTerm = FIELD_TEXT_GRAM + ':' + processedTerm;
+					} else if (!isPhrase) {
+						//otherwise add leading and trailing wildcards to match word segments
 						if (processedTerm.charAt(0) != '*')
 							processedTerm = '*' + processedTerm;
 						if (processedTerm.charAt(processedTerm.length() - 1) != '*')
@@ -131,6 +139,37 @@ public class SearchServlet extends OrionServlet {
 		return null;
 	}
 
+	/**
+	 * Returns whether the given escaped query value can be looked up in an n-gram
+	 * field with the given gram sizes. The value must not contain wildcards, since
+	 * wildcards in the user's query are honoured by the wildcard query.
+	 */
+	private boolean isGramTerm(String value, int minGram, int maxGram) {
+		if (value.indexOf('*') >= 0 || value.indexOf('?') >= 0)
+			return false;
+		int length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			//escape characters are removed by the query parser
+			if (value.charAt(i) == '\\')
+				i++;
+			length++;
+		}
+		return length >= minGram && length <= maxGram;
+	}
+
+	/**
+	 * Rewrites a field search of the form <code>field:*value*</code> into a term search
+	 * against the n-gram copy of the field. Any other search is returned unchanged.
+	 */
+	private String rewriteSubstring(String field, String value, String gramField, int minGram, int maxGram) {
+		if (value.length() > 2 && value.charAt(0) == '*' && value.charAt(value.length() - 1) == '*') {
+			String segment = value.substring(1, value.length() - 1);
+			if (isGramTerm(segment, minGram, maxGram))
+				return gramField + ':' + segment;
+		}
+		return field + ':' + value;
+	}
+
 	/**
 	 * Returns whether the search term is against a particular field rather than the default field
 	 * (search on name, location, etc).
@@ -150,41 +189,15 @@ public class SearchServlet extends OrionServlet {
 	}
 
 	/**
-	 * Writes the response to the search query to the HTTP response's output stream.
+	 * Runs the search query and writes the response to the HTTP response's output stream.
 	 */
-	private void writeResponse(SolrQuery query, HttpServletRequest httpRequest, HttpServletResponse httpResponse, QueryResponse queryResponse) throws IOException {
+	private void writeResponse(SolrQuery query, HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException, SolrServerException {
 		SolrCore core = SearchActivator.getInstance().getSolrCore();
-		//this seems to be the only way to obtain the JSON response representation
-		SolrQueryRequest solrRequest = new LocalSolrQueryRequest(core, query.toNamedList());
-		SolrQueryResponse solrResponse = new SolrQueryResponse();
-		//bash the query in the response to remove user info
-		NamedList<Object> params = (NamedList<Object>) queryResponse.getHeader().get("params"); //$NON-NLS-1$
-		params.remove(CommonParams.Q);
-		params.add(CommonParams.Q, httpRequest.getParameter(CommonParams.Q));
-		NamedList<Object> values = queryResponse.getResponse();
-		String contextPath = httpRequest.getContextPath();
-		if (contextPath.length() > 0)
-			setSearchResultContext(values, contextPath);
-		solrResponse.setAllValues(values);
-		QueryResponseWriter writer = core.getQueryResponseWriter("json"); //$NON-NLS-1$
-		writer.write(httpResponse.getWriter(), solrRequest, solrResponse);
-	}
-
-	/**
-	 * Prepend the server context path to the location of search result documents.
-	 */
-	private void setSearchResultContext(NamedList<Object> values, String contextPath) {
-		//find the search result documents in the search response
-		SolrDocumentList documents = (SolrDocumentList) values.get("response"); //$NON-NLS-1$
-		if (documents == null)
-			return;
-		for (SolrDocument doc : documents) {
-			String location = (String) doc.getFieldValue(ProtocolConstants.KEY_LOCATION);
-			if (location != null) {
-				//prepend the context path and update the document
-				location = contextPath + location;
-				doc.setField(ProtocolConstants.KEY_LOCATION, location);
-			}
-		}
+		SearchResultWriter writer = new SearchResultWriter(core, FIELD_LIST);
+		httpResponse.setContentType(ProtocolConstants.CONTENT_TYPE_JSON);
+		Writer out = new BufferedWriter(new OutputStreamWriter(httpResponse.getOutputStream(), "UTF-8")); //$NON-NLS-1$
+		//replace the query in the response to remove user info
+		writer.write(query, httpRequest.getParameter(CommonParams.Q), httpRequest.getContextPath(), out);
+		out.flush();
 	}
 }
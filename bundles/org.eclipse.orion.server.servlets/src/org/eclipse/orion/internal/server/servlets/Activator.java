@@ -17,6 +17,7 @@ import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.*;
 import org.eclipse.orion.internal.server.core.IWebResourceDecorator;
+import org.eclipse.orion.internal.server.servlets.file.DirectoryHandlerV1;
 import org.eclipse.orion.internal.server.servlets.hosting.ISiteHostingService;
 import org.eclipse.orion.internal.server.servlets.workspace.ProjectParentDecorator;
 import org.eclipse.orion.internal.server.servlets.xfer.TransferResourceDecorator;
@@ -170,6 +171,7 @@ public class Activator implements BundleActivator {
 			siteHostingTracker = null;
 		}
 		unregisterDecorators();
+		DirectoryHandlerV1.shutdownListingPool();
 		bundleContext = null;
 	}
 
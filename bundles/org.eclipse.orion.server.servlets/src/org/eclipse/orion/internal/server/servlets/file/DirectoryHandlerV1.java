@@ -13,16 +13,19 @@ package org.eclipse.orion.internal.server.servlets.file;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.URIUtil;
+import org.eclipse.orion.internal.server.core.Activator;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
-import org.eclipse.orion.server.core.LogHelper;
-import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.orion.server.core.*;
 import org.eclipse.orion.server.servlets.OrionServlet;
 import org.eclipse.osgi.util.NLS;
 import org.json.*;
@@ -36,6 +39,24 @@ public class DirectoryHandlerV1 extends ServletResourceHandler<IFileStore> {
 	static final int CREATE_MOVE = 0x2;
 	static final int CREATE_NO_OVERWRITE = 0x4;
 
+	private static final int DEFAULT_MAX_LISTING_ENTRIES = 10000;
+	private static ThreadPoolExecutor listingPool;
+
+	/**
+	 * A directory whose children are being added to its representation.
+	 */
+	private static class ListedDirectory {
+		final IFileStore store;
+		final URI location;
+		final JSONObject result;
+
+		ListedDirectory(IFileStore store, URI location, JSONObject result) {
+			this.store = store;
+			this.location = location;
+			this.result = result;
+		}
+	}
+
 	private final ServletResourceHandler<IStatus> statusHandler;
 
 	public DirectoryHandlerV1(URI rootStoreURI, ServletResourceHandler<IStatus> statusHandler) {
@@ -54,32 +75,114 @@ public class DirectoryHandlerV1 extends ServletResourceHandler<IFileStore> {
 				// ignore
 			}
 		}
-		encodeChildren(dir, location, result, depth);
+		int maxEntries = PreferenceHelper.getInt(ServerConstants.CONFIG_FILE_LISTING_MAX_ENTRIES, DEFAULT_MAX_LISTING_ENTRIES);
+		encodeChildren(dir, location, result, depth, maxEntries);
 		OrionServlet.writeJSONResponse(request, response, result);
 		return true;
 	}
 
-	private void encodeChildren(IFileStore dir, URI location, JSONObject result, int depth) throws CoreException {
-		if (depth <= 0)
-			return;
-		JSONArray children = new JSONArray();
-		IFileStore[] childStores = dir.childStores(EFS.NONE, null);
-		for (IFileStore childStore : childStores) {
-			IFileInfo childInfo = childStore.fetchInfo();
-			String name = childInfo.getName();
-			if (childInfo.isDirectory())
-				name += "/"; //$NON-NLS-1$
-			URI childLocation = URIUtil.append(location, name);
-			JSONObject childResult = ServletFileStoreHandler.toJSON(childStore, childInfo, childLocation);
-			if (childInfo.isDirectory())
-				encodeChildren(childStore, childLocation, childResult, depth - 1);
-			children.put(childResult);
+	/**
+	 * Adds the children of a directory to its representation, down to the given depth. Each
+	 * level of the tree is listed at once, reading the directories of a level in parallel.
+	 * The children of the directory itself are always added. Below it, a directory is only
+	 * expanded if the listing then holds at most the given number of entries, and no further
+	 * directories are expanded once one is left out. Clients fetch the children of a directory
+	 * that was not expanded from its children location, as they do beyond the requested depth.
+	 */
+	private void encodeChildren(IFileStore dir, URI location, JSONObject result, int depth, int maxEntries) throws CoreException {
+		List<ListedDirectory> level = Collections.singletonList(new ListedDirectory(dir, location, result));
+		int entries = 0;
+		for (int remaining = depth; remaining > 0 && !level.isEmpty(); remaining--) {
+			List<Future<IFileInfo[]>> listings = new ArrayList<Future<IFileInfo[]>>(level.size());
+			for (final ListedDirectory directory : level) {
+				listings.add(getListingPool().submit(new Callable<IFileInfo[]>() {
+					public IFileInfo[] call() throws CoreException {
+						//fetches the information of all children in one call rather than one store at a time
+						return directory.store.childInfos(EFS.NONE, null);
+					}
+				}));
+			}
+			List<ListedDirectory> next = new ArrayList<ListedDirectory>();
+			boolean full = false;
+			for (int i = 0; i < level.size(); i++) {
+				if (full) {
+					//the directory stays unexpanded, so its listing is not needed
+					listings.get(i).cancel(false);
+					continue;
+				}
+				ListedDirectory directory = level.get(i);
+				IFileInfo[] childInfos = getListing(listings.get(i));
+				if (directory.result != result && entries + childInfos.length > maxEntries) {
+					full = true;
+					continue;
+				}
+				entries += childInfos.length;
+				JSONArray children = new JSONArray();
+				for (IFileInfo childInfo : childInfos) {
+					String name = childInfo.getName();
+					if (childInfo.isDirectory())
+						name += "/"; //$NON-NLS-1$
+					IFileStore childStore = directory.store.getChild(childInfo.getName());
+					URI childLocation = URIUtil.append(directory.location, name);
+					JSONObject childResult = ServletFileStoreHandler.toJSON(childStore, childInfo, childLocation);
+					if (childInfo.isDirectory() && remaining > 1)
+						next.add(new ListedDirectory(childStore, childLocation, childResult));
+					children.put(childResult);
+				}
+				try {
+					directory.result.put(ProtocolConstants.KEY_CHILDREN, children);
+				} catch (JSONException e) {
+					// cannot happen
+					throw new RuntimeException(e);
+				}
+			}
+			level = full ? Collections.<ListedDirectory> emptyList() : next;
 		}
+	}
+
+	private static IFileInfo[] getListing(Future<IFileInfo[]> listing) throws CoreException {
 		try {
-			result.put(ProtocolConstants.KEY_CHILDREN, children);
-		} catch (JSONException e) {
-			// cannot happen
-			throw new RuntimeException(e);
+			return listing.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CoreException)
+				throw (CoreException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CoreException(new Status(IStatus.ERROR, org.eclipse.orion.internal.server.servlets.Activator.PI_SERVER_SERVLETS, "Interrupted while listing directory", e)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the pool that lists directories for all requests. Listing a directory never waits
+	 * for another listing, so the pool can be bounded without deadlocks. When all threads are busy,
+	 * the requesting thread lists the directory itself.
+	 */
+	private static synchronized ThreadPoolExecutor getListingPool() {
+		if (listingPool == null) {
+			//listing is mostly waiting for the disk, so use more threads than processors
+			int threads = 2 * Runtime.getRuntime().availableProcessors();
+			ThreadFactory factory = new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Orion Directory Lister " + count.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			};
+			listingPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+		}
+		return listingPool;
+	}
+
+	/**
+	 * Stops the threads that list directories. Listings requested afterwards start a new pool.
+	 */
+	public static synchronized void shutdownListingPool() {
+		if (listingPool != null) {
+			listingPool.shutdown();
+			listingPool = null;
 		}
 	}
 
@@ -121,6 +224,7 @@ public class DirectoryHandlerV1 extends ServletResourceHandler<IFileStore> {
 			toCreate.mkdir(EFS.NONE, null);
 		else
 			toCreate.openOutputStream(EFS.NONE, null).close();
+		Activator.fireFileChanged(toCreate);
 		return true;
 	}
 
@@ -142,10 +246,13 @@ public class DirectoryHandlerV1 extends ServletResourceHandler<IFileStore> {
 			}
 			//note we checked in preconditions that overwrite is ok here
 			try {
-				if (isCopy)
+				if (isCopy) {
 					source.copy(toCreate, EFS.OVERWRITE, null);
-				else
+				} else {
 					source.move(toCreate, EFS.OVERWRITE, null);
+					Activator.fireFileChanged(source);
+				}
+				Activator.fireFileChanged(toCreate);
 			} catch (CoreException e) {
 				if (!source.fetchInfo().exists()) {
 					statusHandler.handleRequest(request, response, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_NOT_FOUND, NLS.bind("Source does not exist: ", locationString), e));
@@ -243,6 +350,7 @@ public class DirectoryHandlerV1 extends ServletResourceHandler<IFileStore> {
 
 	private boolean handleDelete(HttpServletRequest request, HttpServletResponse response, IFileStore dir) throws JSONException, CoreException, ServletException, IOException {
 		dir.delete(EFS.NONE, null);
+		Activator.fireFileChanged(dir);
 		return true;
 	}
 
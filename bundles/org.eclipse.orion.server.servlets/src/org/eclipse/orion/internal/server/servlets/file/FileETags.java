@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.servlets.file;
+
+import java.io.*;
+import java.net.URI;
+import java.security.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.core.filesystem.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.orion.internal.server.core.HashUtilities;
+import org.eclipse.orion.server.core.*;
+
+/**
+ * Computes the ETags of files. By default the ETag of a file is the SHA-1 hash of its
+ * contents. Hashes are cached by file location, length and modification time, so that a
+ * file is only read to compute its ETag after it has been changed by other means than
+ * this server. Contents read or written through this class are hashed on the way, so
+ * serving or saving a file never reads it a second time.
+ * <p>
+ * If {@link ServerConstants#CONFIG_FILE_ETAG} is set to "metadata", the ETag is derived
+ * from the length and modification time of the file alone. Such weak ETags never require
+ * reading the file, but miss changes that keep the length and are made within the
+ * modification time resolution of the file system.
+ * </p>
+ */
+class FileETags {
+	private static final int DEFAULT_CACHE_SIZE = 10000;
+	/**
+	 * Files modified less than this many milliseconds ago are not cached when hashed by reading
+	 * them, since another change within the modification time resolution of the file system
+	 * could not be told apart. Hashes of such files written by this server are only cached
+	 * until this interval has passed, and are then computed again from the file.
+	 */
+	private static final long RACY_INTERVAL = 2000;
+
+	private static class CachedHash {
+		final long length;
+		final long lastModified;
+		final String hash;
+		/**
+		 * Whether the file could still be changed without changing its modification time.
+		 */
+		final boolean racy;
+
+		CachedHash(IFileInfo info, String hash, boolean racy) {
+			this.length = info.getLength();
+			this.lastModified = info.getLastModified();
+			this.hash = hash;
+			this.racy = racy;
+		}
+
+		boolean matches(IFileInfo info) {
+			return length == info.getLength() && lastModified == info.getLastModified();
+		}
+
+		boolean isExpired() {
+			return racy && System.currentTimeMillis() - lastModified >= RACY_INTERVAL;
+		}
+	}
+
+	private static final boolean metadataOnly = "metadata".equals(PreferenceHelper.getString(ServerConstants.CONFIG_FILE_ETAG, null)); //$NON-NLS-1$
+	private static final int cacheSize = PreferenceHelper.getInt(ServerConstants.CONFIG_FILE_ETAG_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+
+	/**
+	 * The content hashes of recently used files, least recently used first.
+	 */
+	private static final Map<URI, CachedHash> cache = new LinkedHashMap<URI, CachedHash>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<URI, CachedHash> eldest) {
+			return size() > cacheSize;
+		}
+	};
+
+	/**
+	 * Returns the ETag of the given file, reading the file if its hash is not known.
+	 * @param file the file
+	 * @param info the current information of the file
+	 */
+	static String getETag(IFileStore file, IFileInfo info) throws CoreException, IOException, NoSuchAlgorithmException {
+		String etag = getCachedETag(file, info);
+		if (etag != null)
+			return etag;
+		String hash = HashUtilities.getHash(file.openInputStream(EFS.NONE, null), true, HashUtilities.SHA_1);
+		record(file, info, hash, false);
+		return hash;
+	}
+
+	/**
+	 * Returns the ETag of the given file if it can be computed without reading the file,
+	 * and <code>null</code> otherwise.
+	 * @param file the file
+	 * @param info the current information of the file
+	 */
+	static String getCachedETag(IFileStore file, IFileInfo info) {
+		if (metadataOnly)
+			return Long.toHexString(info.getLastModified()) + '-' + Long.toHexString(info.getLength());
+		synchronized (cache) {
+			CachedHash cached = cache.get(file.toURI());
+			if (cached == null || !cached.matches(info))
+				return null;
+			if (cached.isExpired()) {
+				//the file may have been changed after it was written, so hash it again
+				cache.remove(file.toURI());
+				return null;
+			}
+			return cached.hash;
+		}
+	}
+
+	/**
+	 * Opens the given file for reading. The contents are hashed while they are read, so that
+	 * the ETag of the file is known once the stream has been read to the end and closed.
+	 * @param file the file
+	 * @param info the current information of the file
+	 */
+	static InputStream openInputStream(final IFileStore file, final IFileInfo info) throws CoreException, NoSuchAlgorithmException {
+		InputStream in = file.openInputStream(EFS.NONE, null);
+		if (metadataOnly || getCachedETag(file, info) != null)
+			return in;
+		return new DigestInputStream(in, MessageDigest.getInstance(HashUtilities.SHA_1)) {
+			private boolean complete;
+
+			@Override
+			public int read() throws IOException {
+				int result = super.read();
+				complete |= result < 0;
+				return result;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int result = super.read(b, off, len);
+				complete |= result < 0;
+				return result;
+			}
+
+			@Override
+			public void close() throws IOException {
+				super.close();
+				if (complete) {
+					complete = false;
+					record(file, info, HashUtilities.getHash(getMessageDigest()), false);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Opens the given file for writing. The contents are hashed while they are written, so
+	 * that the ETag of the file is known without reading it back once the stream is closed.
+	 * @param file the file
+	 */
+	static OutputStream openOutputStream(final IFileStore file) throws CoreException, NoSuchAlgorithmException {
+		OutputStream out = file.openOutputStream(EFS.NONE, null);
+		if (metadataOnly)
+			return out;
+		return new DigestOutputStream(out, MessageDigest.getInstance(HashUtilities.SHA_1)) {
+			private boolean failed, closed;
+
+			@Override
+			public void write(int b) throws IOException {
+				try {
+					super.write(b);
+				} catch (IOException e) {
+					failed = true;
+					throw e;
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				try {
+					super.write(b, off, len);
+				} catch (IOException e) {
+					failed = true;
+					throw e;
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (closed)
+					return;
+				closed = true;
+				super.close();
+				//the digest includes bytes that failed to be written, so it may not match the file
+				if (!failed)
+					record(file, file.fetchInfo(), HashUtilities.getHash(getMessageDigest()), true);
+			}
+		};
+	}
+
+	/**
+	 * Caches the content hash of a file. Hashes of files read shortly after they were modified
+	 * are not cached, and hashes of contents written by this server shortly before are only
+	 * cached until they need to be checked again, see {@link #RACY_INTERVAL}.
+	 */
+	private static void record(IFileStore file, IFileInfo info, String hash, boolean written) {
+		if (!info.exists())
+			return;
+		boolean racy = System.currentTimeMillis() - info.getLastModified() < RACY_INTERVAL;
+		if (racy && !written)
+			return;
+		synchronized (cache) {
+			cache.put(file.toURI(), new CachedHash(info, hash, racy));
+		}
+	}
+}
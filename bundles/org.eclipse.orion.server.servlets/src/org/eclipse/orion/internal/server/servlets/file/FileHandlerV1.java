@@ -19,11 +19,11 @@ import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.eclipse.core.filesystem.EFS;
-import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.provider.FileInfo;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.orion.internal.server.core.Activator;
 import org.eclipse.orion.internal.server.core.IOUtilities;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
@@ -54,8 +54,9 @@ class FileHandlerV1 extends GenericFileHandler {
 	// responseWriter is used, as in some cases response should be
 	// appended to response generated earlier (i.e. multipart get)
 	protected void handleGetMetadata(HttpServletRequest request, HttpServletResponse response, Writer responseWriter, IFileStore file) throws IOException, NoSuchAlgorithmException, JSONException, CoreException {
-		JSONObject result = ServletFileStoreHandler.toJSON(file, file.fetchInfo(), getURI(request));
-		String etag = generateFileETag(file);
+		IFileInfo info = file.fetchInfo();
+		JSONObject result = ServletFileStoreHandler.toJSON(file, info, getURI(request));
+		String etag = FileETags.getETag(file, info);
 		result.put(ProtocolConstants.KEY_ETAG, etag);
 		response.setHeader(ProtocolConstants.KEY_ETAG, etag);
 		OrionServlet.decorateResponse(request, result, JsonURIUnqualificationStrategy.ALL);
@@ -87,12 +88,13 @@ class FileHandlerV1 extends GenericFileHandler {
 		String source = request.getParameter(ProtocolConstants.PARM_SOURCE);
 		if (source != null) {
 			//if source is specified, read contents from different URL rather than from this request stream
-			IOUtilities.pipe(new URL(source).openStream(), file.openOutputStream(EFS.NONE, null), true, true);
+			IOUtilities.pipe(new URL(source).openStream(), FileETags.openOutputStream(file), true, true);
 		} else {
 			//read from the request stream
-			Writer fileWriter = new BufferedWriter(new OutputStreamWriter(file.openOutputStream(EFS.NONE, null), "UTF-8"));
+			Writer fileWriter = new BufferedWriter(new OutputStreamWriter(FileETags.openOutputStream(file), "UTF-8"));
 			IOUtilities.pipe(requestReader, fileWriter, false, true);
 		}
+		Activator.fireFileChanged(file);
 
 		// return metadata with the new Etag
 		handleGetMetadata(request, response, response.getWriter(), file);
@@ -139,6 +141,7 @@ class FileHandlerV1 extends GenericFileHandler {
 				switch (getMethod(request)) {
 					case DELETE :
 						file.delete(EFS.NONE, null);
+						Activator.fireFileChanged(file);
 						break;
 					case PUT :
 						handlePutContents(request, request.getReader(), response, file);
@@ -10,16 +10,16 @@
  *******************************************************************************/
 package org.eclipse.orion.internal.server.servlets.file;
 
-import java.io.IOException;
+import java.io.*;
+import java.nio.channels.*;
 import java.security.NoSuchAlgorithmException;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.eclipse.core.filesystem.EFS;
-import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.filesystem.*;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.orion.internal.server.core.HashUtilities;
+import org.eclipse.orion.internal.server.core.Activator;
 import org.eclipse.orion.internal.server.core.IOUtilities;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
@@ -30,6 +30,8 @@ import org.eclipse.osgi.util.NLS;
  * such as a web browser.
  */
 class GenericFileHandler extends ServletResourceHandler<IFileStore> {
+	private static final long[] UNSATISFIABLE_RANGE = new long[0];
+
 	private final ServletContext context;
 
 	public GenericFileHandler(ServletContext context) {
@@ -44,17 +46,173 @@ class GenericFileHandler extends ServletResourceHandler<IFileStore> {
 		}
 		switch (getMethod(request)) {
 			case GET :
-				IOUtilities.pipe(file.openInputStream(EFS.NONE, null), response.getOutputStream(), true, false);
-				response.setHeader(ProtocolConstants.HEADER_CONTENT_TYPE, context.getMimeType(file.getName()));
-				break;
+				handleGetContents(request, response, file);
+				return;
 			case PUT :
-				IOUtilities.pipe(request.getInputStream(), file.openOutputStream(EFS.NONE, null), false, true);
+				IOUtilities.pipe(request.getInputStream(), FileETags.openOutputStream(file), false, true);
+				Activator.fireFileChanged(file);
 				break;
 		}
 		response.setHeader("Cache-Control", "no-cache"); //$NON-NLS-1$ //$NON-NLS-2$
 		response.setHeader(ProtocolConstants.KEY_ETAG, generateFileETag(file));
 	}
 
+	/**
+	 * Sends the contents of a file. Answers conditional requests with 304 (Not Modified) when the
+	 * client already has the current contents, and a single byte range with 206 (Partial Content).
+	 */
+	private void handleGetContents(HttpServletRequest request, HttpServletResponse response, IFileStore file) throws CoreException, IOException, NoSuchAlgorithmException {
+		IFileInfo info = file.fetchInfo();
+		long length = info.getLength();
+		long lastModified = info.getLastModified();
+		String ifNoneMatch = request.getHeader("If-None-Match"); //$NON-NLS-1$
+		//ranges are only served from local files, other stores always send the whole file
+		File localFile = file.toLocalFile(EFS.NONE, null);
+		//reading the file to compare hashes is still cheaper than sending it, but otherwise the file
+		//is only read once, and is sent without an ETag if its hash is not known yet
+		String etag = ifNoneMatch != null ? FileETags.getETag(file, info) : FileETags.getCachedETag(file, info);
+		if (etag != null)
+			response.setHeader(ProtocolConstants.KEY_ETAG, etag);
+		response.setDateHeader("Last-Modified", lastModified); //$NON-NLS-1$
+		response.setHeader("Cache-Control", "no-cache"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (ifNoneMatch != null ? matchesETag(ifNoneMatch, etag) : !isModifiedSince(request, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		response.setHeader(ProtocolConstants.HEADER_CONTENT_TYPE, context.getMimeType(file.getName()));
+		long[] range = null;
+		if (localFile != null) {
+			response.setHeader("Accept-Ranges", "bytes"); //$NON-NLS-1$ //$NON-NLS-2$
+			range = getRange(request, etag, lastModified, length);
+			if (range == UNSATISFIABLE_RANGE) {
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				response.setHeader(ProtocolConstants.HEADER_CONTENT_RANGE, "bytes */" + length); //$NON-NLS-1$
+				return;
+			}
+		}
+		if (range == null && (localFile == null || etag == null)) {
+			//hash the contents while sending them, so later requests know the ETag without reading the file
+			response.setHeader(ProtocolConstants.HEADER_CONTENT_LENGTH, Long.toString(length));
+			IOUtilities.pipe(FileETags.openInputStream(file, info), response.getOutputStream(), true, false);
+			//headers can still be added if the contents fit into the response buffer
+			if (etag == null && !response.isCommitted()) {
+				etag = FileETags.getCachedETag(file, info);
+				if (etag != null)
+					response.setHeader(ProtocolConstants.KEY_ETAG, etag);
+			}
+			return;
+		}
+		long start = 0, count = length;
+		if (range != null) {
+			start = range[0];
+			count = range[1] - range[0] + 1;
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader(ProtocolConstants.HEADER_CONTENT_RANGE, "bytes " + range[0] + '-' + range[1] + '/' + length); //$NON-NLS-1$
+		}
+		response.setHeader(ProtocolConstants.HEADER_CONTENT_LENGTH, Long.toString(count));
+		transfer(localFile, start, count, response.getOutputStream());
+	}
+
+	/**
+	 * Copies part of a local file to the given stream. Only the requested part of the file is
+	 * read. The servlet stream is not a channel, so the bytes still pass through a heap buffer.
+	 */
+	private static void transfer(File file, long position, long count, OutputStream out) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			WritableByteChannel target = Channels.newChannel(out);
+			while (count > 0) {
+				long sent = channel.transferTo(position, count, target);
+				//the file may have been truncated since it was measured
+				if (sent <= 0)
+					break;
+				position += sent;
+				count -= sent;
+			}
+		} finally {
+			IOUtilities.safeClose(in);
+		}
+	}
+
+	/**
+	 * Returns the first and last byte of the range requested by the given request, <code>null</code>
+	 * if the whole file should be sent, or {@link #UNSATISFIABLE_RANGE} if the requested range
+	 * lies outside of the file. Requests for multiple ranges are answered with the whole file.
+	 */
+	private static long[] getRange(HttpServletRequest request, String etag, long lastModified, long length) {
+		String header = request.getHeader("Range"); //$NON-NLS-1$
+		if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) //$NON-NLS-1$
+			return null;
+		//a range is only sent if the client has the current version of the rest of the file
+		String ifRange = request.getHeader("If-Range"); //$NON-NLS-1$
+		if (ifRange != null && !matchesETag(ifRange, etag) && isModifiedSince(request, "If-Range", lastModified)) //$NON-NLS-1$
+			return null;
+		String spec = header.substring(6).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0)
+			return null;
+		try {
+			long first, last;
+			if (dash == 0) {
+				//the last n bytes of the file
+				long suffix = Long.parseLong(spec.substring(1).trim());
+				if (suffix <= 0 || length == 0)
+					return UNSATISFIABLE_RANGE;
+				first = Math.max(0, length - suffix);
+				last = length - 1;
+			} else {
+				first = Long.parseLong(spec.substring(0, dash).trim());
+				last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1).trim());
+				if (last < first)
+					return null;
+				if (first >= length)
+					return UNSATISFIABLE_RANGE;
+				last = Math.min(last, length - 1);
+			}
+			return new long[] {first, last};
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether one of the entity tags in the given header matches the given ETag.
+	 */
+	private static boolean matchesETag(String header, String etag) {
+		if (etag == null)
+			return false;
+		for (String tag : header.split(",")) { //$NON-NLS-1$
+			tag = tag.trim();
+			if (tag.startsWith("W/")) //$NON-NLS-1$
+				tag = tag.substring(2);
+			if (tag.length() >= 2 && tag.charAt(0) == '"' && tag.charAt(tag.length() - 1) == '"')
+				tag = tag.substring(1, tag.length() - 1);
+			if (tag.equals("*") || tag.equals(etag)) //$NON-NLS-1$
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isModifiedSince(HttpServletRequest request, long lastModified) {
+		return isModifiedSince(request, "If-Modified-Since", lastModified); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns whether the file was modified after the date in the given header. Dates are
+	 * compared in seconds, the resolution of HTTP dates.
+	 */
+	private static boolean isModifiedSince(HttpServletRequest request, String header, long lastModified) {
+		long since;
+		try {
+			since = request.getDateHeader(header);
+		} catch (IllegalArgumentException e) {
+			//not a date
+			return true;
+		}
+		return since < 0 || lastModified / 1000 > since / 1000;
+	}
+
 	@Override
 	public boolean handleRequest(HttpServletRequest request, HttpServletResponse response, IFileStore file) throws ServletException {
 		// generic variant doesn't handle queries
@@ -70,9 +228,10 @@ class GenericFileHandler extends ServletResourceHandler<IFileStore> {
 	}
 
 	/**
-	 * Returns an ETag calculated using SHA-1 hash function.
+	 * Returns the ETag of the given file. The file is only read if its hash is not already known.
+	 * @see FileETags
 	 */
 	public static String generateFileETag(IFileStore file) throws NoSuchAlgorithmException, IOException, CoreException {
-		return HashUtilities.getHash(file.openInputStream(EFS.NONE, null), true, HashUtilities.SHA_1);
+		return FileETags.getETag(file, file.fetchInfo());
 	}
 }
\ No newline at end of file
@@ -13,13 +13,15 @@ package org.eclipse.orion.internal.server.servlets.task;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.*;
-import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
-import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
+import org.eclipse.jetty.continuation.*;
+import org.eclipse.orion.internal.server.servlets.*;
+import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.eclipse.orion.server.core.tasks.TaskInfo;
 import org.eclipse.orion.server.core.tasks.TaskJob;
@@ -40,6 +42,30 @@ public class TaskJobHandler {
 	 */
 	public static final long WAIT_TIME = 100;
 
+	private static final String HEADER_RETRY_AFTER = "Retry-After"; //$NON-NLS-1$
+	/**
+	 * The number of seconds a client is asked to wait before retrying a refused job.
+	 */
+	private static final int RETRY_AFTER = 10;
+	/**
+	 * The request attribute holding the job a suspended request waits for, once the request
+	 * is dispatched again after being resumed.
+	 */
+	private static final String ATTRIBUTE_SUSPENDED_JOB = "org.eclipse.orion.server.task.suspendedJob"; //$NON-NLS-1$
+
+	/**
+	 * The job a suspended request is waiting for.
+	 */
+	private static class SuspendedJob {
+		final TaskJob job;
+		final ServletResourceHandler<IStatus> statusHandler;
+
+		SuspendedJob(TaskJob job, ServletResourceHandler<IStatus> statusHandler) {
+			this.job = job;
+			this.statusHandler = statusHandler;
+		}
+	}
+
 	private static URI createTaskLocation(URI baseLocation, String taskId) throws URISyntaxException {
 		return new URI(baseLocation.getScheme(), baseLocation.getAuthority(), "/task/id/" + taskId, null, null); //$NON-NLS-1$
 	}
@@ -58,6 +84,13 @@ public class TaskJobHandler {
 	 * response if immediately returned filled with {@link TaskJob#getResult()}, if result is OK, than only
 	 * {@link ServerStatus#getJsonData()} is returned, if result is OK and it is not an instance of {@link ServerStatus}
 	 * than {@link TaskJob#getFinalResult()} is returned as a response content.
+	 * <p>
+	 * When the container supports it, the request is suspended while waiting for the job, so
+	 * no thread is held while waiting. The request is resumed when the job finishes or the wait
+	 * time expires, and the response is written when it is dispatched again. Servlets must
+	 * therefore call {@link #resumeTaskJob(HttpServletRequest, HttpServletResponse)} before
+	 * handling a request. Otherwise the calling thread waits for the job.
+	 * </p>
 	 * 
 	 * @param request
 	 * @param response
@@ -70,7 +103,105 @@ public class TaskJobHandler {
 	 * @throws JSONException
 	 */
 	public static boolean handleTaskJob(HttpServletRequest request, HttpServletResponse response, TaskJob job, ServletResourceHandler<IStatus> statusHandler) throws IOException, ServletException, URISyntaxException, JSONException {
-		job.schedule();
+		Continuation continuation;
+		try {
+			continuation = ContinuationSupport.getContinuation(request);
+		} catch (IllegalStateException e) {
+			return handleTaskJobBlocking(request, response, job, statusHandler);
+		}
+		handleTaskJobAsync(request, response, job, statusHandler, continuation);
+		return true;
+	}
+
+	private static void handleTaskJobAsync(final HttpServletRequest request, final HttpServletResponse response, final TaskJob job, final ServletResourceHandler<IStatus> statusHandler, final Continuation continuation) {
+		//whichever of the job finishing and the timeout comes first resumes the request
+		final AtomicBoolean answered = new AtomicBoolean();
+		final JobChangeAdapter jobListener = new JobChangeAdapter() {
+			public void done(IJobChangeEvent event) {
+				job.removeJobChangeListener(this);
+				if (answered.compareAndSet(false, true))
+					resume(continuation);
+			}
+		};
+		continuation.setTimeout(WAIT_TIME);
+		continuation.addContinuationListener(new ContinuationListener() {
+			public void onTimeout(Continuation c) {
+				job.removeJobChangeListener(jobListener);
+				if (answered.compareAndSet(false, true))
+					resume(c);
+			}
+
+			public void onComplete(Continuation c) {
+				job.removeJobChangeListener(jobListener);
+			}
+		});
+		request.setAttribute(ATTRIBUTE_SUSPENDED_JOB, new SuspendedJob(job, statusHandler));
+		//the response is not wrapped, so that it is written by the request thread once resumed
+		continuation.suspend();
+		job.addJobChangeListener(jobListener);
+		IStatus admission = job.submit();
+		if (!admission.isOK()) {
+			job.removeJobChangeListener(jobListener);
+			if (answered.compareAndSet(false, true)) {
+				//still on the request thread, so the response can be written right away
+				request.removeAttribute(ATTRIBUTE_SUSPENDED_JOB);
+				try {
+					handleRejected(request, response, admission, statusHandler);
+				} catch (ServletException e) {
+					LogHelper.log(e);
+				} finally {
+					continuation.complete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the response for a job that its family refused to schedule.
+	 */
+	public static boolean handleRejected(HttpServletRequest request, HttpServletResponse response, IStatus status, ServletResourceHandler<IStatus> statusHandler) throws ServletException {
+		response.setHeader(HEADER_RETRY_AFTER, Integer.toString(RETRY_AFTER));
+		return statusHandler.handleRequest(request, response, status);
+	}
+
+	private static void resume(Continuation continuation) {
+		try {
+			continuation.resume();
+		} catch (IllegalStateException e) {
+			//the request has already been dispatched again, or has completed
+		}
+	}
+
+	/**
+	 * Writes the response of a request that was suspended by {@link #handleTaskJob(HttpServletRequest, HttpServletResponse, TaskJob, ServletResourceHandler)}
+	 * and has been dispatched again. Writes the result if the job has finished, and the 202 (Accepted)
+	 * response with the task details otherwise.
+	 * @return <code>true</code> if the request was waiting for a job and has been answered,
+	 * and <code>false</code> if it should be handled as usual
+	 */
+	public static boolean resumeTaskJob(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		SuspendedJob suspended = (SuspendedJob) request.getAttribute(ATTRIBUTE_SUSPENDED_JOB);
+		if (suspended == null)
+			return false;
+		request.removeAttribute(ATTRIBUTE_SUSPENDED_JOB);
+		TaskJob job = suspended.job;
+		try {
+			if (job.getState() != Job.NONE && job.getRealResult() == null)
+				writeAccepted(request, response, job, suspended.statusHandler);
+			else
+				writeResult(request, response, job, suspended.statusHandler);
+		} catch (URISyntaxException e) {
+			throw new ServletException("Failed to write the result of " + job.getName(), e); //$NON-NLS-1$
+		} catch (JSONException e) {
+			throw new ServletException("Failed to write the result of " + job.getName(), e); //$NON-NLS-1$
+		}
+		return true;
+	}
+
+	private static boolean handleTaskJobBlocking(HttpServletRequest request, HttpServletResponse response, TaskJob job, ServletResourceHandler<IStatus> statusHandler) throws IOException, ServletException, URISyntaxException, JSONException {
+		IStatus admission = job.submit();
+		if (!admission.isOK())
+			return handleRejected(request, response, admission, statusHandler);
 
 		final Object jobIsDone = new Object();
 		final JobChangeAdapter jobListener = new JobChangeAdapter() {
@@ -95,19 +226,27 @@ public class TaskJobHandler {
 		if (job.getState() == Job.NONE || job.getRealResult() != null) {
 			return writeResult(request, response, job, statusHandler);
 		} else {
-			TaskInfo task = job.startTask();
-			JSONObject result = task.toJSON();
-			String taskLocation = result.has(ProtocolConstants.KEY_LOCATION) ? result.getString(ProtocolConstants.KEY_LOCATION) : createTaskLocation(OrionServlet.getURI(request), task.getTaskId()).toString();
-			result.put(ProtocolConstants.KEY_LOCATION, taskLocation);
-			if (!task.isRunning()) {
-				job.removeTask(); // Task is not used, we may remove it
-				return writeResult(request, response, job, statusHandler);
-			}
-			response.setHeader(ProtocolConstants.HEADER_LOCATION, taskLocation.toString());
-			OrionServlet.writeJSONResponse(request, response, result);
-			response.setStatus(HttpServletResponse.SC_ACCEPTED);
-			return true;
+			return writeAccepted(request, response, job, statusHandler);
+		}
+	}
+
+	/**
+	 * Starts a task for a job that has not finished in time, and writes the 202 (Accepted)
+	 * response with the task details.
+	 */
+	private static boolean writeAccepted(HttpServletRequest request, HttpServletResponse response, TaskJob job, ServletResourceHandler<IStatus> statusHandler) throws IOException, ServletException, URISyntaxException, JSONException {
+		TaskInfo task = job.startTask();
+		JSONObject result = task.toJSON();
+		String taskLocation = result.has(ProtocolConstants.KEY_LOCATION) ? result.getString(ProtocolConstants.KEY_LOCATION) : createTaskLocation(OrionServlet.getURI(request), task.getTaskId()).toString();
+		result.put(ProtocolConstants.KEY_LOCATION, taskLocation);
+		if (!task.isRunning()) {
+			job.removeTask(); // Task is not used, we may remove it
+			return writeResult(request, response, job, statusHandler);
 		}
+		response.setHeader(ProtocolConstants.HEADER_LOCATION, taskLocation.toString());
+		OrionServlet.writeJSONResponse(request, response, result);
+		response.setStatus(HttpServletResponse.SC_ACCEPTED);
+		return true;
 	}
 
 	private static boolean writeResult(HttpServletRequest request, HttpServletResponse response, TaskJob job, ServletResourceHandler<IStatus> statusHandler) throws ServletException, IOException, JSONException {
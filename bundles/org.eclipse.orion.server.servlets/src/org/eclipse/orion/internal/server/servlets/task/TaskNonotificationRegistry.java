@@ -14,97 +14,166 @@ import java.util.*;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jetty.continuation.*;
+import org.eclipse.orion.internal.server.servlets.Activator;
+import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.tasks.*;
 
 /**
- * This registry creates a job per every long-polling status request. If an update to user's task comes the response is send and job is finished.
- * When we no longer want to wait for updates than the job should be cancelled. Canceling the job writes empty updates list to the response.
- *
+ * This registry parks every long-polling status request until an update to the user's tasks
+ * comes, and then sends the response. Parked requests are suspended continuations, so they
+ * don't hold a thread while waiting. A single listener on the task service records the
+ * updates for the requests of the user whose tasks changed and resumes them. The response
+ * is written by the container thread that the resumed request is dispatched to again, so a
+ * slow client never delays the notification of other requests. A request that is still
+ * parked when the long-polling wait time expires, or that is replaced by a newer request
+ * with the same long-polling id, is answered with an empty updates list.
  */
-public class TaskNonotificationRegistry {
+public class TaskNonotificationRegistry implements TaskModificationListener {
+	/**
+	 * The request attribute holding the parked request, so that it can be answered when the
+	 * request is dispatched again after being resumed.
+	 */
+	private static final String ATTRIBUTE_PARKED_REQUEST = "org.eclipse.orion.server.task.parkedRequest"; //$NON-NLS-1$
 
 	private TaskServlet servlet;
 	private ITaskService service;
 
-	private Map<String, TaskListenerJob> listeners = new HashMap<String, TaskListenerJob>();
+	/**
+	 * The parked requests, by long-polling id.
+	 */
+	private Map<String, ParkedRequest> listeners = new HashMap<String, ParkedRequest>();
+	/**
+	 * The parked requests, by the id of the user whose tasks they are waiting for.
+	 */
+	private Map<String, Set<ParkedRequest>> userListeners = new HashMap<String, Set<ParkedRequest>>();
 	private Map<String, Date> lastNodifications = new HashMap<String, Date>();
 
-	private class TaskListenerJob extends Job implements TaskModificationListener {
-
-		private HttpServletRequest req;
-		private HttpServletResponse resp;
-		private String userId;
-		private boolean wasNotified = false;
+	/**
+	 * A long-polling request waiting for task updates.
+	 */
+	private class ParkedRequest implements ContinuationListener {
+		private final String longpollingId;
+		private final String userId;
+		private final HttpServletRequest req;
+		private final HttpServletResponse resp;
+		/**
+		 * The continuation suspending the request, or <code>null</code> if the container
+		 * doesn't support continuations and the request thread is waiting instead.
+		 */
+		private Continuation continuation;
+		private boolean done = false;
+		/**
+		 * The updates to answer the request with, set once the request is done.
+		 */
+		private Date timestamp;
+		private Collection<TaskInfo> tasks;
+		private Collection<String> deletedTasks;
+		private boolean notified;
 
-		public TaskListenerJob(String userId, String longpollingId, HttpServletRequest req, HttpServletResponse resp) {
-			super(longpollingId);
+		ParkedRequest(String longpollingId, String userId, HttpServletRequest req, HttpServletResponse resp) {
+			this.longpollingId = longpollingId;
+			this.userId = userId;
 			this.req = req;
 			this.resp = resp;
-			this.userId = userId;
 		}
 
-		public String getUserId() {
-			return this.userId;
+		/**
+		 * Suspends the request. Returns <code>false</code> if the container doesn't support
+		 * suspending requests.
+		 */
+		boolean suspend() {
+			Continuation c;
+			try {
+				c = ContinuationSupport.getContinuation(req);
+				c.setTimeout(TaskServlet.LONGPOLLING_WAIT_TIME);
+				//suspended without the response, so resuming dispatches the request again
+				c.suspend();
+			} catch (IllegalStateException e) {
+				return false;
+			}
+			c.addContinuationListener(this);
+			req.setAttribute(ATTRIBUTE_PARKED_REQUEST, this);
+			synchronized (this) {
+				continuation = c;
+			}
+			return true;
 		}
 
-		@Override
-		protected synchronized void canceling() {
-			wasNotified = true;
-			listeners.remove(getName());
+		/**
+		 * Blocks the calling thread until the request has been answered or the long-polling
+		 * wait time has expired.
+		 */
+		synchronized void await() {
+			long end = System.currentTimeMillis() + TaskServlet.LONGPOLLING_WAIT_TIME;
 			try {
-				TaskServlet.writeJSONResponse(req, resp, servlet.getTasksList(new ArrayList<TaskInfo>(), new Date(), req, resp));
-			} catch (Exception e) {
-				this.done(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage(), e));
-				return;
+				for (long remaining = TaskServlet.LONGPOLLING_WAIT_TIME; !done && remaining > 0; remaining = end - System.currentTimeMillis())
+					wait(remaining);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
 		}
 
-		@Override
-		protected IStatus run(IProgressMonitor monitor) {
-			while (!wasNotified)
-				try {
-					Thread.sleep(500);
-				} catch (InterruptedException e) {
-					return new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage(), e);
-				}
-			service.removeTaskModyficationListener(this);
-			return Status.OK_STATUS;
+		/**
+		 * Answers the request with the given updates, unless it has already been answered.
+		 */
+		void finish(Date timestamp, Collection<TaskInfo> tasks, Collection<String> deletedTasks) {
+			finish(timestamp, tasks, deletedTasks, true);
 		}
 
-		public synchronized void notify(Date timestamp, List<TaskInfo> tasks, Collection<String> deletedTasks) {
+		/**
+		 * Records the updates to answer the request with and wakes up the request. The response
+		 * is written by {@link #respond()} on the request's own thread.
+		 */
+		private void finish(Date timestamp, Collection<TaskInfo> tasks, Collection<String> deletedTasks, boolean notified) {
+			Continuation resumed;
+			synchronized (this) {
+				if (done)
+					return;
+				done = true;
+				this.timestamp = timestamp;
+				this.tasks = tasks;
+				this.deletedTasks = deletedTasks;
+				this.notified = notified;
+				resumed = continuation;
+				notifyAll();
+			}
+			removeListener(this);
+			//an expired request is dispatched again without being resumed
+			if (resumed != null && resumed.isSuspended())
+				resumed.resume();
+		}
 
-			wasNotified = true;
-			listeners.remove(getName());
+		/**
+		 * Writes the response with the recorded updates. Called on the request thread once the
+		 * request has been answered, or with an empty updates list if it hasn't.
+		 */
+		void respond() {
+			finishEmpty();
 			try {
 				TaskServlet.writeJSONResponse(req, resp, servlet.getTasksList(tasks, deletedTasks, timestamp, req, resp));
-				lastNodifications.put(getName(), timestamp);
+				if (notified)
+					setLastNotification(longpollingId, timestamp, userId);
 			} catch (Exception e) {
-				this.done(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage(), e));
-				return;
+				LogHelper.log(new Status(IStatus.ERROR, Activator.PI_SERVER_SERVLETS, "Failed to send task updates", e)); //$NON-NLS-1$
 			}
-
-			this.done(Status.OK_STATUS);
 		}
 
-		public synchronized void tasksModified(String userId, Date modificationDate) {
-			if (wasNotified)
-				return;
-			if (!this.userId.equals(userId))
-				return;
-			Date lastNotification = lastNodifications.get(getName());
-			notify(modificationDate, service.getTasks(userId, lastNotification, false), service.getTasksDeletedSince(userId, lastNotification));
+		/**
+		 * Answers the request with an empty updates list.
+		 */
+		void finishEmpty() {
+			finish(new Date(), new ArrayList<TaskInfo>(), new ArrayList<String>(), false);
+		}
 
+		public void onComplete(Continuation c) {
+			removeListener(this);
 		}
 
-		public synchronized void tasksDeleted(String userId, Date timestamp) {
-			if (wasNotified)
-				return;
-			if (!this.userId.equals(userId))
-				return;
-			notify(timestamp, new ArrayList<TaskInfo>(), service.getTasksDeletedSince(userId, lastNodifications.get(getName())));
+		public void onTimeout(Continuation c) {
+			finishEmpty();
 		}
 	}
 
@@ -112,6 +181,22 @@ public class TaskNonotificationRegistry {
 		super();
 		this.servlet = servlet;
 		this.service = service;
+		if (service != null)
+			service.addTaskModyficationListener(this);
+	}
+
+	/**
+	 * Stops listening for task changes and answers all parked requests.
+	 */
+	public void dispose() {
+		if (service != null)
+			service.removeTaskModyficationListener(this);
+		List<ParkedRequest> parked;
+		synchronized (this) {
+			parked = new ArrayList<ParkedRequest>(listeners.values());
+		}
+		for (ParkedRequest request : parked)
+			request.finishEmpty();
 	}
 
 	/**
@@ -124,41 +209,83 @@ public class TaskNonotificationRegistry {
 		lastNodifications.put(longpollingId, lastNotification);
 	}
 
+	private synchronized Date getLastNotification(String longpollingId) {
+		return lastNodifications.get(longpollingId);
+	}
+
 	/**
-	 * Creates a long-polling job that listens for task changes and when tasks are updated it writes the changes to the response.
+	 * Parks a long-polling request that listens for task changes and when tasks are updated writes the changes
+	 * to the response. The request is answered asynchronously when the container supports it, otherwise this
+	 * method blocks until it has been answered.
 	 * @param longpollingId Cannot be <code>null</code>.
 	 * @param req
 	 * @param resp
 	 * @param userId user to tack changes for
-	 * @return
 	 * @throws ServletException
 	 */
-	public synchronized Job addListener(String longpollingId, HttpServletRequest req, HttpServletResponse resp, String userId) throws ServletException {
-		TaskListenerJob listenerJob = new TaskListenerJob(userId, longpollingId, req, resp);
+	public void addListener(String longpollingId, HttpServletRequest req, HttpServletResponse resp, String userId) throws ServletException {
+		ParkedRequest resumed = (ParkedRequest) req.getAttribute(ATTRIBUTE_PARKED_REQUEST);
+		if (resumed != null) {
+			//the request was parked before, and has been dispatched again to send the answer
+			req.removeAttribute(ATTRIBUTE_PARKED_REQUEST);
+			resumed.respond();
+			return;
+		}
+		ParkedRequest request = new ParkedRequest(longpollingId, userId, req, resp);
+		boolean suspended = request.suspend();
+		ParkedRequest previous;
+		synchronized (this) {
+			previous = listeners.put(longpollingId, request);
+			Set<ParkedRequest> parked = userListeners.get(userId);
+			if (parked == null) {
+				parked = new HashSet<ParkedRequest>();
+				userListeners.put(userId, parked);
+			}
+			parked.add(request);
+		}
 		boolean notifyNow = true;
-
-		if (listeners.containsKey(longpollingId)) {
-			TaskListenerJob currentJob = listeners.get(longpollingId);
-			currentJob.cancel();
-			if (currentJob.getUserId().equals(userId)) {
+		if (previous != null) {
+			previous.finishEmpty();
+			if (previous.userId.equals(userId))
 				notifyNow = false;
-			}
 		}
-		listeners.put(longpollingId, listenerJob);
 
 		if (notifyNow) {
 			Date timestamp = new Date();
-			List<TaskInfo> tasks = service.getTasks(userId, lastNodifications.get(longpollingId) == null ? null : lastNodifications.get(longpollingId), false);
-			Collection<String> tasksDeleted = service.getTasksDeletedSince(userId, lastNodifications.get(longpollingId));
-			if (!tasks.isEmpty() || !tasksDeleted.isEmpty()) {
-				listenerJob.notify(timestamp, tasks, tasksDeleted);
-				listenerJob.schedule();
-				return listenerJob;
-			}
+			Date lastNotification = getLastNotification(longpollingId);
+			List<TaskInfo> tasks = service.getTasks(userId, lastNotification, false);
+			Collection<String> tasksDeleted = service.getTasksDeletedSince(userId, lastNotification);
+			if (!tasks.isEmpty() || !tasksDeleted.isEmpty())
+				request.finish(timestamp, tasks, tasksDeleted);
+		}
+		if (!suspended) {
+			request.await();
+			request.respond();
+		}
+	}
+
+	private synchronized void removeListener(ParkedRequest request) {
+		if (listeners.get(request.longpollingId) == request)
+			listeners.remove(request.longpollingId);
+		Set<ParkedRequest> parked = userListeners.get(request.userId);
+		if (parked != null && parked.remove(request) && parked.isEmpty())
+			userListeners.remove(request.userId);
+	}
+
+	private synchronized List<ParkedRequest> getListeners(String userId) {
+		Set<ParkedRequest> parked = userListeners.get(userId);
+		return parked == null ? Collections.<ParkedRequest> emptyList() : new ArrayList<ParkedRequest>(parked);
+	}
+
+	public void tasksModified(String userId, Date modificationDate) {
+		for (ParkedRequest request : getListeners(userId)) {
+			Date lastNotification = getLastNotification(request.longpollingId);
+			request.finish(modificationDate, service.getTasks(userId, lastNotification, false), service.getTasksDeletedSince(userId, lastNotification));
 		}
+	}
 
-		service.addTaskModyficationListener(listenerJob);
-		listenerJob.schedule();
-		return listenerJob;
+	public void tasksDeleted(String userId, Date timestamp) {
+		for (ParkedRequest request : getListeners(userId))
+			request.finish(timestamp, new ArrayList<TaskInfo>(), service.getTasksDeletedSince(userId, getLastNotification(request.longpollingId)));
 	}
 }
@@ -18,7 +18,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.*;
 import org.eclipse.orion.internal.server.servlets.Activator;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.server.core.ServerStatus;
@@ -51,6 +50,13 @@ public class TaskServlet extends OrionServlet {
 		notificationRegistry = new TaskNonotificationRegistry(this, taskTracker.getService());
 	}
 
+	@Override
+	public void destroy() {
+		notificationRegistry.dispose();
+		taskTracker.close();
+		super.destroy();
+	}
+
 	@Override
 	protected void handleException(HttpServletResponse resp, String msg, Exception e) throws ServletException {
 		super.handleException(resp, msg, e);
@@ -174,34 +180,7 @@ public class TaskServlet extends OrionServlet {
 					}
 				}
 				String longpollingId = req.getParameter(ProtocolConstants.KEY_LONGPOLLING_ID);
-				Job job = notificationRegistry.addListener(longpollingId, req, resp, TaskJobHandler.getUserId(req));
-
-				final Object jobIsDone = new Object();
-				final JobChangeAdapter jobListener = new JobChangeAdapter() {
-					public void done(IJobChangeEvent event) {
-						synchronized (jobIsDone) {
-							jobIsDone.notify();
-						}
-					}
-				};
-				job.addJobChangeListener(jobListener);
-
-				try {
-					synchronized (jobIsDone) {
-						if (job.getState() != Job.NONE) {
-							jobIsDone.wait(LONGPOLLING_WAIT_TIME);
-						}
-					}
-				} catch (InterruptedException e) {
-				}
-				job.removeJobChangeListener(jobListener);
-				if (job.getResult() == null) {
-					job.cancel();
-				} else {
-					if (!job.getResult().isOK()) {
-						handleException(resp, job.getResult());
-					}
-				}
+				notificationRegistry.addListener(longpollingId, req, resp, TaskJobHandler.getUserId(req));
 				return;
 
 			}
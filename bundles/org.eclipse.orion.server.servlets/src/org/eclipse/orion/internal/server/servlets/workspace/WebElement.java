@@ -15,6 +15,7 @@ import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.server.core.ServerConstants;
+import org.eclipse.orion.server.core.users.OrionPreferencesLocal;
 import org.eclipse.orion.server.core.users.OrionScope;
 import org.osgi.service.prefs.BackingStoreException;
 
@@ -61,6 +62,22 @@ public class WebElement {
 		}
 	}
 
+	/**
+	 * Saves the state of this element to the backing storage, and waits until
+	 * it has been written to disk.
+	 */
+	public void saveNow() throws CoreException {
+		try {
+			IEclipsePreferences parent = (IEclipsePreferences) store.parent();
+			if (parent instanceof OrionPreferencesLocal)
+				((OrionPreferencesLocal) parent).flushNow();
+			else
+				parent.flush();
+		} catch (BackingStoreException e) {
+			throw new CoreException(new Status(IStatus.ERROR, ServerConstants.PI_SERVER_CORE, "Error saving state"));
+		}
+	}
+
 	/**
 	 * Sets the globally unique id of this element
 	 * @param id the element id
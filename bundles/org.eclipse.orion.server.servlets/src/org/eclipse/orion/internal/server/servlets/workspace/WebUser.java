@@ -15,6 +15,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.site.*;
+import org.eclipse.orion.internal.server.servlets.workspace.authorization.AuthorizationService;
 import org.eclipse.orion.server.core.LogHelper;
 import org.eclipse.orion.server.core.ServerConstants;
 import org.eclipse.orion.server.core.users.OrionScope;
@@ -44,7 +45,8 @@ public class WebUser extends WebElement {
 			result.put(ProtocolConstants.KEY_USER_NAME, userId);
 		WebUser user = new WebUser(result);
 		try {
-			user.save();
+			//a new user must not be lost if the server stops
+			user.saveNow();
 		} catch (CoreException e) {
 			LogHelper.log(e);
 		}
@@ -221,6 +223,8 @@ public class WebUser extends WebElement {
 	 * Removes the user from the backing store.
 	 */
 	public void delete() throws CoreException {
+		//the user id is the name of the user's node
+		AuthorizationService.removeUser(store.name());
 		try {
 			IEclipsePreferences parent = (IEclipsePreferences) store.parent();
 			store.clear();
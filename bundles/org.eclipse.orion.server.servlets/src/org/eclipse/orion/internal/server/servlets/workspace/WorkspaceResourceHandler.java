@@ -332,6 +332,8 @@ public class WorkspaceResourceHandler extends WebElementResourceHandler<WebWorks
 		sourceProject.setName(destinationName);
 		try {
 			sourceProject.save();
+			//the content is unchanged but every file location now includes the new project name
+			org.eclipse.orion.internal.server.core.Activator.fireFileChanged(sourceProject.getProjectStore());
 		} catch (CoreException e) {
 			String msg = NLS.bind("Error persisting project state: {0}", sourceName);
 			return handleError(request, response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg, e);
@@ -349,7 +351,9 @@ public class WorkspaceResourceHandler extends WebElementResourceHandler<WebWorks
 	 * Copies the content of one project to the location of a second project. 
 	 */
 	private void copyProjectContents(WebProject sourceProject, WebProject destinationProject) throws CoreException {
-		sourceProject.getProjectStore().copy(destinationProject.getProjectStore(), EFS.OVERWRITE, null);
+		IFileStore destination = destinationProject.getProjectStore();
+		sourceProject.getProjectStore().copy(destination, EFS.OVERWRITE, null);
+		org.eclipse.orion.internal.server.core.Activator.fireFileChanged(destination);
 	}
 
 	private boolean handleError(HttpServletRequest request, HttpServletResponse response, int httpCode, String message) throws ServletException {
@@ -509,6 +513,7 @@ public class WorkspaceResourceHandler extends WebElementResourceHandler<WebWorks
 			child = EFS.getStore(platformLocationURI).getChild(project.getId());
 			if (child.fetchInfo().exists()) {
 				child.delete(EFS.NONE, null);
+				org.eclipse.orion.internal.server.core.Activator.fireFileChanged(child);
 			}
 		}
 
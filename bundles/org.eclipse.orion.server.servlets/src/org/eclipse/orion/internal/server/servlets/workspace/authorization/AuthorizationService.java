@@ -21,7 +21,6 @@ import org.eclipse.orion.server.core.*;
 import org.eclipse.orion.server.core.authentication.IAuthenticationService;
 import org.eclipse.orion.server.core.users.OrionScope;
 import org.json.*;
-import org.osgi.service.prefs.BackingStoreException;
 
 /**
  * Handles access and persistence of user authorization information.
@@ -44,23 +43,27 @@ public class AuthorizationService {
 	 */
 	public static void addUserRight(String userId, String uri) throws CoreException {
 		try {
-			IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
-			IEclipsePreferences result = (IEclipsePreferences) users.node(userId);
-			JSONArray userRightArray = AuthorizationReader.getAuthorizationData(userId, result);
+			synchronized (UserRightsIndex.getLock()) {
+				IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
+				IEclipsePreferences result = (IEclipsePreferences) users.node(userId);
+				JSONArray userRightArray = AuthorizationReader.getAuthorizationData(userId, result);
+
+				// adds all rights for the uri
+				JSONObject userRight = createUserRight(uri);
+
+				//check if we already have this right
+				for (int i = 0; i < userRightArray.length(); i++) {
+					if (userRight.toString().equals(userRightArray.get(i).toString()))
+						return;
+				}
 
-			// adds all rights for the uri
-			JSONObject userRight = createUserRight(uri);
+				//add the new right
+				userRightArray.put(userRight);
 
-			//check if we already have this right
-			for (int i = 0; i < userRightArray.length(); i++) {
-				if (userRight.toString().equals(userRightArray.get(i).toString()))
-					return;
+				AuthorizationReader.saveRights(result, userRightArray);
+				UserRightsCache.invalidate(userId);
+				UserRightsIndex.update(userId, getRightURIs(userRightArray));
 			}
-
-			//add the new right
-			userRightArray.put(userRight);
-
-			AuthorizationReader.saveRights(result, userRightArray);
 		} catch (Exception e) {
 			String msg = "Error persisting user rights";
 			throw new CoreException(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg, e));
@@ -103,16 +106,8 @@ public class AuthorizationService {
 		}
 
 		IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
-		JSONArray userRightArray = AuthorizationReader.getAuthorizationData(userId, (IEclipsePreferences) users.node(userId));
-		for (int i = 0; i < userRightArray.length(); i++) {
-			JSONObject userRight = (JSONObject) userRightArray.get(i);
-			String patternToMatch = userRight.getString(ProtocolConstants.KEY_USER_RIGHT_URI);
-			int methodToMatch = userRight.getInt(ProtocolConstants.KEY_USER_RIGHT_METHOD);
-			if (wildCardMatch(uri, patternToMatch) && ((methodMask & methodToMatch) == methodMask))
-				return true;
-		}
-
-		return false;
+		UserRights rights = UserRightsCache.get(userId, (IEclipsePreferences) users.node(userId));
+		return rights.matches(uri, methodMask);
 	}
 
 	/**
@@ -127,24 +122,10 @@ public class AuthorizationService {
 	}
 
 	/**
-	 * Returns all users that have the given rights granted to them.
+	 * Returns all users that have been granted a right that is a prefix of the given right.
 	 */
 	public static List<String> findUserWithRights(String rightToFind) {
-		IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
-		List<String> matches = new ArrayList<String>();
-		String[] usernames;
-		try {
-			usernames = users.childrenNames();
-			for (String user : usernames) {
-				for (String right : getRights(user)) {
-					if (rightToFind.startsWith(right))
-						matches.add(user);
-				}
-			}
-		} catch (BackingStoreException e) {
-			return null;
-		}
-		return matches;
+		return UserRightsIndex.findUsers(rightToFind);
 	}
 
 	private static int getMethod(String methodName) {
@@ -160,20 +141,33 @@ public class AuthorizationService {
 	}
 
 	/**
-	 * Returns a list of all rights granted to the given user.
+	 * Returns the URIs of the rights in the given rights array.
 	 */
-	private static List<String> getRights(String userId) {
-		IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
-		IEclipsePreferences result = (IEclipsePreferences) users.node(userId);
+	private static List<String> getRightURIs(JSONArray userRightArray) throws JSONException {
+		List<String> list = new ArrayList<String>();
+		for (int i = 0; i < userRightArray.length(); i++)
+			list.add(((JSONObject) userRightArray.get(i)).getString(ProtocolConstants.KEY_USER_RIGHT_URI));
+		return list;
+	}
+
+	/**
+	 * Removes all rights of the given user. Must be called when the user is deleted.
+	 * @param userId The user name
+	 * @throws CoreException If an error occurred persisting user rights.
+	 */
+	public static void removeUser(String userId) throws CoreException {
 		try {
-			JSONArray userRightArray = AuthorizationReader.getAuthorizationData(userId, result);
-			List<String> list = new ArrayList<String>();
-			for (int i = 0; i < userRightArray.length(); i++) {
-				list.add(((JSONObject) userRightArray.get(i)).getString(ProtocolConstants.KEY_USER_RIGHT_URI));
+			synchronized (UserRightsIndex.getLock()) {
+				IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
+				if (!users.nodeExists(userId))
+					return;
+				IEclipsePreferences result = (IEclipsePreferences) users.node(userId);
+				AuthorizationReader.saveRights(result, new JSONArray());
+				UserRightsCache.invalidate(userId);
+				UserRightsIndex.update(userId, Collections.<String> emptyList());
 			}
-			return list;
-		} catch (JSONException e) {
-			return Collections.emptyList();
+		} catch (Exception e) {
+			throw new CoreException(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error persisting user rights", e));
 		}
 	}
 
@@ -185,36 +179,20 @@ public class AuthorizationService {
 	 */
 	public static void removeUserRight(String userId, String uri) throws CoreException {
 		try {
-			IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
-			IEclipsePreferences result = (IEclipsePreferences) users.node(userId);
-			JSONArray userRightArray = AuthorizationReader.getAuthorizationData(userId, result);
-			for (int i = 0; i < userRightArray.length(); i++) {
-				if (uri.equals(((JSONObject) userRightArray.get(i)).get(ProtocolConstants.KEY_USER_RIGHT_URI)))
-					userRightArray.remove(i);
+			synchronized (UserRightsIndex.getLock()) {
+				IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
+				IEclipsePreferences result = (IEclipsePreferences) users.node(userId);
+				JSONArray userRightArray = AuthorizationReader.getAuthorizationData(userId, result);
+				for (int i = 0; i < userRightArray.length(); i++) {
+					if (uri.equals(((JSONObject) userRightArray.get(i)).get(ProtocolConstants.KEY_USER_RIGHT_URI)))
+						userRightArray.remove(i);
+				}
+				AuthorizationReader.saveRights(result, userRightArray);
+				UserRightsCache.invalidate(userId);
+				UserRightsIndex.update(userId, getRightURIs(userRightArray));
 			}
-			AuthorizationReader.saveRights(result, userRightArray);
 		} catch (Exception e) {
 			throw new CoreException(new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error persisting user rights", e));
 		}
 	}
-
-	private static boolean wildCardMatch(String text, String pattern) {
-		String[] cards = pattern.split("\\*"); //$NON-NLS-1$
-		if (!pattern.startsWith("*") && !text.startsWith(cards[0])) { //$NON-NLS-1$
-			return false;
-		}
-		if (!pattern.endsWith("*") && !text.endsWith(cards[cards.length - 1])) { //$NON-NLS-1$
-			return false;
-		}
-
-		for (String card : cards) {
-			int idex = text.indexOf(card);
-			if (idex == -1) {
-				return false;
-			}
-			text = text.substring(idex + card.length());
-		}
-
-		return true;
-	}
 }
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.servlets.workspace.authorization;
+
+import java.util.*;
+import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
+import org.json.*;
+
+/**
+ * An immutable, precompiled form of the rights granted to a single user. Rights of
+ * the form <code>uri</code> and <code>uri/*</code>, which are the rights granted by the
+ * server, are stored in a prefix trie. Any other wildcard patterns are compiled into
+ * their literal segments. Matching a URI against the rights does not allocate.
+ */
+class UserRights {
+	/**
+	 * A node of the prefix trie. Children are sorted by character so they can be
+	 * found with a binary search.
+	 */
+	private static class Node {
+		char[] keys = new char[0];
+		Node[] children = new Node[0];
+		/**
+		 * The union of the methods of all <code>prefix*</code> rights ending at this node,
+		 * or -1 if there are none.
+		 */
+		int prefixMethods = -1;
+		/**
+		 * The union of the methods of all literal rights ending at this node, or -1 if
+		 * there are none.
+		 */
+		int literalMethods = -1;
+
+		Node child(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			return index < 0 ? null : children[index];
+		}
+
+		Node addChild(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			if (index >= 0)
+				return children[index];
+			index = -index - 1;
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(children, 0, newChildren, 0, index);
+			System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+			System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+			newKeys[index] = c;
+			newChildren[index] = new Node();
+			keys = newKeys;
+			children = newChildren;
+			return newChildren[index];
+		}
+	}
+
+	/**
+	 * A right with wildcards other than a single trailing one.
+	 */
+	private static class Glob {
+		final String[] cards;
+		final boolean leadingWildcard;
+		final boolean trailingWildcard;
+		final int methods;
+
+		Glob(String pattern, int methods) {
+			this.cards = pattern.split("\\*"); //$NON-NLS-1$
+			this.leadingWildcard = pattern.startsWith("*"); //$NON-NLS-1$
+			this.trailingWildcard = pattern.endsWith("*"); //$NON-NLS-1$
+			this.methods = methods;
+		}
+
+		boolean matches(String text) {
+			if (!leadingWildcard && !text.startsWith(cards[0]))
+				return false;
+			if (!trailingWildcard && !text.endsWith(cards[cards.length - 1]))
+				return false;
+			//each segment must occur after the previous one
+			int offset = 0;
+			for (String card : cards) {
+				int index = text.indexOf(card, offset);
+				if (index == -1)
+					return false;
+				offset = index + card.length();
+			}
+			return true;
+		}
+	}
+
+	private final Node root = new Node();
+	private final Glob[] globs;
+	/**
+	 * The raw rights data this instance was compiled from.
+	 */
+	final String source;
+
+	UserRights(String source, JSONArray rights) throws JSONException {
+		this.source = source;
+		List<Glob> globList = new ArrayList<Glob>();
+		for (int i = 0; i < rights.length(); i++) {
+			JSONObject right = rights.getJSONObject(i);
+			String pattern = right.getString(ProtocolConstants.KEY_USER_RIGHT_URI);
+			int methods = right.getInt(ProtocolConstants.KEY_USER_RIGHT_METHOD);
+			int wildcard = pattern.indexOf('*');
+			if (wildcard < 0) {
+				Node node = insert(pattern, pattern.length());
+				node.literalMethods = union(node.literalMethods, methods);
+			} else if (wildcard == pattern.length() - 1) {
+				Node node = insert(pattern, wildcard);
+				node.prefixMethods = union(node.prefixMethods, methods);
+			} else {
+				globList.add(new Glob(pattern, methods));
+			}
+		}
+		globs = globList.toArray(new Glob[globList.size()]);
+	}
+
+	private static boolean allows(int methods, int methodMask) {
+		return methods != -1 && (methodMask & methods) == methodMask;
+	}
+
+	private Node insert(String pattern, int length) {
+		Node node = root;
+		for (int i = 0; i < length; i++)
+			node = node.addChild(pattern.charAt(i));
+		return node;
+	}
+
+	/**
+	 * Returns whether any of the rights allows the given method mask on the given URI.
+	 * Method masks are single methods, so combining the methods of several rights
+	 * for the same pattern gives the same answer as checking each right.
+	 */
+	boolean matches(String uri, int methodMask) {
+		Node node = root;
+		int length = uri.length();
+		for (int depth = 0; node != null; depth++) {
+			if (allows(node.prefixMethods, methodMask))
+				return true;
+			//a right without wildcards matches URIs that both start and end with it
+			if (allows(node.literalMethods, methodMask) && uri.regionMatches(length - depth, uri, 0, depth))
+				return true;
+			if (depth == length)
+				break;
+			node = node.child(uri.charAt(depth));
+		}
+		for (Glob glob : globs) {
+			if (allows(glob.methods, methodMask) && glob.matches(uri))
+				return true;
+		}
+		return false;
+	}
+
+	private static int union(int methods, int newMethods) {
+		return methods == -1 ? newMethods : methods | newMethods;
+	}
+}
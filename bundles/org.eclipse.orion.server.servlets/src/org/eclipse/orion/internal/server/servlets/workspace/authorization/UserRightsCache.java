@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.servlets.workspace.authorization;
+
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * Caches the compiled rights of each user, so that checking a right does not
+ * need to parse the user's rights data. Entries are invalidated when rights are
+ * added or removed through {@link AuthorizationService}. An entry is also only
+ * used while the rights stored in the user's preferences are the ones it was
+ * compiled from, so changes made by other means are never missed.
+ */
+class UserRightsCache {
+	/**
+	 * The storage format version that the cached rights are compiled from.
+	 */
+	private static final int CACHED_VERSION = 3;
+
+	private static final ConcurrentHashMap<String, UserRights> cache = new ConcurrentHashMap<String, UserRights>();
+
+	/**
+	 * Returns the compiled rights of the user with the given preferences.
+	 */
+	static UserRights get(String userId, IEclipsePreferences userNode) throws JSONException {
+		if (userNode.getInt(ProtocolConstants.KEY_USER_RIGHTS_VERSION, 1) != CACHED_VERSION) {
+			//reading the data migrates it to the current format, so the next call will be cached
+			return new UserRights(null, AuthorizationReader.getAuthorizationData(userId, userNode));
+		}
+		String source = userNode.get(ProtocolConstants.KEY_USER_RIGHTS, "[]"); //$NON-NLS-1$
+		UserRights cached = cache.get(userId);
+		//identical strings in the common case, so this doesn't compare contents
+		if (cached != null && source.equals(cached.source))
+			return cached;
+		UserRights rights = new UserRights(source, new JSONArray(source));
+		cache.put(userId, rights);
+		//the rights may have been changed without going through the authorization service
+		UserRightsIndex.refresh(userId, userNode);
+		return rights;
+	}
+
+	/**
+	 * Discards the compiled rights of the given user.
+	 */
+	static void invalidate(String userId) {
+		cache.remove(userId);
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.internal.server.servlets.workspace.authorization;
+
+import java.util.*;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
+import org.eclipse.orion.server.core.LogHelper;
+import org.eclipse.orion.server.core.users.OrionScope;
+import org.json.*;
+import org.osgi.service.prefs.BackingStoreException;
+
+/**
+ * A reverse index from each granted right to the users holding it. The index is
+ * kept in a sorted map so that all rights that are a prefix of a given URI can be
+ * found without looking at any user's rights.
+ * <p>
+ * The index only lives in memory. It is built from the rights of all users when it
+ * is first used, so it can never disagree with rights persisted by an earlier run
+ * of the server. Callers must hold the lock returned by {@link #getLock()} while
+ * changing a user's rights and updating the index, so that the two are always
+ * changed together. The entries of a user are also refreshed whenever the user's
+ * rights are compiled by {@link UserRightsCache}, which picks up rights changed
+ * by other means than {@link AuthorizationService}.
+ * </p>
+ */
+class UserRightsIndex {
+	private static final Object lock = new Object();
+	/**
+	 * Maps each right to the ids of the users holding it, or <code>null</code> if the
+	 * index has not been built yet.
+	 */
+	private static SortedMap<String, Set<String>> index;
+	/**
+	 * Maps the id of each user to the rights the index holds for the user.
+	 */
+	private static Map<String, Set<String>> userRights;
+
+	/**
+	 * Returns the lock guarding the index and all changes to user rights.
+	 */
+	static Object getLock() {
+		return lock;
+	}
+
+	/**
+	 * Returns the ids of all users holding a right that is a prefix of the given URI.
+	 */
+	static List<String> findUsers(String uri) {
+		Set<String> result = new LinkedHashSet<String>();
+		synchronized (lock) {
+			SortedMap<String, Set<String>> rights = getIndex();
+			//walk backwards through the rights that sort before the uri, skipping over those that aren't prefixes
+			String bound = uri + '\0';
+			while (true) {
+				SortedMap<String, Set<String>> head = rights.headMap(bound);
+				if (head.isEmpty())
+					break;
+				String right = head.lastKey();
+				int common = 0;
+				int max = Math.min(right.length(), uri.length());
+				while (common < max && right.charAt(common) == uri.charAt(common))
+					common++;
+				if (common == right.length()) {
+					result.addAll(head.get(right));
+					bound = right;
+				} else {
+					//no right longer than the common prefix can be a prefix of the uri
+					bound = uri.substring(0, common) + '\0';
+				}
+			}
+		}
+		return new ArrayList<String>(result);
+	}
+
+	private static SortedMap<String, Set<String>> getIndex() {
+		if (index == null)
+			rebuild();
+		return index;
+	}
+
+	/**
+	 * Computes the index from the rights of all users.
+	 */
+	private static void rebuild() {
+		index = new TreeMap<String, Set<String>>();
+		userRights = new HashMap<String, Set<String>>();
+		IEclipsePreferences users = new OrionScope().getNode("Users"); //$NON-NLS-1$
+		try {
+			for (String user : users.childrenNames())
+				setRights(user, readRights(user, (IEclipsePreferences) users.node(user)));
+		} catch (BackingStoreException e) {
+			LogHelper.log(e);
+		} catch (JSONException e) {
+			LogHelper.log(e);
+		}
+	}
+
+	private static Set<String> readRights(String userId, IEclipsePreferences userNode) throws JSONException {
+		JSONArray rights = AuthorizationReader.getAuthorizationData(userId, userNode);
+		Set<String> result = new HashSet<String>();
+		for (int i = 0; i < rights.length(); i++)
+			result.add(rights.getJSONObject(i).getString(ProtocolConstants.KEY_USER_RIGHT_URI));
+		return result;
+	}
+
+	/**
+	 * Replaces the entries of the given user with the given rights.
+	 */
+	private static void setRights(String userId, Set<String> newRights) {
+		Set<String> oldRights = userRights.get(userId);
+		if (oldRights == null)
+			oldRights = Collections.emptySet();
+		for (String right : oldRights) {
+			if (!newRights.contains(right)) {
+				Set<String> users = index.get(right);
+				if (users != null && users.remove(userId) && users.isEmpty())
+					index.remove(right);
+			}
+		}
+		for (String right : newRights) {
+			if (!oldRights.contains(right)) {
+				Set<String> users = index.get(right);
+				if (users == null) {
+					users = new HashSet<String>();
+					index.put(right, users);
+				}
+				users.add(userId);
+			}
+		}
+		if (newRights.isEmpty())
+			userRights.remove(userId);
+		else
+			userRights.put(userId, newRights);
+	}
+
+	/**
+	 * Updates the index after the rights of a user have changed. The caller must hold
+	 * the index lock.
+	 * @param userId The user whose rights changed
+	 * @param newRights The rights the user holds after the change
+	 */
+	static void update(String userId, Collection<String> newRights) {
+		//an index that hasn't been built yet will read the new rights when it is
+		if (index != null)
+			setRights(userId, new HashSet<String>(newRights));
+	}
+
+	/**
+	 * Reads the rights stored for the given user, and updates the entries of the
+	 * user if they differ from the index.
+	 * @param userId The user whose rights to read
+	 * @param userNode The preferences of the user
+	 */
+	static void refresh(String userId, IEclipsePreferences userNode) {
+		synchronized (lock) {
+			if (index == null)
+				return;
+			try {
+				setRights(userId, readRights(userId, userNode));
+			} catch (JSONException e) {
+				LogHelper.log(e);
+			}
+		}
+	}
+}
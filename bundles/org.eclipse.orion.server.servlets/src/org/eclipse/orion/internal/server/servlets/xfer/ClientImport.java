@@ -23,6 +23,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.*;
+import org.eclipse.orion.internal.server.core.Activator;
 import org.eclipse.orion.internal.server.core.IOUtilities;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
@@ -74,6 +75,7 @@ class ClientImport {
 			IFileStore source = EFS.getStore(new File(getStorageDirectory(), FILE_DATA).toURI());
 			IFileStore destination = NewFileServlet.getFileStore(destPath);
 			source.move(destination, EFS.OVERWRITE, null);
+			Activator.fireFileChanged(destination);
 		} catch (CoreException e) {
 			String msg = NLS.bind("Failed to complete file transfer on {0}", destPath.toString());
 			statusHandler.handleRequest(req, resp, new ServerStatus(IStatus.ERROR, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg, e));
@@ -125,6 +127,7 @@ class ClientImport {
 				}
 			}
 			source.close();
+			Activator.fireFileChanged(destinationRoot);
 		} catch (ZipException e) {
 			//zip exception implies client sent us invalid input
 			String msg = NLS.bind("Failed to complete file transfer on {0}", destPath.toString());
@@ -26,6 +26,7 @@ import org.eclipse.orion.internal.server.servlets.ServletResourceHandler;
 import org.eclipse.orion.internal.server.servlets.file.NewFileServlet;
 import org.eclipse.orion.internal.server.servlets.task.TaskJobHandler;
 import org.eclipse.orion.server.core.ServerStatus;
+import org.eclipse.orion.server.core.tasks.JobFamily;
 import org.eclipse.orion.server.core.tasks.TaskInfo;
 import org.eclipse.orion.server.servlets.OrionServlet;
 import org.eclipse.osgi.util.NLS;
@@ -89,7 +90,14 @@ class SFTPTransfer {
 		} else {
 			job = new SFTPExportJob(TaskJobHandler.getUserId(request), localFile, host, port, new Path(remotePath), user, passphrase, options);
 		}
-		job.schedule();
+		IStatus admission = JobFamily.get(SFTPTransferJob.FAMILY).schedule(job, TaskJobHandler.getUserId(request));
+		if (!admission.isOK()) {
+			//the job created its task, which will never run
+			job.getTask().done(admission);
+			job.getTaskService().updateTask(job.getTask());
+			TaskJobHandler.handleRejected(request, response, admission, statusHandler);
+			return;
+		}
 		TaskInfo task = job.getTask();
 		JSONObject result = task.toJSON();
 		//Not nice that the import service knows the location of the task servlet, but task service doesn't know this either
@@ -27,6 +27,10 @@ import org.osgi.framework.ServiceReference;
  * Common base class for import/export over SFTP
  */
 public abstract class SFTPTransferJob extends Job {
+	/**
+	 * The family of SFTP transfer jobs.
+	 */
+	public static final String FAMILY = "sftp"; //$NON-NLS-1$
 
 	protected final String host;
 	protected final File localRoot;
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.servlets;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import org.json.*;
+
+/**
+ * Writes JSON values to a stream in compact form, without first serializing them to a string.
+ * URLs can be unqualified by a {@link JsonURIUnqualificationStrategy} while they are written,
+ * rather than by rewriting the JSON values beforehand. The output is the same as that of
+ * <code>toString()</code> on the unqualified value.
+ */
+public class JsonResponseWriter {
+	private final Writer out;
+	private final JsonURIUnqualificationStrategy strategy;
+	private final String scheme;
+	private final String hostname;
+	private final int port;
+
+	/**
+	 * Creates a writer that writes URLs unchanged.
+	 * @param out the stream to write to
+	 */
+	public JsonResponseWriter(Writer out) {
+		this(out, null, null, null, -1);
+	}
+
+	/**
+	 * Creates a writer that unqualifies the URLs of the given server as they are written.
+	 * @param out the stream to write to
+	 * @param strategy the strategy selecting the URLs to unqualify
+	 * @param scheme the scheme of the server
+	 * @param hostname the host name of the server
+	 * @param port the port of the server
+	 */
+	public JsonResponseWriter(Writer out, JsonURIUnqualificationStrategy strategy, String scheme, String hostname, int port) {
+		this.out = out;
+		this.strategy = strategy;
+		this.scheme = scheme;
+		this.hostname = hostname;
+		this.port = port;
+	}
+
+	/**
+	 * Writes the given JSON object or array.
+	 */
+	public void write(Object json) throws IOException {
+		writeValue(json);
+	}
+
+	private void writeObject(JSONObject object) throws IOException {
+		out.write('{');
+		boolean first = true;
+		for (Iterator<?> keys = object.keys(); keys.hasNext();) {
+			String key = keys.next().toString();
+			if (!first)
+				out.write(',');
+			first = false;
+			out.write(JSONObject.quote(key));
+			out.write(':');
+			Object value = object.opt(key);
+			URI uri = toURI(value);
+			if (uri != null)
+				value = strategy.unqualifyObjectProperty(key, uri, scheme, hostname, port);
+			writeValue(value);
+		}
+		out.write('}');
+	}
+
+	private void writeArray(JSONArray array) throws IOException {
+		out.write('[');
+		for (int i = 0, length = array.length(); i < length; i++) {
+			if (i > 0)
+				out.write(',');
+			Object value = array.opt(i);
+			URI uri = toURI(value);
+			if (uri != null)
+				value = strategy.unqualifyArrayValue(i, uri, scheme, hostname, port);
+			writeValue(value);
+		}
+		out.write(']');
+	}
+
+	/**
+	 * Writes a value the way <code>JSONObject.toString()</code> writes it.
+	 */
+	private void writeValue(Object value) throws IOException {
+		if (value instanceof JSONObject)
+			writeObject((JSONObject) value);
+		else if (value instanceof JSONArray)
+			writeArray((JSONArray) value);
+		else if (value == null || value.equals(null))
+			out.write("null"); //$NON-NLS-1$
+		else if (value instanceof JSONString)
+			out.write(((JSONString) value).toJSONString());
+		else if (value instanceof Number) {
+			try {
+				out.write(JSONObject.numberToString((Number) value));
+			} catch (JSONException e) {
+				//non-finite numbers are rejected when they are put into a JSON value
+				throw new IOException(e.getMessage());
+			}
+		} else if (value instanceof Boolean)
+			out.write(value.toString());
+		else if (value instanceof Map<?, ?>)
+			writeObject(new JSONObject((Map<?, ?>) value));
+		else if (value instanceof Collection<?>)
+			writeArray(new JSONArray((Collection<?>) value));
+		else
+			out.write(JSONObject.quote(value.toString()));
+	}
+
+	/**
+	 * Returns the given value as a URL that may need to be unqualified, or <code>null</code>
+	 * if it is not a URL or no unqualification is done.
+	 */
+	private URI toURI(Object value) {
+		if (strategy == null)
+			return null;
+		if (value instanceof URI)
+			return (URI) value;
+		if (value instanceof String && ((String) value).startsWith(scheme)) {
+			try {
+				return new URI((String) value);
+			} catch (URISyntaxException e) {
+				//not a URL after all
+			}
+		}
+		return null;
+	}
+}
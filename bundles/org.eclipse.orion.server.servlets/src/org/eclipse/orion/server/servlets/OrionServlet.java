@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.orion.server.servlets;
 
-import java.io.IOException;
-import java.io.StringWriter;
+import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collection;
@@ -24,6 +23,7 @@ import org.eclipse.orion.internal.server.core.IWebResourceDecorator;
 import org.eclipse.orion.internal.server.servlets.*;
 import org.eclipse.orion.server.core.ServerStatus;
 import org.json.*;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -38,6 +38,10 @@ public abstract class OrionServlet extends HttpServlet {
 
 	private static final long serialVersionUID = 1L;
 	private static final ServletResourceHandler<IStatus> statusHandler = new ServletStatusHandler();
+	/**
+	 * The request parameter asking for JSON responses to be indented.
+	 */
+	private static final String PARM_PRETTY = "pretty"; //$NON-NLS-1$
 
 	private static String prettyPrint(Object result) {
 		try {
@@ -53,20 +57,48 @@ public abstract class OrionServlet extends HttpServlet {
 		writeJSONResponse(req, resp, result, JsonURIUnqualificationStrategy.ALL);
 	}
 
+	/**
+	 * Writes a JSON response. The response is written in compact form as it is serialized,
+	 * unless the request has a <code>pretty</code> parameter asking for indented output.
+	 */
 	public static void writeJSONResponse(HttpServletRequest req, HttpServletResponse resp, Object result, JsonURIUnqualificationStrategy strategy) throws IOException {
 		Assert.isLegal(result instanceof JSONObject || result instanceof JSONArray);
 		resp.setCharacterEncoding("UTF-8"); //$NON-NLS-1$
 		resp.setStatus(HttpServletResponse.SC_OK);
 		resp.setHeader("Cache-Control", "no-cache"); //$NON-NLS-1$ //$NON-NLS-2$
 		resp.setHeader("Cache-Control", "no-store"); //$NON-NLS-1$ //$NON-NLS-2$
-		if (result instanceof JSONObject) {
-			decorateResponse(req, (JSONObject) result, strategy);
-		}
 		//TODO look at accept header and chose appropriate response representation
 		resp.setContentType(ProtocolConstants.CONTENT_TYPE_JSON);
-		String response = prettyPrint(result);
-		resp.getWriter().print(response);
-		LoggerFactory.getLogger(OrionServlet.class).debug(response);
+		Logger logger = LoggerFactory.getLogger(OrionServlet.class);
+		if (req.getParameter(PARM_PRETTY) != null || logger.isDebugEnabled()) {
+			if (result instanceof JSONObject)
+				decorateResponse(req, (JSONObject) result, strategy);
+			String response = req.getParameter(PARM_PRETTY) != null ? prettyPrint(result) : result.toString();
+			resp.getWriter().print(response);
+			logger.debug(response);
+			return;
+		}
+		//flushing the servlet writer would commit the response, and callers may still set the status or headers
+		Writer out = new BufferedWriter(new FilterWriter(resp.getWriter()) {
+			@Override
+			public void flush() {
+				//the container flushes the response when the request is done
+			}
+		});
+		JsonResponseWriter writer;
+		if (result instanceof JSONObject) {
+			decorateResponse(req, (JSONObject) result);
+			//URLs are unqualified while writing rather than by rewriting the response first
+			if (isUnqualified(req))
+				writer = new JsonResponseWriter(out, strategy, req.getScheme(), req.getServerName(), req.getServerPort());
+			else
+				writer = new JsonResponseWriter(out);
+		} else {
+			writer = new JsonResponseWriter(out);
+		}
+		writer.write(result);
+		//only moves the buffered characters into the servlet writer
+		out.flush();
 	}
 
 	/**
@@ -77,12 +109,19 @@ public abstract class OrionServlet extends HttpServlet {
 	 */
 	public static void decorateResponse(HttpServletRequest req, JSONObject result, JsonURIUnqualificationStrategy strategy) {
 		decorateResponse(req, result);
-		if ("XMLHttpRequest".equals(req.getHeader("X-Requested-With"))) { //$NON-NLS-1$ //$NON-NLS-2$
-			// In JSON that is sent to in-Browser clients, remove scheme/userInfo/port information from URLs.
+		if (isUnqualified(req)) {
 			strategy.run(req, result);
 		}
 	}
 
+	/**
+	 * Returns whether URLs in the JSON response to the given request are unqualified.
+	 */
+	private static boolean isUnqualified(HttpServletRequest req) {
+		// In JSON that is sent to in-Browser clients, remove scheme/userInfo/port information from URLs.
+		return "XMLHttpRequest".equals(req.getHeader("X-Requested-With")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	/**
 	 * If there is a search provider for this request resource, then add the search
 	 * service location to the result object.
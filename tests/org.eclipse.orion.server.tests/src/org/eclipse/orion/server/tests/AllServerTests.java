@@ -12,6 +12,7 @@ package org.eclipse.orion.server.tests;
 
 import org.eclipse.orion.server.tests.prefs.PreferenceTest;
 import org.eclipse.orion.server.tests.search.SearchTest;
+import org.eclipse.orion.server.tests.servlets.OrionServletTest;
 import org.eclipse.orion.server.tests.servlets.files.AdvancedFilesTest;
 import org.eclipse.orion.server.tests.servlets.files.CoreFilesTest;
 import org.eclipse.orion.server.tests.servlets.git.AllGitTests;
@@ -28,7 +29,7 @@ import org.junit.runners.Suite.SuiteClasses;
  * Runs all automated server tests.
  */
 @RunWith(Suite.class)
-@SuiteClasses({SearchTest.class, TransferTest.class, Base64Test.class, CoreFilesTest.class, AdvancedFilesTest.class, PreferenceTest.class, BasicUsersTest.class, WorkspaceServiceTest.class, AllSiteTests.class, AllGitTests.class, AllTaskTests.class, WebElementTest.class})
+@SuiteClasses({SearchTest.class, TransferTest.class, Base64Test.class, CoreFilesTest.class, AdvancedFilesTest.class, PreferenceTest.class, BasicUsersTest.class, WorkspaceServiceTest.class, AllSiteTests.class, AllGitTests.class, AllTaskTests.class, WebElementTest.class, OrionServletTest.class})
 public class AllServerTests {
 	//goofy junit4, no class body needed
 }
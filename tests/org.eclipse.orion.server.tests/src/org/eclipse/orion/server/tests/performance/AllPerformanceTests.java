@@ -11,11 +11,19 @@
 
 package org.eclipse.orion.server.tests.performance;
 
+import junit.framework.JUnit4TestAdapter;
 import junit.framework.Test;
+import junit.framework.TestSuite;
 
 public class AllPerformanceTests {
 
 	public static Test suite() {
-		return JsPerformanceResults.suite();
+		TestSuite suite = new TestSuite(AllPerformanceTests.class.getName());
+		suite.addTest(JsPerformanceResults.suite());
+		suite.addTest(new JUnit4TestAdapter(AuthorizationPerformanceTest.class));
+		suite.addTest(new JUnit4TestAdapter(JsonResponsePerformanceTest.class));
+		suite.addTest(new JUnit4TestAdapter(JSONSerializerPerformanceTest.class));
+		suite.addTest(new JUnit4TestAdapter(SearchPerformanceTest.class));
+		return suite;
 	}
 }
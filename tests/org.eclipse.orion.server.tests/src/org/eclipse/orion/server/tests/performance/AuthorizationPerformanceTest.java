@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.orion.server.tests.performance;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
+import org.eclipse.orion.internal.server.servlets.workspace.authorization.AuthorizationService;
+import org.eclipse.orion.server.core.users.OrionScope;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Measures the cost of checking a right for users with 10, 1,000 and 10,000 rights.
+ */
+public class AuthorizationPerformanceTest {
+	private static final String USER = "AuthorizationPerformanceUser";
+	private static final int WARMUP_CHECKS = 10000;
+	private static final int RUNS = 10;
+	private static final int CHECKS_PER_RUN = 10000;
+
+	@After
+	public void tearDown() throws Exception {
+		IEclipsePreferences users = new OrionScope().getNode("Users");
+		users.node(USER).removeNode();
+		users.flush();
+	}
+
+	/**
+	 * Grants the test user rights to the given number of projects, in the form granted
+	 * by the workspace servlet.
+	 */
+	private void createRights(int projects) throws Exception {
+		JSONArray rights = new JSONArray();
+		int methods = AuthorizationService.POST | AuthorizationService.PUT | AuthorizationService.GET | AuthorizationService.DELETE;
+		for (int i = 0; i < projects; i++) {
+			String location = "/file/W" + i;
+			for (String uri : new String[] {location, location + "/*"}) {
+				JSONObject right = new JSONObject();
+				right.put(ProtocolConstants.KEY_USER_RIGHT_URI, uri);
+				right.put(ProtocolConstants.KEY_USER_RIGHT_METHOD, methods);
+				rights.put(right);
+			}
+		}
+		IEclipsePreferences users = new OrionScope().getNode("Users");
+		IEclipsePreferences user = (IEclipsePreferences) users.node(USER);
+		user.put(ProtocolConstants.KEY_USER_RIGHTS, rights.toString());
+		user.putInt(ProtocolConstants.KEY_USER_RIGHTS_VERSION, 3);
+		users.flush();
+	}
+
+	private void measure(String testName, int projects) throws Exception {
+		createRights(projects);
+		String hit = "/file/W" + (projects - 1) + "/folder/file.js";
+		String miss = "/file/X" + (projects - 1) + "/folder/file.js";
+		assertTrue(AuthorizationService.checkRights(USER, hit, "GET"));
+		assertFalse(AuthorizationService.checkRights(USER, miss, "GET"));
+		for (int i = 0; i < WARMUP_CHECKS; i++)
+			AuthorizationService.checkRights(USER, (i & 1) == 0 ? hit : miss, "GET");
+		Performance perf = Performance.getDefault();
+		PerformanceMeter meter = perf.createPerformanceMeter(getClass().getName() + '#' + testName + "()");
+		try {
+			for (int run = 0; run < RUNS; run++) {
+				meter.start();
+				for (int i = 0; i < CHECKS_PER_RUN; i++)
+					AuthorizationService.checkRights(USER, (i & 1) == 0 ? hit : miss, "GET");
+				meter.stop();
+			}
+			meter.commit();
+			perf.assertPerformance(meter);
+		} finally {
+			meter.dispose();
+		}
+	}
+
+	@Test
+	public void testTenRights() throws Exception {
+		measure("testTenRights", 5);
+	}
+
+	@Test
+	public void testThousandRights() throws Exception {
+		measure("testThousandRights", 500);
+	}
+
+	@Test
+	public void testTenThousandRights() throws Exception {
+		measure("testTenThousandRights", 5000);
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.orion.server.tests.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import org.eclipse.orion.server.core.resources.*;
+import org.eclipse.orion.server.core.resources.annotations.PropertyDescription;
+import org.eclipse.orion.server.core.resources.annotations.ResourceDescription;
+import org.eclipse.orion.server.tests.resources.TestResource;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures serializing pages of resources with {@link JSONSerializer}, which looks up the
+ * getters of a resource class once per resource shape, and the same pages when looking up
+ * each getter for every serialized property. Both must produce the same JSON.
+ */
+public class JSONSerializerPerformanceTest {
+	private static final int RESOURCES = 100;
+	private static final int WARMUP_PAGES = 200;
+	private static final int PAGES = 1000;
+
+	/**
+	 * Serializes one resource of a page.
+	 */
+	private interface PageSerializer {
+		Object serialize(TestResource resource) throws Exception;
+	}
+
+	private TestResource[] resources;
+	private ResourceShape shape;
+	private Serializer<JSONObject> serializer;
+
+	/**
+	 * Serializes a resource the way JSONSerializer did before it cached its lookups.
+	 */
+	private static JSONObject serializeUncached(Object resource, ResourceShape resourceShape) throws Exception {
+		JSONObject result = new JSONObject();
+		for (Property property : resourceShape.getProperties()) {
+			Method getter = ReflectionHelper.findGetterForPropertyName(resource.getClass(), property.getName());
+			Object value = ReflectionHelper.callGetter(resource, getter);
+			if (ReflectionHelper.getAnnotation(getter, PropertyDescription.class).expandable())
+				result.put(property.getName(), serializeUncached(value, property.getResourceShape()));
+			else
+				result.put(property.getName(), value);
+		}
+		result.put("Type", resource.getClass().getAnnotation(ResourceDescription.class).type());
+		return result;
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		resources = new TestResource[RESOURCES];
+		for (int i = 0; i < RESOURCES; i++)
+			resources[i] = new TestResource("Resource" + i, i, true, new TestResource("Child" + i, RESOURCES + i, false, null));
+		shape = ResourceShapeFactory.createResourceShape(TestResource.class, null);
+		serializer = new JSONSerializer();
+		assertEquals(serializeUncached(resources[0], shape).toString(), serializer.serialize(resources[0], shape).toString());
+	}
+
+	private void measure(String testName, PageSerializer pageSerializer) throws Exception {
+		for (int i = 0; i < WARMUP_PAGES; i++)
+			for (TestResource resource : resources)
+				pageSerializer.serialize(resource);
+		Performance perf = Performance.getDefault();
+		PerformanceMeter meter = perf.createPerformanceMeter(getClass().getName() + '#' + testName + "()");
+		try {
+			for (int i = 0; i < PAGES; i++) {
+				meter.start();
+				for (TestResource resource : resources)
+					pageSerializer.serialize(resource);
+				meter.stop();
+			}
+			meter.commit();
+			perf.assertPerformance(meter);
+		} finally {
+			meter.dispose();
+		}
+	}
+
+	@Test
+	public void testSerializeUncached() throws Exception {
+		measure("testSerializeUncached", new PageSerializer() {
+			public Object serialize(TestResource resource) throws Exception {
+				return serializeUncached(resource, shape);
+			}
+		});
+	}
+
+	@Test
+	public void testSerializePlan() throws Exception {
+		measure("testSerializePlan", new PageSerializer() {
+			public Object serialize(TestResource resource) throws Exception {
+				return serializer.serialize(resource, shape);
+			}
+		});
+	}
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.orion.server.tests.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.*;
+import java.lang.reflect.*;
+import javax.servlet.http.HttpServletRequest;
+import org.eclipse.orion.server.servlets.JsonResponseWriter;
+import org.eclipse.orion.server.servlets.JsonURIUnqualificationStrategy;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.json.*;
+import org.junit.Test;
+
+/**
+ * Measures writing JSON responses with {@link JsonResponseWriter}, for payloads shaped
+ * like a git log, a directory listing and a workspace. The written JSON must be the same
+ * as unqualifying the response and converting it to a string.
+ */
+public class JsonResponsePerformanceTest {
+	private static final String SERVER = "http://localhost:8080";
+	private static final int WARMUP_WRITES = 20;
+	private static final int WRITES = 100;
+
+	private static HttpServletRequest createRequest() {
+		return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getScheme"))
+					return "http";
+				if (method.getName().equals("getServerName"))
+					return "localhost";
+				if (method.getName().equals("getServerPort"))
+					return 8080;
+				return null;
+			}
+		});
+	}
+
+	private static JSONObject createLog() throws JSONException {
+		JSONArray commits = new JSONArray();
+		for (int i = 0; i < 1000; i++) {
+			String id = Integer.toHexString(0x10000000 + i) + "0123456789abcdef0123456789abcdef";
+			JSONObject commit = new JSONObject();
+			commit.put("Name", id);
+			commit.put("AuthorName", "Author " + (i % 20));
+			commit.put("AuthorEmail", "author" + (i % 20) + "@example.org");
+			commit.put("CommitterName", "Committer " + (i % 5));
+			commit.put("Message", "Fix bug " + i + "\n\nThe \"details\" of the change.");
+			commit.put("Time", 1340000000000L + i * 60000L);
+			commit.put("Location", SERVER + "/gitapi/commit/" + id + "/file/W/project/");
+			commit.put("ContentLocation", SERVER + "/gitapi/commit/" + id + "/file/W/project/?parts=body");
+			commit.put("DiffLocation", SERVER + "/gitapi/diff/" + id + "/file/W/project/");
+			JSONArray parents = new JSONArray();
+			JSONObject parent = new JSONObject();
+			parent.put("Name", id);
+			parent.put("Location", SERVER + "/gitapi/commit/" + id + "/file/W/project/");
+			parents.put(parent);
+			commit.put("Parents", parents);
+			commit.put("Tags", new JSONArray());
+			commits.put(commit);
+		}
+		JSONObject log = new JSONObject();
+		log.put("Children", commits);
+		log.put("Location", SERVER + "/gitapi/commit/master/file/W/project/");
+		log.put("CloneLocation", SERVER + "/gitapi/clone/file/W/project/");
+		return log;
+	}
+
+	private static JSONObject createDirectory() throws JSONException {
+		JSONArray children = new JSONArray();
+		for (int i = 0; i < 5000; i++) {
+			boolean directory = i % 10 == 0;
+			String name = "file" + i + (directory ? "/" : ".js");
+			JSONObject child = new JSONObject();
+			child.put("Name", name);
+			child.put("LocalTimeStamp", 1340000000000L + i);
+			child.put("Directory", directory);
+			child.put("Length", i * 17);
+			child.put("Location", SERVER + "/file/W/project/" + name);
+			if (directory)
+				child.put("ChildrenLocation", SERVER + "/file/W/project/" + name + "?depth=1");
+			JSONObject attributes = new JSONObject();
+			attributes.put("ReadOnly", false);
+			attributes.put("Executable", false);
+			child.put("Attributes", attributes);
+			JSONObject git = new JSONObject();
+			git.put("DiffLocation", SERVER + "/gitapi/diff/Default/file/W/project/" + name);
+			git.put("StatusLocation", SERVER + "/gitapi/status/file/W/project/" + name);
+			git.put("CommitLocation", SERVER + "/gitapi/commit/HEAD/file/W/project/" + name);
+			child.put("Git", git);
+			children.put(child);
+		}
+		JSONObject directory = new JSONObject();
+		directory.put("Name", "project");
+		directory.put("Location", SERVER + "/file/W/project/");
+		directory.put("Children", children);
+		return directory;
+	}
+
+	private static JSONObject createWorkspace() throws JSONException {
+		JSONArray projects = new JSONArray();
+		JSONArray children = new JSONArray();
+		for (int i = 0; i < 300; i++) {
+			JSONObject project = new JSONObject();
+			project.put("Id", "P" + i);
+			project.put("Location", SERVER + "/workspace/W/project/P" + i);
+			projects.put(project);
+			JSONObject child = new JSONObject();
+			child.put("Id", "P" + i);
+			child.put("Name", "Project " + i);
+			child.put("Directory", true);
+			child.put("Location", SERVER + "/file/P" + i + "/");
+			child.put("ChildrenLocation", SERVER + "/file/P" + i + "/?depth=1");
+			children.put(child);
+		}
+		JSONObject workspace = new JSONObject();
+		workspace.put("Id", "W");
+		workspace.put("Name", "Orion Content");
+		workspace.put("Location", SERVER + "/workspace/W");
+		workspace.put("Projects", projects);
+		workspace.put("Children", children);
+		return workspace;
+	}
+
+	/**
+	 * Discards what is written, but counts it so that writing can't be optimized away.
+	 */
+	private static class CountingWriter extends Writer {
+		long count;
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void write(int c) {
+			count++;
+		}
+
+		@Override
+		public void write(String str) {
+			count += str.length();
+		}
+
+		@Override
+		public void flush() {
+			//nothing to flush
+		}
+
+		@Override
+		public void close() {
+			//nothing to close
+		}
+	}
+
+	private long writeStreaming(JSONObject json) throws Exception {
+		CountingWriter out = new CountingWriter();
+		Writer buffered = new BufferedWriter(out);
+		new JsonResponseWriter(buffered, JsonURIUnqualificationStrategy.ALL, "http", "localhost", 8080).write(json);
+		buffered.flush();
+		return out.count;
+	}
+
+	private void measure(String testName, JSONObject json) throws Exception {
+		StringWriter streamed = new StringWriter();
+		new JsonResponseWriter(streamed, JsonURIUnqualificationStrategy.ALL, "http", "localhost", 8080).write(new JSONObject(json.toString()));
+		JSONObject rewritten = new JSONObject(json.toString());
+		JsonURIUnqualificationStrategy.ALL.run(createRequest(), rewritten);
+		assertEquals(rewritten.toString(), streamed.toString());
+
+		for (int i = 0; i < WARMUP_WRITES; i++)
+			writeStreaming(json);
+		Performance perf = Performance.getDefault();
+		PerformanceMeter meter = perf.createPerformanceMeter(getClass().getName() + '#' + testName + "()");
+		try {
+			for (int i = 0; i < WRITES; i++) {
+				meter.start();
+				writeStreaming(json);
+				meter.stop();
+			}
+			meter.commit();
+			perf.assertPerformance(meter);
+		} finally {
+			meter.dispose();
+		}
+	}
+
+	@Test
+	public void testGitLog() throws Exception {
+		measure("testGitLog", createLog());
+	}
+
+	@Test
+	public void testDirectory() throws Exception {
+		measure("testDirectory", createDirectory());
+	}
+
+	@Test
+	public void testWorkspace() throws Exception {
+		measure("testWorkspace", createWorkspace());
+	}
+}
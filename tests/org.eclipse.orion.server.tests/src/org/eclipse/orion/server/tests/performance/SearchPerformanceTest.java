@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.orion.server.tests.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.*;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.common.*;
+import org.eclipse.orion.internal.server.search.SearchActivator;
+import org.eclipse.test.performance.Performance;
+import org.eclipse.test.performance.PerformanceMeter;
+import org.junit.*;
+
+/**
+ * Measures the latency of substring searches using leading wildcard queries and term
+ * queries on the n-gram fields, over a synthetic corpus. Both forms of each query must
+ * find the same documents.
+ */
+public class SearchPerformanceTest {
+	private static final String USER = "SearchPerformanceUser";
+	/**
+	 * The prefix of the ids of the synthetic documents, so they can't replace documents of
+	 * other tests in the shared index.
+	 */
+	private static final String ID_PREFIX = "SearchPerformanceTest-";
+	private static final int DOCUMENT_COUNT = 20000;
+	private static final int WORDS_PER_DOCUMENT = 200;
+	private static final int VOCABULARY_SIZE = 50000;
+	private static final int QUERY_COUNT = 200;
+
+	private static SolrServer server;
+	private static List<String> vocabulary;
+
+	@BeforeClass
+	public static void createCorpus() throws Exception {
+		server = SearchActivator.getInstance().getSolrServer();
+		Random random = new Random(42);
+		vocabulary = new ArrayList<String>(VOCABULARY_SIZE);
+		for (int i = 0; i < VOCABULARY_SIZE; i++)
+			vocabulary.add(randomWord(random));
+		List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>();
+		for (int i = 0; i < DOCUMENT_COUNT; i++) {
+			String name = vocabulary.get(random.nextInt(VOCABULARY_SIZE)) + i + ".js";
+			StringBuilder text = new StringBuilder();
+			for (int w = 0; w < WORDS_PER_DOCUMENT; w++)
+				text.append(vocabulary.get(random.nextInt(VOCABULARY_SIZE))).append(' ');
+			SolrInputDocument doc = new SolrInputDocument();
+			doc.addField("Id", ID_PREFIX + i);
+			doc.addField("Name", name);
+			doc.addField("NameLower", name);
+			doc.addField("Text", text.toString());
+			doc.addField("UserName", USER);
+			batch.add(doc);
+			if (batch.size() == 1000) {
+				server.add(batch);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty())
+			server.add(batch);
+		server.commit();
+	}
+
+	@AfterClass
+	public static void deleteCorpus() throws Exception {
+		if (server == null)
+			return;
+		//also removes the documents added before a failure to create the whole corpus
+		List<String> ids = new ArrayList<String>(DOCUMENT_COUNT);
+		for (int i = 0; i < DOCUMENT_COUNT; i++)
+			ids.add(ID_PREFIX + i);
+		server.deleteById(ids);
+		server.commit();
+	}
+
+	private static String randomWord(Random random) {
+		int length = 4 + random.nextInt(9);
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+			word.append((char) ('a' + random.nextInt(26)));
+		return word.toString();
+	}
+
+	/**
+	 * Runs the query and returns the ids of all matching documents.
+	 */
+	private Set<Object> search(PerformanceMeter meter, String queryString) throws Exception {
+		SolrQuery query = new SolrQuery(queryString + " AND UserName:" + USER);
+		query.setFields("Id");
+		query.setRows(DOCUMENT_COUNT);
+		meter.start();
+		SolrDocumentList results = server.query(query).getResults();
+		meter.stop();
+		Set<Object> ids = new HashSet<Object>();
+		for (SolrDocument doc : results)
+			ids.add(doc.getFieldValue("Id"));
+		return ids;
+	}
+
+	/**
+	 * Runs each substring search as a wildcard query and as a gram query, asserts that
+	 * both find the same documents, and reports the latency of each form.
+	 */
+	private void measure(String testName, String field, String gramField, int minLength, int maxLength) throws Exception {
+		Random random = new Random(7);
+		Performance perf = Performance.getDefault();
+		PerformanceMeter wildcardMeter = perf.createPerformanceMeter(getClass().getName() + '#' + testName + "Wildcard()");
+		PerformanceMeter gramMeter = perf.createPerformanceMeter(getClass().getName() + '#' + testName + "Gram()");
+		try {
+			int matches = 0;
+			for (int i = 0; i < QUERY_COUNT; i++) {
+				String word = vocabulary.get(random.nextInt(VOCABULARY_SIZE));
+				int length = Math.min(word.length(), minLength + random.nextInt(maxLength - minLength + 1));
+				int offset = random.nextInt(word.length() - length + 1);
+				String segment = word.substring(offset, offset + length);
+				//alternate the order so neither form benefits from a warm cache
+				Set<Object> wildcard, gram;
+				if (i % 2 == 0) {
+					wildcard = search(wildcardMeter, field + ":*" + segment + '*');
+					gram = search(gramMeter, gramField + ':' + segment);
+				} else {
+					gram = search(gramMeter, gramField + ':' + segment);
+					wildcard = search(wildcardMeter, field + ":*" + segment + '*');
+				}
+				assertEquals(segment, wildcard, gram);
+				matches += gram.size();
+			}
+			assertTrue(matches > 0);
+			wildcardMeter.commit();
+			gramMeter.commit();
+			perf.assertPerformance(wildcardMeter);
+			perf.assertPerformance(gramMeter);
+		} finally {
+			wildcardMeter.dispose();
+			gramMeter.dispose();
+		}
+	}
+
+	@Test
+	public void testNameSubstring() throws Exception {
+		measure("testNameSubstring", "NameLower", "NameLowerGram", 1, 6);
+	}
+
+	@Test
+	public void testTextSubstring() throws Exception {
+		measure("testTextSubstring", "Text", "TextGram", 2, 6);
+	}
+}
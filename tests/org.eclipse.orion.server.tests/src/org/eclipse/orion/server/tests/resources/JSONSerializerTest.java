@@ -71,6 +71,24 @@ public class JSONSerializerTest {
 		assertEquals(TestResource.TEST_TYPE, jsonObject.getString("Type"));
 	}
 
+	@Test
+	public void testSerializeChangedShape() throws Exception {
+		// given
+		TestResource testResource = new TestResource();
+		Serializer<JSONObject> jsonSerializer = new JSONSerializer();
+		ResourceShape resourceShape = new ResourceShape();
+		resourceShape.addProperty(TestResource.STRING_PROPERTY);
+		jsonSerializer.serialize(testResource, resourceShape);
+
+		// when
+		resourceShape.addProperty(TestResource.INT_PROPERTY);
+		JSONObject jsonObject = jsonSerializer.serialize(testResource, resourceShape);
+
+		// then
+		assertEquals(testResource.getName(), jsonObject.getString(TestResource.STRING_PROPERTY_NAME));
+		assertEquals(testResource.getID(), jsonObject.getInt(TestResource.INT_PROPERTY_NAME));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testSerializeInvalidProperty() throws Exception {
 		// given
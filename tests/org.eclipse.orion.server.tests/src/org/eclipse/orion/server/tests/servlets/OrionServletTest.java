@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.tests.servlets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
+import org.eclipse.orion.server.servlets.OrionServlet;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for writing JSON responses with {@link OrionServlet}.
+ */
+public class OrionServletTest {
+	/**
+	 * A response that behaves like the container's: once its writer is flushed the response
+	 * is committed, and the status and headers can no longer be changed.
+	 */
+	private static class TestResponse implements InvocationHandler {
+		final StringWriter body = new StringWriter();
+		final Map<String, String> headers = new HashMap<String, String>();
+		int status = HttpServletResponse.SC_OK;
+		boolean committed;
+		private final PrintWriter writer = new PrintWriter(new FilterWriter(body) {
+			@Override
+			public void flush() throws IOException {
+				super.flush();
+				committed = true;
+			}
+		});
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if (name.equals("getWriter"))
+				return writer;
+			if (name.equals("isCommitted"))
+				return committed;
+			if (committed)
+				return null;
+			if (name.equals("setStatus"))
+				status = (Integer) args[0];
+			else if (name.equals("setHeader"))
+				headers.put((String) args[0], (String) args[1]);
+			return null;
+		}
+
+		HttpServletResponse create() {
+			return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class}, this);
+		}
+	}
+
+	private static HttpServletRequest createRequest() {
+		return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return null;
+			}
+		});
+	}
+
+	@Test
+	public void testStatusAndLocationAfterWrite() throws Exception {
+		TestResponse testResponse = new TestResponse();
+		HttpServletResponse response = testResponse.create();
+		JSONArray result = new JSONArray();
+		JSONObject child = new JSONObject();
+		child.put("Name", "child");
+		result.put(child);
+
+		//handlers creating a resource write it first, and then set the status and location
+		OrionServlet.writeJSONResponse(createRequest(), response, result);
+		response.setHeader(ProtocolConstants.HEADER_LOCATION, "/file/W/child");
+		response.setStatus(HttpServletResponse.SC_CREATED);
+
+		assertFalse(testResponse.committed);
+		assertEquals(HttpServletResponse.SC_CREATED, testResponse.status);
+		assertEquals("/file/W/child", testResponse.headers.get(ProtocolConstants.HEADER_LOCATION));
+		assertEquals(result.toString(), testResponse.body.toString());
+	}
+
+	@Test
+	public void testAcceptedAfterWrite() throws Exception {
+		TestResponse testResponse = new TestResponse();
+		HttpServletResponse response = testResponse.create();
+		JSONObject task = new JSONObject();
+		task.put("Id", "task");
+		JSONArray result = new JSONArray();
+		result.put(task);
+
+		OrionServlet.writeJSONResponse(createRequest(), response, result);
+		response.setHeader(ProtocolConstants.HEADER_LOCATION, "/task/id/task");
+		response.setStatus(HttpServletResponse.SC_ACCEPTED);
+
+		assertEquals(HttpServletResponse.SC_ACCEPTED, testResponse.status);
+		assertEquals("/task/id/task", testResponse.headers.get(ProtocolConstants.HEADER_LOCATION));
+	}
+}
@@ -15,6 +15,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import com.meterware.httpunit.*;
+import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.HashMap;
@@ -94,6 +95,77 @@ public class AdvancedFilesTest extends FileSystemTest {
 		assertEquals(etag2, etag3);
 	}
 
+	@Test
+	public void testETagAfterExternalChange() throws Exception {
+		String fileName = "externalfile.txt";
+		createFile(fileName, "first");
+		File file = EFS.getStore(makeLocalPathAbsolute(fileName)).toLocalFile(EFS.NONE, null);
+		long lastModified = System.currentTimeMillis() - 60000;
+		file.setLastModified(lastModified);
+
+		WebRequest request = getGetFilesRequest(fileName + "?parts=meta");
+		WebResponse response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+		String etag1 = new JSONObject(response.getText()).getString(ProtocolConstants.KEY_ETAG);
+
+		//change the file outside the server, keeping its length
+		createFile(fileName, "other");
+		file.setLastModified(lastModified + 10000);
+
+		request = getGetFilesRequest(fileName + "?parts=meta");
+		response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+		String etag2 = new JSONObject(response.getText()).getString(ProtocolConstants.KEY_ETAG);
+		assertFalse(etag1.equals(etag2));
+
+		//the ETag of the contents must not depend on whether it was cached
+		request = getGetFilesRequest(fileName);
+		response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+		assertEquals("other", response.getText());
+		assertEquals(etag2, response.getHeaderField(ProtocolConstants.KEY_ETAG));
+	}
+
+	@Test
+	public void testConditionalAndRangeGet() throws Exception {
+		String fileName = "rangefile.txt";
+		createFile(fileName, "0123456789");
+
+		WebRequest request = getGetFilesRequest(fileName);
+		WebResponse response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+		assertEquals("0123456789", response.getText());
+
+		request = getGetFilesRequest(fileName + "?parts=meta");
+		response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+		String etag = new JSONObject(response.getText()).getString(ProtocolConstants.KEY_ETAG);
+
+		//the client already has the current contents
+		request = getGetFilesRequest(fileName);
+		request.setHeaderField("If-None-Match", etag);
+		response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, response.getResponseCode());
+
+		request = getGetFilesRequest(fileName);
+		request.setHeaderField("Range", "bytes=2-4");
+		response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_PARTIAL, response.getResponseCode());
+		assertEquals("bytes 2-4/10", response.getHeaderField(ProtocolConstants.HEADER_CONTENT_RANGE));
+		assertEquals("234", response.getText());
+
+		request = getGetFilesRequest(fileName);
+		request.setHeaderField("Range", "bytes=-3");
+		response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_PARTIAL, response.getResponseCode());
+		assertEquals("789", response.getText());
+
+		request = getGetFilesRequest(fileName);
+		request.setHeaderField("Range", "bytes=20-");
+		response = webConversation.getResponse(request);
+		assertEquals(416, response.getResponseCode());
+	}
+
 	@Test
 	public void testGetNonExistingFile() throws IOException, SAXException {
 		WebRequest request = getGetFilesRequest("does/not/exists/directory");
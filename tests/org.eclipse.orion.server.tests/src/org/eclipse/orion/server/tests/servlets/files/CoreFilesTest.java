@@ -335,6 +335,79 @@ public class CoreFilesTest extends FileSystemTest {
 		assertEquals("Directory information with depth = 3 returned too deep", 0, getDirectoryChildren(depthChildren.get(0)).size());
 	}
 
+	@Test
+	public void testDirectoryDepthSiblings() throws CoreException, IOException, SAXException, JSONException {
+		String basePath = "sampe/directory/wide" + System.currentTimeMillis();
+		for (String dir : new String[] {"a", "b", "c"}) {
+			createDirectory(basePath + "/" + dir + "/sub");
+			createFile(basePath + "/" + dir + "/file1.txt", "Sample file content");
+			createFile(basePath + "/" + dir + "/file2.txt", "Sample file content");
+		}
+
+		WebRequest request = getGetFilesRequest(basePath + "?depth=3");
+		WebResponse response = webConversation.getResponse(request);
+		assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+
+		List<JSONObject> children = getDirectoryChildren(new JSONObject(response.getText()));
+		assertEquals(3, children.size());
+		for (JSONObject child : children) {
+			List<JSONObject> grandChildren = getDirectoryChildren(child);
+			assertEquals("Wrong children of " + child.getString(ProtocolConstants.KEY_NAME), 3, grandChildren.size());
+			for (JSONObject grandChild : grandChildren) {
+				if (grandChild.getBoolean(ProtocolConstants.KEY_DIRECTORY))
+					assertTrue(grandChild.getString(ProtocolConstants.KEY_LOCATION).endsWith(child.getString(ProtocolConstants.KEY_NAME) + "/sub/"));
+			}
+		}
+	}
+
+	@Test
+	public void testDirectoryDepthMaxEntries() throws CoreException, IOException, SAXException, JSONException, BackingStoreException {
+		String basePath = "sampe/directory/limited" + System.currentTimeMillis();
+		for (String dir : new String[] {"a", "b", "c"}) {
+			createDirectory(basePath + "/" + dir);
+			createFile(basePath + "/" + dir + "/file1.txt", "Sample file content");
+			createFile(basePath + "/" + dir + "/file2.txt", "Sample file content");
+			createFile(basePath + "/" + dir + "/file3.txt", "Sample file content");
+		}
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(ServerConstants.PREFERENCE_SCOPE);
+		String oldValue = prefs.get(ServerConstants.CONFIG_FILE_LISTING_MAX_ENTRIES, null);
+		try {
+			//room for the three directories and the children of one of them
+			prefs.put(ServerConstants.CONFIG_FILE_LISTING_MAX_ENTRIES, "8");
+			prefs.flush();
+			WebRequest request = getGetFilesRequest(basePath + "?depth=2");
+			WebResponse response = webConversation.getResponse(request);
+			assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+			List<JSONObject> children = getDirectoryChildren(new JSONObject(response.getText()));
+			assertEquals(3, children.size());
+			int expanded = 0;
+			for (JSONObject child : children) {
+				int size = getDirectoryChildren(child).size();
+				assertTrue("Directory partially expanded", size == 0 || size == 3);
+				if (size == 3)
+					expanded++;
+				assertNotNull(child.optString(ProtocolConstants.KEY_CHILDREN_LOCATION, null));
+			}
+			assertEquals(1, expanded);
+
+			//the children of the requested directory are returned even beyond the limit
+			prefs.put(ServerConstants.CONFIG_FILE_LISTING_MAX_ENTRIES, "2");
+			prefs.flush();
+			response = webConversation.getResponse(getGetFilesRequest(basePath + "?depth=2"));
+			assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+			children = getDirectoryChildren(new JSONObject(response.getText()));
+			assertEquals(3, children.size());
+			for (JSONObject child : children)
+				assertEquals(0, getDirectoryChildren(child).size());
+		} finally {
+			if (oldValue == null)
+				prefs.remove(ServerConstants.CONFIG_FILE_LISTING_MAX_ENTRIES);
+			else
+				prefs.put(ServerConstants.CONFIG_FILE_LISTING_MAX_ENTRIES, oldValue);
+			prefs.flush();
+		}
+	}
+
 	@Test
 	public void testDirectoryWithSpaces() throws CoreException, IOException, SAXException {
 		String basePath = "sampe/dir with spaces/long" + System.currentTimeMillis();
@@ -39,6 +39,7 @@ import org.junit.runners.Suite.SuiteClasses;
 		GitLogTest.class, //
 		GitTagTest.class, //
 		GitUtilsTest.class, //
+		RepositoryPoolTest.class, //
 		GitCheckoutTest.class, //
 		GitBranchTest.class, //
 		GitCherryPickTest.class, //
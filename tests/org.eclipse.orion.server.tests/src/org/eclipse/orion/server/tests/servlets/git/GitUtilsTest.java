@@ -240,4 +240,22 @@ public class GitUtilsTest extends GitTest {
 		assertEquals("c/", GitUtils.getRelativePath(new Path("/file/a/b/c/"), new Path("../")));
 		assertEquals("b/c", GitUtils.getRelativePath(new Path("/file/a/b/c"), new Path("../")));
 	}
+
+	@Test
+	public void testGitDirCacheInvalidated() throws Exception {
+		File dir = AllGitTests.getRandomLocation().toFile();
+		dir.mkdirs();
+		try {
+			assertNull(GitUtils.getGitDir(dir));
+			Repository repository = new InitCommand().setDirectory(dir).call().getRepository();
+			GitUtils.invalidateGitDirs(dir);
+			assertEquals(repository.getDirectory().getCanonicalFile(), GitUtils.getGitDir(dir).getCanonicalFile());
+			repository.close();
+			assertTrue(deleteDir(repository.getDirectory()));
+			GitUtils.invalidateGitDirs(dir);
+			assertNull(GitUtils.getGitDir(dir));
+		} finally {
+			deleteDir(dir);
+		}
+	}
 }
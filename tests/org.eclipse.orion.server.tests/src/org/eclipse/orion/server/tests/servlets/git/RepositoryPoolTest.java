@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.tests.servlets.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.orion.server.git.RepositoryPool;
+import org.junit.Test;
+
+public class RepositoryPoolTest extends GitTest {
+	@Test
+	public void testSameRepositoryShared() throws Exception {
+		Repository first = RepositoryPool.acquire(new File(gitDir, Constants.DOT_GIT));
+		Repository second = null;
+		try {
+			// a different path to the same git directory
+			second = RepositoryPool.acquire(new File(new File(gitDir, "folder"), ".." + File.separator + Constants.DOT_GIT));
+			assertSame(first, second);
+			assertEquals(new File(gitDir, Constants.DOT_GIT).getCanonicalFile(), first.getDirectory());
+		} finally {
+			RepositoryPool.release(second);
+			RepositoryPool.release(first);
+		}
+	}
+
+	@Test
+	public void testDiscard() throws Exception {
+		File dotGit = new File(gitDir, Constants.DOT_GIT);
+		Repository first = RepositoryPool.acquire(dotGit);
+		RepositoryPool.release(first);
+		RepositoryPool.discard(dotGit);
+		Repository second = RepositoryPool.acquire(dotGit);
+		try {
+			assertNotSame(first, second);
+		} finally {
+			RepositoryPool.release(second);
+		}
+	}
+}
@@ -19,8 +19,10 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.*;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.orion.internal.server.servlets.ProtocolConstants;
 import org.eclipse.orion.internal.server.servlets.workspace.authorization.AuthorizationService;
+import org.eclipse.orion.server.core.users.OrionScope;
 import org.eclipse.orion.server.useradmin.*;
 import org.json.*;
 import org.junit.Test;
@@ -427,6 +429,36 @@ public class BasicUsersTest extends UsersTest {
 		assertEquals("Found user doesn't have the property expected", propertyValue, foundUser.getProperty(propertyName));
 	}
 
+	@Test
+	public void testFindUserWithRights() throws Exception {
+		String uid = "FindUserWithRightsTest";
+		try {
+			AuthorizationService.addUserRight(uid, "/file/FindRights/");
+			assertTrue(AuthorizationService.findUserWithRights("/file/FindRights/project/").contains(uid));
+			assertFalse(AuthorizationService.findUserWithRights("/file/Other/project/").contains(uid));
+
+			AuthorizationService.removeUserRight(uid, "/file/FindRights/");
+			assertFalse(AuthorizationService.findUserWithRights("/file/FindRights/project/").contains(uid));
+
+			//rights written without the authorization service are picked up once they are used
+			JSONArray rights = new JSONArray();
+			JSONObject right = new JSONObject();
+			right.put(ProtocolConstants.KEY_USER_RIGHT_URI, "/file/Other/");
+			right.put(ProtocolConstants.KEY_USER_RIGHT_METHOD, AuthorizationService.GET);
+			rights.put(right);
+			IEclipsePreferences user = (IEclipsePreferences) new OrionScope().getNode("Users").node(uid);
+			user.put(ProtocolConstants.KEY_USER_RIGHTS, rights.toString());
+			user.putInt(ProtocolConstants.KEY_USER_RIGHTS_VERSION, 3);
+			assertTrue(AuthorizationService.checkRights(uid, "/file/Other/project/", "GET"));
+			assertTrue(AuthorizationService.findUserWithRights("/file/Other/project/").contains(uid));
+		} finally {
+			AuthorizationService.removeUser(uid);
+			IEclipsePreferences users = new OrionScope().getNode("Users");
+			users.node(uid).removeNode();
+			users.flush();
+		}
+	}
+
 	/**
 	 * @return a string representing the test users name.
 	 */
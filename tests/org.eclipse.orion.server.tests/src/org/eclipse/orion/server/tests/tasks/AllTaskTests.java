@@ -23,7 +23,7 @@ import org.junit.runners.Suite.SuiteClasses;
  * Runs all automated server tests for site configuration/hosting support.
  */
 @RunWith(Suite.class)
-@SuiteClasses({TaskInfoTest.class, TaskStoreTest.class})
+@SuiteClasses({TaskInfoTest.class, TaskStoreTest.class, TaskLogStoreTest.class})
 public class AllTaskTests {
 
 	/**
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.orion.server.tests.tasks;
+
+import java.io.File;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Status;
+import org.eclipse.orion.internal.server.core.tasks.TaskDescription;
+import org.eclipse.orion.internal.server.core.tasks.TaskLogStore;
+import org.eclipse.orion.internal.server.core.tasks.TaskStore;
+import org.eclipse.orion.server.core.tasks.TaskInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TaskLogStore}.
+ */
+public class TaskLogStoreTest extends TestCase {
+	File tempDir;
+
+	@Test
+	public void testRoundTrip() {
+		TaskInfo task = AllTaskTests.createTestTask("test");
+		TaskStore store = new TaskLogStore(tempDir);
+		store.writeTask(new TaskDescription(task.getUserId(), task.getTaskId()), task.toJSON().toString());
+
+		TaskInfo task2 = TaskInfo.fromJSON(store.readTask(new TaskDescription(task.getUserId(), task.getTaskId())));
+		AllTaskTests.assertEqualTasks(task, task2);
+		assertNull(store.readTask(new TaskDescription("Userdoesnotexist", "Doesnotexist")));
+	}
+
+	@Test
+	public void testReopen() {
+		TaskInfo task1 = new TaskInfo("test", "taskid1", false);
+		TaskInfo task2 = new TaskInfo("test", "taskid2", false);
+		TaskStore store = new TaskLogStore(tempDir);
+		store.writeTask(new TaskDescription("test", task1.getTaskId()), task1.toJSON().toString());
+		store.writeTask(new TaskDescription("test", task2.getTaskId()), task2.toJSON().toString());
+		task1.done(Status.OK_STATUS);
+		store.writeTask(new TaskDescription("test", task1.getTaskId()), task1.toJSON().toString());
+		assertTrue(store.removeTask(new TaskDescription("test", task2.getTaskId())));
+
+		//a new store only knows what is in the index
+		store = new TaskLogStore(tempDir);
+		assertEquals(1, store.readAllTasks().size());
+		assertEquals(1, store.readAllTasks("test").size());
+		TaskInfo read = TaskInfo.fromJSON(store.readTask(new TaskDescription("test", task1.getTaskId())));
+		AllTaskTests.assertEqualTasks(task1, read);
+		assertNull(store.readTask(new TaskDescription("test", task2.getTaskId())));
+	}
+
+	@Test
+	public void testRemoveTasksBefore() throws InterruptedException {
+		TaskInfo task = AllTaskTests.createTestTask("test");
+		TaskStore store = new TaskLogStore(tempDir);
+		store.writeTask(new TaskDescription(task.getUserId(), task.getTaskId()), task.toJSON().toString());
+		Thread.sleep(10);
+		//the segment being written to is kept
+		store.removeTasksBefore(new Date());
+		assertNotNull(store.readTask(new TaskDescription(task.getUserId(), task.getTaskId())));
+	}
+
+	@Before
+	public void setUp() {
+		tempDir = new File(new File(System.getProperty("java.io.tmpdir")), "eclipse.TaskLogStoreTest");
+		tearDown();
+		tempDir.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		File[] children = tempDir.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (child.isDirectory()) {
+					for (File grandchild : child.listFiles())
+						grandchild.delete();
+				}
+				child.delete();
+			}
+		}
+		tempDir.delete();
+	}
+}
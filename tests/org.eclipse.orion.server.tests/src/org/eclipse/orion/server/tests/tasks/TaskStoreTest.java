@@ -12,7 +12,9 @@ package org.eclipse.orion.server.tests.tasks;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import junit.framework.TestCase;
@@ -80,6 +82,27 @@ public class TaskStoreTest extends TestCase {
 		assertEquals(1, store.readAllTasks("test"));
 	}
 
+	@Test
+	public void testModifiedSince() throws InterruptedException {
+		ITaskService taskService = new TaskService(new Path(tempDir.getAbsolutePath()));
+		TaskInfo task1 = taskService.createTask("task1", "test", true);
+		TaskInfo task2 = taskService.createTask("task2", "test", true);
+		Thread.sleep(10);
+		Date since = new Date();
+		Thread.sleep(10);
+		task1.done(Status.OK_STATUS);
+		taskService.updateTask(task1);
+
+		List<TaskInfo> modified = taskService.getTasks("test", since, false);
+		assertEquals(1, modified.size());
+		assertEquals(task1.getTaskId(), modified.get(0).getTaskId());
+		assertEquals(2, taskService.getTasks("test", null, false).size());
+		List<TaskInfo> running = taskService.getTasks("test", null, true);
+		assertEquals(1, running.size());
+		assertEquals(task2.getTaskId(), running.get(0).getTaskId());
+		assertTrue(taskService.getTasks("other", null, false).isEmpty());
+	}
+
 	@Before
 	public void setUp() throws IOException {
 		tempDir = new File(new File(System.getProperty("java.io.tmpdir")), "eclipse.TaskStoreTest");